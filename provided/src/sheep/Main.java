@@ -2,17 +2,22 @@ package sheep;
 
 import sheep.expression.CoreFactory;
 import sheep.expression.ExpressionFactory;
+import sheep.expression.FoldingFactory;
+import sheep.expression.InterningFactory;
 import sheep.features.*;
+import sheep.features.calculation.Calculation;
 import sheep.features.files.FileLoading;
 import sheep.features.files.FileSaving;
+import sheep.features.history.History;
 import sheep.fun.FunException;
 import sheep.games.life.Life;
 import sheep.games.random.RandomFreeCell;
 import sheep.games.random.RandomTetrosTile;
 import sheep.games.snake.Snake;
 import sheep.games.tetros.Tetros;
+import sheep.parsing.CachingParser;
 import sheep.parsing.Parser;
-import sheep.parsing.SimpleParser;
+import sheep.parsing.PrattParser;
 import sheep.sheets.GameSheet;
 import sheep.sheets.Sheet;
 import sheep.ui.UI;
@@ -34,8 +39,8 @@ public class Main {
      * @throws FunException If a pre-populator fails to insert an expression.
      */
     public static void main(String[] args) throws FunException {
-        ExpressionFactory factory = new CoreFactory();
-        Parser parser = new SimpleParser(factory);
+        ExpressionFactory factory = new InterningFactory(new FoldingFactory(new CoreFactory()));
+        Parser parser = new CachingParser(new PrattParser(factory), 1024);
 
         Sheet sheet = new GameSheet(parser, new HashMap<>(),
                 factory.createEmpty(), 20, 5);
@@ -43,6 +48,8 @@ public class Main {
         Feature[] features = new Feature[]{
                 new FileLoading(sheet),
                 new FileSaving(sheet),
+                new History(sheet),
+                new Calculation(sheet),
                 new Life(sheet),
                 new Snake(sheet, new RandomFreeCell(sheet, new Random())),
                 new Tetros(sheet, new RandomTetrosTile(new Random()))
@@ -0,0 +1,21 @@
+package sheep.core;
+
+/**
+ * A callback invoked whenever cells of a {@link SheetView} change,
+ * so that only the changed cells need to be read again.
+ */
+public interface ChangeListener {
+    /**
+     * Called once cells of the spreadsheet have changed.
+     *
+     * @param rows The row index of each changed cell.
+     * @param columns The column index of each changed cell,
+     *                such that the i-th changed cell is at (rows[i], columns[i]).
+     */
+    void cellsChanged(int[] rows, int[] columns);
+
+    /**
+     * Called once the dimensions of the spreadsheet, or every cell, may have changed.
+     */
+    void sheetChanged();
+}
@@ -37,4 +37,33 @@ public interface SheetView {
      * @return A {@link ViewElement} that details how to render the cell's formula.
      */
     ViewElement formulaAt(int row, int column);
+
+    /**
+     * A view of the spreadsheet as it is now, which does not change if the
+     * spreadsheet is later updated.
+     * <p>
+     * Readers that need a consistent spreadsheet, such as rendering or saving,
+     * should read from a snapshot rather than the view itself.
+     * By default the view itself is returned, which is only consistent
+     * for views that are not updated while they are read.
+     *
+     * @return A view of the spreadsheet that does not change.
+     */
+    default SheetView snapshot() {
+        return this;
+    }
+
+    /**
+     * Register a listener that is notified of the cells that change
+     * whenever the spreadsheet is updated.
+     * <p>
+     * By default changes are not reported, in which case readers must assume
+     * that any cell may have changed after an update.
+     *
+     * @param listener The listener to notify of changes.
+     * @return True if the view reports its changes to the listener.
+     */
+    default boolean addChangeListener(ChangeListener listener) {
+        return false;
+    }
 }
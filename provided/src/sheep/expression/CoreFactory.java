@@ -1,9 +1,14 @@
 package sheep.expression;
 
+import sheep.expression.aggregate.Aggregate;
 import sheep.expression.arithmetic.Arithmetic;
 import sheep.expression.basic.Constant;
 import sheep.expression.basic.Nothing;
+import sheep.expression.basic.Range;
 import sheep.expression.basic.Reference;
+import sheep.sheets.CellLocation;
+
+import java.util.Optional;
 
 /**
  * An expression factory for the core expressions.
@@ -69,6 +74,8 @@ public class CoreFactory implements ExpressionFactory {
      *     <li>=;</li>
      * </ul>
      * and create the appropriate {@link Arithmetic} subclass.
+     * The aggregate functions SUM, MIN, MAX, COUNT and AVG are also handled,
+     * creating the appropriate {@link Aggregate} subclass.
      * If the operator name is not listed above, {@link InvalidExpression} should be thrown.
      *
      * @param name An identifier for the operator, e.g. +, *.
@@ -92,8 +99,31 @@ public class CoreFactory implements ExpressionFactory {
             case "/" -> Arithmetic.divide(castArguments(name, args));
             case "<" -> Arithmetic.less(castArguments(name, args));
             case "=" -> Arithmetic.equal(castArguments(name, args));
+            case "SUM" -> Aggregate.sum(castArguments(name, args));
+            case "MIN" -> Aggregate.min(castArguments(name, args));
+            case "MAX" -> Aggregate.max(castArguments(name, args));
+            case "COUNT" -> Aggregate.count(castArguments(name, args));
+            case "AVG" -> Aggregate.average(castArguments(name, args));
             default ->
                 throw new InvalidExpression("Unknown operator: " + name);
         };
     }
+
+    /**
+     * An instance of {@link Range} between the two given cells.
+     *
+     * @param start A reference to a corner of the range, e.g. A1.
+     * @param end A reference to the opposite corner of the range, e.g. B10.
+     * @return An instance of {@link Range} covering every cell between the corners.
+     * @throws InvalidExpression If either corner is not a reference to a cell.
+     */
+    @Override
+    public Expression createRange(String start, String end) throws InvalidExpression {
+        Optional<CellLocation> first = CellLocation.maybeReference(start);
+        Optional<CellLocation> second = CellLocation.maybeReference(end);
+        if (first.isEmpty() || second.isEmpty()) {
+            throw new InvalidExpression("Invalid range: " + start + ":" + end);
+        }
+        return new Range(first.get(), second.get());
+    }
 }
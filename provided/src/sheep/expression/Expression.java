@@ -1,5 +1,7 @@
 package sheep.expression;
 
+import sheep.sheets.CellLocation;
+
 import java.util.Map;
 import java.util.Set;
 
@@ -34,11 +36,28 @@ public abstract class Expression {
      * expr.dependencies() // {"A1", "A2", "B2"}
      * }</pre>
      *
+     * The returned set may be unmodifiable, and may be the same set on every call.
+     *
      * @return A set containing all the transitive references depended upon by the expression.
      * @hint Transitivity can be ignored until stage 2.
      */
     public abstract Set<String> dependencies();
 
+    /**
+     * The cells depended upon by the expression,
+     * that is, every dependency that refers to a cell, resolved to its location.
+     * <p>
+     * The returned array must not be modified. Immutable expressions resolve
+     * their dependencies once and return the same array on every call,
+     * by default the dependencies are resolved again on every call.
+     *
+     * @return The location of every cell among the dependencies of the expression.
+     * @see CellLocation#resolve(java.util.Collection)
+     */
+    public CellLocation[] cellDependencies() {
+        return CellLocation.resolve(dependencies());
+    }
+
     /**
      * Evaluate the expression to a numeric value.
      *
@@ -61,6 +80,22 @@ public abstract class Expression {
      */
     public abstract Expression value(Map<String, Expression> state) throws TypeError;
 
+    /**
+     * Evaluate the expression to a numeric value, reading references from a value source.
+     * <p>
+     * Unlike {@link #value(Map)}, no intermediate expressions need to be created,
+     * the core expressions evaluate without allocating.
+     * By default, the expression is evaluated against the state of the source,
+     * that is, {@code value(values.state()).value()}.
+     *
+     * @param values The source of the values of cells and other identifiers.
+     * @return The numeric value of the expression.
+     * @throws TypeError If the expression, or any expression it refers to, is not numeric.
+     */
+    public long evaluate(ValueSource values) throws TypeError {
+        return value(values.state()).value();
+    }
+
     /**
      * True if the expression is a reference.
      * The abstract class, expression, should return false by default.
@@ -1,5 +1,7 @@
 package sheep.expression;
 
+import sheep.expression.basic.Group;
+
 /**
  * Factory of {@link Expression} instances.
  * <p>
@@ -43,4 +45,55 @@ public interface ExpressionFactory {
      * or the arguments to the operator are inappropriate (e.g. wrong type, too few, too many, etc).
      */
     Expression createOperator(String name, Object[] args) throws InvalidExpression;
+
+    /**
+     * Construct an expression representing the rectangular range of cells
+     * between two cell references, e.g. A1 and B10.
+     * <p>
+     * Factories do not support ranges unless they override this method.
+     *
+     * @param start A reference to a corner of the range.
+     * @param end A reference to the opposite corner of the range.
+     * @return A range expression.
+     * @throws InvalidExpression If ranges are not supported,
+     * or either corner is not a reference to a cell.
+     */
+    default Expression createRange(String start, String end) throws InvalidExpression {
+        throw new InvalidExpression("Ranges are not supported");
+    }
+
+    /**
+     * Construct an expression representing an expression written within parentheses.
+     * The group evaluates exactly as the grouped expression,
+     * it only preserves the parentheses when the expression is rendered.
+     * <p>
+     * By default, the expression is wrapped in a {@link Group}.
+     *
+     * @param expression The expression within the parentheses.
+     * @return A grouped expression.
+     */
+    default Expression createGroup(Expression expression) {
+        return new Group(expression);
+    }
+
+    /**
+     * Construct an expression representing an operand written with a sign, e.g. -A1.
+     * The expression evaluates as the operand with the sign applied,
+     * it only preserves the sign when the expression is rendered.
+     * <p>
+     * By default, a negated operand is subtracted from zero with {@link #createOperator(String, Object[])}
+     * and wrapped in a {@link Group} of the sign and operand.
+     *
+     * @param sign The sign written before the operand, i.e. - or +.
+     * @param operand The operand written after the sign.
+     * @return A signed expression.
+     * @throws InvalidExpression If the operator subtracting the operand cannot be created.
+     */
+    default Expression createSigned(String sign, Expression operand) throws InvalidExpression {
+        if (sign.equals("+")) {
+            return new Group(sign, operand, operand);
+        }
+        return new Group(sign, operand,
+                createOperator("-", new Object[]{createConstant(0), operand}));
+    }
 }
@@ -0,0 +1,134 @@
+package sheep.expression;
+
+import sheep.sheets.CellLocation;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An expression that has been simplified ahead of evaluation,
+ * but is still rendered as it was written.
+ * <p>
+ * The simplified expression is equivalent to the original expression,
+ * it is used for every purpose except rendering.
+ *
+ * @see FoldingFactory
+ */
+public final class Folded extends Expression {
+    private final Expression original;
+    private final Expression simplified;
+
+    /**
+     * Construct a new expression that renders as the original expression
+     * and evaluates as the simplified expression.
+     *
+     * @param original The expression as it was written.
+     * @param simplified An equivalent expression that is cheaper to evaluate.
+     * @requires original and simplified evaluate to the same value in every state
+     */
+    public Folded(Expression original, Expression simplified) {
+        this.original = original;
+        this.simplified = simplified;
+    }
+
+    /**
+     * The expression as it was written.
+     * @return The original expression.
+     */
+    public Expression getOriginal() {
+        return original;
+    }
+
+    /**
+     * The equivalent expression that is evaluated in place of the original.
+     * @return The simplified expression.
+     */
+    public Expression getSimplified() {
+        return simplified;
+    }
+
+    /**
+     * The simplified form of an expression,
+     * that is, the expression itself unless it is a folded expression.
+     *
+     * @param expression Any expression.
+     * @return The expression to evaluate in place of the given expression.
+     */
+    public static Expression simplified(Expression expression) {
+        return expression instanceof Folded folded ? folded.simplified : expression;
+    }
+
+    /**
+     * The original form of an expression,
+     * that is, the expression itself unless it is a folded expression.
+     *
+     * @param expression Any expression.
+     * @return The expression as it was written.
+     */
+    public static Expression original(Expression expression) {
+        return expression instanceof Folded folded ? folded.original : expression;
+    }
+
+    @Override
+    public Set<String> dependencies() {
+        return simplified.dependencies();
+    }
+
+    @Override
+    public CellLocation[] cellDependencies() {
+        return simplified.cellDependencies();
+    }
+
+    @Override
+    public long value() throws TypeError {
+        return simplified.value();
+    }
+
+    @Override
+    public Expression value(Map<String, Expression> state) throws TypeError {
+        return simplified.value(state);
+    }
+
+    @Override
+    public long evaluate(ValueSource values) throws TypeError {
+        return simplified.evaluate(values);
+    }
+
+    /**
+     * The string representation of the expression as it was written.
+     * @return the string representation of the original expression.
+     */
+    @Override
+    public String render() {
+        return original.render();
+    }
+
+    @Override
+    public String toString() {
+        return original.toString();
+    }
+
+    /**
+     * If two folded expressions are equal to each other.
+     * Equality is defined by having equal original and simplified expressions.
+     * @param obj another instance to compare against.
+     * @return true if the other object is an equal folded expression.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof Folded other) {
+            return original.equals(other.original) && simplified.equals(other.simplified);
+        }
+        return false;
+    }
+
+    /**
+     * A hashcode method that respects the {@link Folded#equals(Object)} method.
+     * @return An appropriate hashcode value for this instance.
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(original, simplified);
+    }
+}
@@ -0,0 +1,211 @@
+package sheep.expression;
+
+import sheep.expression.aggregate.Aggregate;
+import sheep.expression.arithmetic.Arithmetic;
+import sheep.expression.basic.Constant;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An expression factory that simplifies operators as they are created.
+ * <p>
+ * Operators are created by another factory and then simplified:
+ * <ul>
+ *     <li>operators whose arguments are all constant are evaluated once, e.g. 1 + 2 * 3 is 7;</li>
+ *     <li>nested operators of the same kind are flattened, e.g. (A1 + B1) + C1 is A1 + B1 + C1;</li>
+ *     <li>the constants of a sum or product are combined, e.g. 2 + A1 + 3 is A1 + 5; and</li>
+ *     <li>identities are removed, e.g. A1 * 1 and A1 + 0 are a product and sum of A1 alone.</li>
+ * </ul>
+ * An operator is never simplified into anything but another operator or a constant,
+ * so A1 + 0 still fails to evaluate if A1 is empty.
+ * Operators whose evaluation fails, such as division by zero, are left as written.
+ * <p>
+ * Groups are simplified to the expression within the parentheses,
+ * and signed operands to the operand with the sign applied.
+ * <p>
+ * A simplified operator, group or signed operand is returned as a {@link Folded} expression,
+ * so it is still rendered exactly as it was written.
+ */
+public class FoldingFactory implements ExpressionFactory {
+    private static final Map<String, Long> IDENTITIES = Map.of("+", 0L, "*", 1L, "-", 0L, "/", 1L);
+
+    private final ExpressionFactory factory;
+
+    /**
+     * Construct a new factory that simplifies the operators of the given factory.
+     *
+     * @param factory Factory used to construct expressions before they are simplified.
+     */
+    public FoldingFactory(ExpressionFactory factory) {
+        this.factory = factory;
+    }
+
+    @Override
+    public Expression createReference(String identifier) {
+        return factory.createReference(identifier);
+    }
+
+    @Override
+    public Expression createConstant(long value) {
+        return factory.createConstant(value);
+    }
+
+    @Override
+    public Expression createEmpty() {
+        return factory.createEmpty();
+    }
+
+    @Override
+    public Expression createRange(String start, String end) throws InvalidExpression {
+        return factory.createRange(start, end);
+    }
+
+    /**
+     * Construct a group of the given expression, which is simplified to the expression itself.
+     *
+     * @param expression The expression within the parentheses.
+     * @return A {@link Folded} expression of the group and the simplified grouped expression.
+     */
+    @Override
+    public Expression createGroup(Expression expression) {
+        if (expression instanceof Folded folded) {
+            return fold(factory.createGroup(folded.getOriginal()), folded.getSimplified());
+        }
+        return fold(factory.createGroup(expression), expression);
+    }
+
+    /**
+     * Construct a signed operand, which is simplified to the operand with the sign applied,
+     * e.g. -(2 + 3) is -5 and +A1 is A1.
+     *
+     * @param sign The sign written before the operand, i.e. - or +.
+     * @param operand The operand written after the sign.
+     * @return A {@link Folded} expression of the signed operand and its simplified form.
+     * @throws InvalidExpression If the underlying factory cannot create the signed operand.
+     */
+    @Override
+    public Expression createSigned(String sign, Expression operand) throws InvalidExpression {
+        Expression original = factory.createSigned(sign, Folded.original(operand));
+        Expression simplified = sign.equals("+") ? Folded.simplified(operand)
+                : Folded.simplified(createOperator("-", new Object[]{createConstant(0), operand}));
+        return fold(original, simplified);
+    }
+
+    /**
+     * Construct an operator with the given arguments, simplified if possible.
+     *
+     * @param name An identifier for the operator, e.g. +, *.
+     * @param args Arguments to the operator.
+     * @return The operator as created by the underlying factory if it cannot be simplified,
+     *         otherwise a {@link Folded} expression of the operator and its simplified form.
+     * @throws InvalidExpression If the underlying factory cannot create the operator.
+     */
+    @Override
+    public Expression createOperator(String name, Object[] args) throws InvalidExpression {
+        Object[] originals = new Object[args.length];
+        Object[] simplified = new Object[args.length];
+        boolean folded = false;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] instanceof Folded argument) {
+                originals[i] = argument.getOriginal();
+                simplified[i] = argument.getSimplified();
+                folded = true;
+            } else {
+                originals[i] = args[i];
+                simplified[i] = args[i];
+            }
+        }
+        Expression original = factory.createOperator(name, originals);
+        Expression operator = folded ? factory.createOperator(name, simplified) : original;
+        return fold(original, simplify(operator));
+    }
+
+    private static Expression fold(Expression original, Expression simplified) {
+        return simplified.equals(original) ? original : new Folded(original, simplified);
+    }
+
+    /**
+     * Simplify an operator whose arguments are already simplified.
+     */
+    private Expression simplify(Expression operator) throws InvalidExpression {
+        if (operator instanceof Arithmetic arithmetic) {
+            operator = simplifyArithmetic(arithmetic);
+        }
+        return evaluateConstant(operator);
+    }
+
+    private Expression simplifyArithmetic(Arithmetic arithmetic) throws InvalidExpression {
+        String name = arithmetic.getOperator();
+        Long identity = IDENTITIES.get(name);
+        if (identity == null) {
+            return arithmetic;
+        }
+        // only the first argument of a difference or quotient may be flattened,
+        // (A - B) - C is A - B - C whereas A - (B - C) is not
+        boolean associative = name.equals("+") || name.equals("*");
+        Expression[] arguments = arithmetic.getArguments();
+        List<Expression> flattened = new ArrayList<>();
+        for (int i = 0; i < arguments.length; i++) {
+            if ((associative || i == 0) && arguments[i].getClass() == arithmetic.getClass()) {
+                flattened.addAll(List.of(((Arithmetic) arguments[i]).getArguments()));
+            } else {
+                flattened.add(arguments[i]);
+            }
+        }
+
+        List<Expression> remaining = new ArrayList<>();
+        long combined = identity;
+        boolean changed = flattened.size() != arguments.length;
+        for (int i = 0; i < flattened.size(); i++) {
+            Expression argument = flattened.get(i);
+            // constants of a sum or product, or subtracted constants, may be combined
+            boolean combinable = argument.getClass() == Constant.class
+                    && (associative || (i > 0 && name.equals("-")));
+            boolean isIdentity = argument.getClass() == Constant.class && i > 0
+                    && ((Constant) argument).getValue() == identity;
+            if (combinable) {
+                long value = ((Constant) argument).getValue();
+                combined = name.equals("*") ? combined * value : combined + value;
+                changed = true;
+            } else if (isIdentity) {
+                changed = true;
+            } else {
+                remaining.add(argument);
+            }
+        }
+        if (!changed) {
+            return arithmetic;
+        }
+        if (combined != identity || remaining.isEmpty()) {
+            remaining.add(factory.createConstant(combined));
+        }
+        return factory.createOperator(name, remaining.toArray());
+    }
+
+    /**
+     * Evaluate an operator to a constant if all of its arguments are constant.
+     */
+    private Expression evaluateConstant(Expression operator) {
+        Expression[] arguments;
+        if (operator instanceof Arithmetic arithmetic) {
+            arguments = arithmetic.getArguments();
+        } else if (operator instanceof Aggregate aggregate) {
+            arguments = aggregate.getArguments();
+        } else {
+            return operator;
+        }
+        for (Expression argument : arguments) {
+            if (argument.getClass() != Constant.class) {
+                return operator;
+            }
+        }
+        try {
+            return factory.createConstant(operator.value(Map.of()).value());
+        } catch (TypeError | ArithmeticException e) {
+            // left to fail when the cell is evaluated, as it would have
+            return operator;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package sheep.expression;
+
+import sheep.expression.basic.Constant;
+import sheep.expression.basic.Nothing;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * An expression factory that shares structurally equal expressions.
+ * <p>
+ * Expressions are created by another factory and then interned:
+ * if an equal expression was already created and is still in use,
+ * that expression is returned instead and the new one is discarded.
+ * Parsers create the arguments of an operator before the operator itself,
+ * so every subtree of an interned expression is interned as well,
+ * and a sheet full of repeated formulas holds a single copy of each.
+ * <p>
+ * Small constants are shared through {@link Constant#of(long)} and
+ * every empty expression is {@link Nothing#EMPTY}.
+ * Interned expressions are only weakly held, so expressions that are no longer
+ * used by any cell are not kept alive by the factory.
+ * The factory may be used from multiple threads.
+ */
+public class InterningFactory implements ExpressionFactory {
+    private final ExpressionFactory factory;
+    private final Map<Expression, WeakReference<Expression>> interned = new WeakHashMap<>();
+
+    /**
+     * Construct a new factory that interns the expressions of the given factory.
+     *
+     * @param factory Factory used to construct expressions before they are interned.
+     */
+    public InterningFactory(ExpressionFactory factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * The shared instance of an expression equal to the given expression.
+     * If there is none, the given expression becomes the shared instance.
+     *
+     * @param expression An expression to intern.
+     * @return An expression equal to the given expression.
+     */
+    public synchronized Expression intern(Expression expression) {
+        WeakReference<Expression> reference = interned.get(expression);
+        Expression existing = reference == null ? null : reference.get();
+        if (existing != null) {
+            return existing;
+        }
+        interned.put(expression, new WeakReference<>(expression));
+        return expression;
+    }
+
+    /**
+     * The amount of distinct expressions currently interned.
+     *
+     * @return The amount of interned expressions.
+     */
+    public synchronized int size() {
+        return interned.size();
+    }
+
+    @Override
+    public Expression createReference(String identifier) {
+        return intern(factory.createReference(identifier));
+    }
+
+    @Override
+    public Expression createConstant(long value) {
+        Expression constant = factory.createConstant(value);
+        if (constant.getClass() == Constant.class) {
+            // prefer the instance shared by every small constant
+            constant = Constant.of(((Constant) constant).getValue());
+        }
+        return intern(constant);
+    }
+
+    @Override
+    public Expression createEmpty() {
+        Expression empty = factory.createEmpty();
+        if (empty.getClass() == Nothing.class) {
+            return Nothing.EMPTY;
+        }
+        return intern(empty);
+    }
+
+    @Override
+    public Expression createOperator(String name, Object[] args) throws InvalidExpression {
+        return intern(factory.createOperator(name, args));
+    }
+
+    @Override
+    public Expression createRange(String start, String end) throws InvalidExpression {
+        return intern(factory.createRange(start, end));
+    }
+
+    @Override
+    public Expression createGroup(Expression expression) {
+        return intern(factory.createGroup(expression));
+    }
+
+    @Override
+    public Expression createSigned(String sign, Expression operand) throws InvalidExpression {
+        return intern(factory.createSigned(sign, operand));
+    }
+}
@@ -0,0 +1,36 @@
+package sheep.expression;
+
+import sheep.sheets.CellLocation;
+
+import java.util.Map;
+
+/**
+ * A {@link ValueSource} reading from a mapping of references to the expressions they hold,
+ * so that expressions evaluated against it behave exactly as {@link Expression#value(Map)}.
+ */
+final class StateSource implements ValueSource {
+    private final Map<String, Expression> state;
+
+    StateSource(Map<String, Expression> state) {
+        this.state = state;
+    }
+
+    @Override
+    public long cell(int row, int column) throws TypeError {
+        Expression value = lookup(CellLocation.of(row, column).toString());
+        if (value == null) {
+            throw new TypeError();
+        }
+        return value.evaluate(this);
+    }
+
+    @Override
+    public Expression lookup(String identifier) {
+        return state.get(identifier);
+    }
+
+    @Override
+    public Map<String, Expression> state() {
+        return state;
+    }
+}
@@ -0,0 +1,49 @@
+package sheep.expression;
+
+import java.util.Map;
+
+/**
+ * Source of the values an expression is evaluated against by {@link Expression#evaluate(ValueSource)}.
+ * <p>
+ * Cells are addressed by their row and column, which references resolve once
+ * when they are constructed, so evaluating against a source neither parses nor
+ * hashes the identifiers of cells.
+ * Any other identifier, such as a built-in, is looked up by name.
+ */
+public interface ValueSource {
+    /**
+     * The numeric value of the cell at the given row and column.
+     *
+     * @param row A row within the spreadsheet.
+     * @param column A column within the spreadsheet.
+     * @return The numeric value of the given cell.
+     * @throws TypeError If the source has no value for the cell or the value is not numeric.
+     */
+    long cell(int row, int column) throws TypeError;
+
+    /**
+     * The expression held by an identifier that is not a reference to a cell.
+     *
+     * @param identifier An identifier, e.g. of a built-in.
+     * @return The expression held by the identifier, or null if the source has no such identifier.
+     */
+    Expression lookup(String identifier);
+
+    /**
+     * A mapping of references to the expressions they hold, equivalent to this source.
+     * Used to evaluate expressions that do not evaluate against a source directly.
+     *
+     * @return The state this source reads from.
+     */
+    Map<String, Expression> state();
+
+    /**
+     * A source that reads the values of cells and identifiers from a state.
+     *
+     * @param state A mapping of references to the expression they hold.
+     * @return A source of the values within the state.
+     */
+    static ValueSource of(Map<String, Expression> state) {
+        return new StateSource(state);
+    }
+}
@@ -0,0 +1,286 @@
+package sheep.expression.aggregate;
+
+import sheep.expression.Expression;
+import sheep.expression.TypeError;
+import sheep.expression.basic.Constant;
+import sheep.expression.basic.Range;
+import sheep.sheets.CellLocation;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * An aggregate function, e.g. SUM(A1:A10).
+ * Combines the numeric values of its arguments into a single number.
+ * <p>
+ * Arguments may be ranges of cells, in which case every cell in the range
+ * that holds a numeric value is included and every other cell is skipped.
+ * Any other argument must evaluate to a numeric value.
+ */
+public abstract class Aggregate extends Expression {
+    private final String name;
+    private final Expression[] arguments;
+    // computed when first needed, as expressions are immutable
+    private int hash;
+    private volatile Set<String> dependencies;
+    private volatile CellLocation[] cells;
+
+    /**
+     * Construct a new aggregate function.
+     *
+     * @param name The name of the function, e.g. SUM.
+     * @param arguments A sequence of sub-expressions and ranges to combine.
+     * @requires arguments.length &gt; 0
+     */
+    protected Aggregate(String name, Expression[] arguments) {
+        this.name = name;
+        this.arguments = arguments;
+    }
+
+    /**
+     * Construct a new sum function, the total of every value.
+     *
+     * @param arguments A sequence of sub-expressions and ranges to combine.
+     * @requires arguments.length &gt; 0
+     * @return A sum expression.
+     */
+    public static Aggregate sum(Expression[] arguments) {
+        return new Sum(arguments);
+    }
+
+    /**
+     * Construct a new minimum function, the smallest value.
+     *
+     * @param arguments A sequence of sub-expressions and ranges to combine.
+     * @requires arguments.length &gt; 0
+     * @return A minimum expression.
+     */
+    public static Aggregate min(Expression[] arguments) {
+        return new Min(arguments);
+    }
+
+    /**
+     * Construct a new maximum function, the largest value.
+     *
+     * @param arguments A sequence of sub-expressions and ranges to combine.
+     * @requires arguments.length &gt; 0
+     * @return A maximum expression.
+     */
+    public static Aggregate max(Expression[] arguments) {
+        return new Max(arguments);
+    }
+
+    /**
+     * Construct a new count function, the amount of values.
+     *
+     * @param arguments A sequence of sub-expressions and ranges to combine.
+     * @requires arguments.length &gt; 0
+     * @return A count expression.
+     */
+    public static Aggregate count(Expression[] arguments) {
+        return new Count(arguments);
+    }
+
+    /**
+     * Construct a new average function, the mean of every value rounded towards zero.
+     *
+     * @param arguments A sequence of sub-expressions and ranges to combine.
+     * @requires arguments.length &gt; 0
+     * @return An average expression.
+     */
+    public static Aggregate average(Expression[] arguments) {
+        return new Average(arguments);
+    }
+
+    /**
+     * The name of the aggregate function, e.g. SUM.
+     *
+     * @return The function name of this expression.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * The sequence of sub-expressions and ranges the function combines.
+     * <p>
+     * Modifying the returned array does not modify the expression.
+     *
+     * @return A copy of the arguments of this expression.
+     */
+    public Expression[] getArguments() {
+        return arguments.clone();
+    }
+
+    /**
+     * Dependencies of the aggregate expression.
+     * The dependencies of an aggregate expression are the union
+     * of all sub-expressions, including every cell of any range.
+     * The set is computed once and cannot be modified.
+     *
+     * @return A set containing the union of all sub-expression dependencies.
+     */
+    @Override
+    public Set<String> dependencies() {
+        Set<String> result = dependencies;
+        if (result == null) {
+            Set<String> union = new HashSet<>();
+            for (Expression expression : arguments) {
+                union.addAll(expression.dependencies());
+            }
+            result = Collections.unmodifiableSet(union);
+            dependencies = result;
+        }
+        return result;
+    }
+
+    /**
+     * The cells depended upon by the expression, combined from those of
+     * the arguments when first needed, so the cells of a range are never named.
+     *
+     * @return The location of every cell among the dependencies of the expression.
+     */
+    @Override
+    public CellLocation[] cellDependencies() {
+        CellLocation[] result = cells;
+        if (result == null) {
+            result = CellLocation.union(arguments);
+            cells = result;
+        }
+        return result;
+    }
+
+    /**
+     * The result of evaluating this expression.
+     * <p>
+     * An aggregate expression evaluates to a {@link Constant} expression
+     * that stores the result of combining the values of every argument.
+     * Cells of a range without a value in the state, or without a numeric value, are skipped.
+     *
+     * @param state A mapping of references to the expression they hold.
+     * @return A constant expression of the result.
+     * @throws TypeError If any argument other than a range cannot be converted to a numeric value.
+     */
+    @Override
+    public Expression value(Map<String, Expression> state) throws TypeError {
+        long[] values = new long[arguments.length];
+        int count = 0;
+        for (Expression argument : arguments) {
+            if (argument instanceof Range range) {
+                CellLocation start = range.getStart();
+                CellLocation end = range.getEnd();
+                for (int column = start.getColumn(); column <= end.getColumn(); column++) {
+                    for (int row = start.getRow(); row <= end.getRow(); row++) {
+                        String identifier = CellLocation.of(row, column).toString();
+                        if (!state.containsKey(identifier)) {
+                            continue;
+                        }
+                        try {
+                            long value = state.get(identifier).value(state).value();
+                            if (count == values.length) {
+                                values = Arrays.copyOf(values, count * 2);
+                            }
+                            values[count++] = value;
+                        } catch (TypeError ignored) {
+                            // cells without a numeric value are skipped
+                        }
+                    }
+                }
+            } else {
+                if (count == values.length) {
+                    values = Arrays.copyOf(values, count * 2);
+                }
+                values[count++] = argument.value(state).value();
+            }
+        }
+        return Constant.of(perform(Arrays.copyOf(values, count)));
+    }
+
+    /**
+     * Evaluate the expression to a numeric value.
+     * For aggregate expressions, a type error will always be thrown.
+     * @return Nothing will be returned as a {@link TypeError} is always thrown.
+     * @throws TypeError Will always be thrown by {@link Aggregate}.
+     */
+    @Override
+    public long value() throws TypeError {
+        throw new TypeError();
+    }
+
+    /**
+     * Combine a list of numbers into the result of the function.
+     * <p>
+     * This is an abstract method that should be implemented by each subclass.
+     * @param values The numeric values of the arguments, possibly none.
+     * @return The result of the aggregate function.
+     */
+    protected abstract long perform(long[] values);
+
+    /**
+     * The string representation of an expression when rendered within a cell.
+     * For aggregates, this is the function name followed by its arguments.
+     * <pre>
+     * {@code
+     * Aggregate sum = Aggregate.sum(new Expression[]{new Range(new CellLocation(1, 0), new CellLocation(10, 0)), new Constant(4)});
+     * sum.render(); // "SUM(A1:A10, 4)"
+     * }</pre>
+     * @return the string representation of the expression.
+     */
+    @Override
+    public String render() {
+        return toString();
+    }
+
+    /**
+     * If two instances of aggregate are equal to each other.
+     * Equality is defined by being the same function over equal arguments, in the same order.
+     * @param obj another instance to compare against.
+     * @return true if the other object is an aggregate expression of the same class
+     *         with equal arguments.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || obj.getClass() != getClass()) {
+            return false;
+        }
+        Aggregate other = (Aggregate) obj;
+        return hashCode() == other.hashCode() && name.equals(other.name)
+                && Arrays.equals(arguments, other.arguments);
+    }
+
+    /**
+     * A hashcode method that respects the {@link Aggregate#equals(Object)} method.
+     * @return An appropriate hashcode value for this instance.
+     */
+    @Override
+    public int hashCode() {
+        int result = hash;
+        if (result == 0) {
+            result = 31 * name.hashCode() + Arrays.hashCode(arguments);
+            hash = result;
+        }
+        return result;
+    }
+
+    /**
+     * The string representation of the expression.
+     * For aggregates, this is the function name followed by
+     * the arguments separated by commas within parentheses.
+     * @return the string representation of the expression.
+     */
+    @Override
+    public String toString() {
+        StringJoiner builder = new StringJoiner(", ", name + "(", ")");
+        for (Expression argument : arguments) {
+            builder.add(argument.render());
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,43 @@
+package sheep.expression.aggregate;
+
+import sheep.expression.Expression;
+
+/**
+ * An average function.
+ * Average functions must have the function name "AVG".
+ */
+class Average extends Aggregate {
+    /**
+     * Construct a new average expression.
+     *
+     * @param arguments A sequence of sub-expressions and ranges to combine.
+     * @requires arguments.length &gt; 0
+     */
+    public Average(Expression[] arguments) {
+        super("AVG", arguments);
+    }
+
+    /**
+     * The mean of the values, rounded towards zero.
+     *
+     * <pre>
+     * {@code
+     * Aggregate average = new Average(new Expression[]{new Constant(12), new Constant(2), new Constant(5)});
+     * average.perform(new long[]{12, 2, 5}); // 6
+     * }</pre>
+     *
+     * @param values The numeric values of the arguments, possibly none.
+     * @return The mean of the values, or 0 if there are none.
+     */
+    @Override
+    protected long perform(long[] values) {
+        if (values.length == 0) {
+            return 0;
+        }
+        long total = 0;
+        for (long value : values) {
+            total += value;
+        }
+        return total / values.length;
+    }
+}
@@ -0,0 +1,36 @@
+package sheep.expression.aggregate;
+
+import sheep.expression.Expression;
+
+/**
+ * A count function.
+ * Count functions must have the function name "COUNT".
+ */
+class Count extends Aggregate {
+    /**
+     * Construct a new count expression.
+     *
+     * @param arguments A sequence of sub-expressions and ranges to combine.
+     * @requires arguments.length &gt; 0
+     */
+    public Count(Expression[] arguments) {
+        super("COUNT", arguments);
+    }
+
+    /**
+     * The amount of values.
+     *
+     * <pre>
+     * {@code
+     * Aggregate count = new Count(new Expression[]{new Constant(12), new Constant(2), new Constant(5)});
+     * count.perform(new long[]{12, 2, 5}); // 3
+     * }</pre>
+     *
+     * @param values The numeric values of the arguments, possibly none.
+     * @return The amount of values.
+     */
+    @Override
+    protected long perform(long[] values) {
+        return values.length;
+    }
+}
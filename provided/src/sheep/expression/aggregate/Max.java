@@ -0,0 +1,43 @@
+package sheep.expression.aggregate;
+
+import sheep.expression.Expression;
+
+/**
+ * A maximum function.
+ * Maximum functions must have the function name "MAX".
+ */
+class Max extends Aggregate {
+    /**
+     * Construct a new max expression.
+     *
+     * @param arguments A sequence of sub-expressions and ranges to combine.
+     * @requires arguments.length &gt; 0
+     */
+    public Max(Expression[] arguments) {
+        super("MAX", arguments);
+    }
+
+    /**
+     * The largest of the values.
+     *
+     * <pre>
+     * {@code
+     * Aggregate max = new Max(new Expression[]{new Constant(12), new Constant(2), new Constant(5)});
+     * max.perform(new long[]{12, 2, 5}); // 12
+     * }</pre>
+     *
+     * @param values The numeric values of the arguments, possibly none.
+     * @return The largest value, or 0 if there are none.
+     */
+    @Override
+    protected long perform(long[] values) {
+        if (values.length == 0) {
+            return 0;
+        }
+        long result = values[0];
+        for (long value : values) {
+            result = Math.max(result, value);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,43 @@
+package sheep.expression.aggregate;
+
+import sheep.expression.Expression;
+
+/**
+ * A minimum function.
+ * Minimum functions must have the function name "MIN".
+ */
+class Min extends Aggregate {
+    /**
+     * Construct a new min expression.
+     *
+     * @param arguments A sequence of sub-expressions and ranges to combine.
+     * @requires arguments.length &gt; 0
+     */
+    public Min(Expression[] arguments) {
+        super("MIN", arguments);
+    }
+
+    /**
+     * The smallest of the values.
+     *
+     * <pre>
+     * {@code
+     * Aggregate min = new Min(new Expression[]{new Constant(12), new Constant(2), new Constant(5)});
+     * min.perform(new long[]{12, 2, 5}); // 2
+     * }</pre>
+     *
+     * @param values The numeric values of the arguments, possibly none.
+     * @return The smallest value, or 0 if there are none.
+     */
+    @Override
+    protected long perform(long[] values) {
+        if (values.length == 0) {
+            return 0;
+        }
+        long result = values[0];
+        for (long value : values) {
+            result = Math.min(result, value);
+        }
+        return result;
+    }
+}
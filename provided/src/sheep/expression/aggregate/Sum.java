@@ -0,0 +1,40 @@
+package sheep.expression.aggregate;
+
+import sheep.expression.Expression;
+
+/**
+ * A sum function.
+ * Sum functions must have the function name "SUM".
+ */
+class Sum extends Aggregate {
+    /**
+     * Construct a new sum expression.
+     *
+     * @param arguments A sequence of sub-expressions and ranges to combine.
+     * @requires arguments.length &gt; 0
+     */
+    public Sum(Expression[] arguments) {
+        super("SUM", arguments);
+    }
+
+    /**
+     * The total of every value.
+     *
+     * <pre>
+     * {@code
+     * Aggregate sum = new Sum(new Expression[]{new Constant(12), new Constant(2), new Constant(5)});
+     * sum.perform(new long[]{12, 2, 5}); // 19
+     * }</pre>
+     *
+     * @param values The numeric values of the arguments, possibly none.
+     * @return The total of the values, or 0 if there are none.
+     */
+    @Override
+    protected long perform(long[] values) {
+        long result = 0;
+        for (long value : values) {
+            result += value;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,5 @@
+/**
+ * Expressions that combine the values of many cells,
+ * such as the sum of a range of cells.
+ */
+package sheep.expression.aggregate;
@@ -3,8 +3,12 @@ package sheep.expression.arithmetic;
 import sheep.expression.basic.Constant;
 import sheep.expression.Expression;
 import sheep.expression.TypeError;
+import sheep.expression.ValueSource;
 import sheep.expression.basic.Nothing;
+import sheep.sheets.CellLocation;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -19,6 +23,10 @@ import java.util.StringJoiner;
 public abstract class Arithmetic extends Expression {
     private final String operator;
     private final Expression[] arguments;
+    // computed when first needed, as expressions are immutable
+    private int hash;
+    private volatile Set<String> dependencies;
+    private volatile CellLocation[] cells;
 
     /**
      * Construct a new arithmetic expression.
@@ -98,6 +106,26 @@ public abstract class Arithmetic extends Expression {
         return new Equal(arguments);
     }
 
+    /**
+     * The name of the arithmetic operation, e.g. +.
+     *
+     * @return The operator name of this expression.
+     */
+    public String getOperator() {
+        return operator;
+    }
+
+    /**
+     * The sequence of sub-expressions the operation is performed upon.
+     * <p>
+     * Modifying the returned array does not modify the expression.
+     *
+     * @return A copy of the arguments of this expression.
+     */
+    public Expression[] getArguments() {
+        return arguments.clone();
+    }
+
     /**
      * Dependencies of the arithmetic expression.
      * The dependencies of an arithmetic expression are the union
@@ -107,16 +135,38 @@ public abstract class Arithmetic extends Expression {
      * Arithmetic plus = Arithmetic.plus(new Expression[]{Arithmetic.minus(new Expression[]{new Reference("A1"), new Reference("A2")}), new Reference("B1")});
      * plus.dependencies() // {"A1", "A2", "B1"}
      * }</pre>
+     * The set is computed once and cannot be modified.
      *
      * @return A set containing the union of all sub-expression dependencies.
      */
     @Override
     public Set<String> dependencies() {
-        Set<String> dependencies = new HashSet<>();
-        for (Expression expression : arguments) {
-            dependencies.addAll(expression.dependencies());
+        Set<String> result = dependencies;
+        if (result == null) {
+            Set<String> union = new HashSet<>();
+            for (Expression expression : arguments) {
+                union.addAll(expression.dependencies());
+            }
+            result = Collections.unmodifiableSet(union);
+            dependencies = result;
         }
-        return dependencies;
+        return result;
+    }
+
+    /**
+     * The cells depended upon by the expression, combined from those of
+     * the arguments when first needed, so the cells of a range are never named.
+     *
+     * @return The location of every cell among the dependencies of the expression.
+     */
+    @Override
+    public CellLocation[] cellDependencies() {
+        CellLocation[] result = cells;
+        if (result == null) {
+            result = CellLocation.union(arguments);
+            cells = result;
+        }
+        return result;
     }
 
     /**
@@ -126,7 +176,8 @@ public abstract class Arithmetic extends Expression {
      * that stores the result of performing the specific arithmetic operation.
      * <p>
      * During evaluation the arithmetic expression should evaluate each sub-expression
-     * and convert the resulting values to numeric values to perform the operation.
+     * and convert the resulting values to numeric values to perform the operation,
+     * which is done by {@link #evaluate(ValueSource)} against the state.
      *
      * @param state A mapping of references to the expression they hold.
      * @return A constant expression of the result.
@@ -134,11 +185,50 @@ public abstract class Arithmetic extends Expression {
      */
     @Override
     public Expression value(Map<String, Expression> state) throws TypeError {
-        long[] values = new long[arguments.length];
+        return Constant.of(evaluate(ValueSource.of(state)));
+    }
+
+    /**
+     * Evaluate every sub-expression against the values and perform the operation.
+     * <p>
+     * By default, the numeric values are collected and passed to {@link #perform(long[])},
+     * the core operations override this to combine them as they are evaluated.
+     * Every sub-expression is evaluated before the operation is performed,
+     * so type errors take precedence over errors of the operation, e.g. division by zero.
+     *
+     * @param values The source of the values of cells and other identifiers.
+     * @return The result of performing the arithmetic operation.
+     * @throws TypeError If any of the sub-expressions cannot be converted to a numeric value.
+     */
+    @Override
+    public long evaluate(ValueSource values) throws TypeError {
+        long[] numbers = new long[arguments.length];
         for (int i = 0; i < arguments.length; i++) {
-            values[i] = arguments[i].value(state).value();
+            numbers[i] = arguments[i].evaluate(values);
         }
-        return new Constant(perform(values));
+        return perform(numbers);
+    }
+
+    /**
+     * The amount of sub-expressions the operation is performed upon.
+     *
+     * @return The amount of arguments of this expression.
+     */
+    protected final int arity() {
+        return arguments.length;
+    }
+
+    /**
+     * Evaluate a single sub-expression to a numeric value.
+     *
+     * @param index The index of the sub-expression.
+     * @param values The source of the values of cells and other identifiers.
+     * @return The numeric value of the sub-expression.
+     * @throws TypeError If the sub-expression cannot be converted to a numeric value.
+     * @requires 0 &lt;= index &lt; arity()
+     */
+    protected final long evaluate(int index, ValueSource values) throws TypeError {
+        return arguments[index].evaluate(values);
     }
 
     /**
@@ -177,6 +267,41 @@ public abstract class Arithmetic extends Expression {
         return toString();
     }
 
+    /**
+     * If two instances of arithmetic are equal to each other.
+     * Equality is defined by being the same operation over equal sub-expressions,
+     * in the same order.
+     * @param obj another instance to compare against.
+     * @return true if the other object is an arithmetic expression of the same class
+     *         with equal arguments.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || obj.getClass() != getClass()) {
+            return false;
+        }
+        Arithmetic other = (Arithmetic) obj;
+        return hashCode() == other.hashCode() && operator.equals(other.operator)
+                && Arrays.equals(arguments, other.arguments);
+    }
+
+    /**
+     * A hashcode method that respects the {@link Arithmetic#equals(Object)} method.
+     * @return An appropriate hashcode value for this instance.
+     */
+    @Override
+    public int hashCode() {
+        int result = hash;
+        if (result == 0) {
+            result = 31 * operator.hashCode() + Arrays.hashCode(arguments);
+            hash = result;
+        }
+        return result;
+    }
+
     /**
      * The string representation of the expression.
      * For arithmetic, this is the sequence of sub-expressions joined
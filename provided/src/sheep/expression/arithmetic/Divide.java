@@ -1,6 +1,8 @@
 package sheep.expression.arithmetic;
 
 import sheep.expression.Expression;
+import sheep.expression.TypeError;
+import sheep.expression.ValueSource;
 
 /**
  * A division operation.
@@ -38,4 +40,30 @@ class Divide extends Arithmetic {
         }
         return result;
     }
+
+    /**
+     * The first argument divided by the rest, evaluated without collecting them.
+     *
+     * @param values The source of the values of cells and other identifiers.
+     * @return The result of the operation.
+     * @throws TypeError If any of the arguments cannot be converted to a numeric value.
+     */
+    @Override
+    public long evaluate(ValueSource values) throws TypeError {
+        long result = evaluate(0, values);
+        boolean byZero = false;
+        for (int i = 1; i < arity(); i++) {
+            long divisor = evaluate(i, values);
+            if (divisor == 0) {
+                // every argument is still evaluated, type errors take precedence
+                byZero = true;
+            } else if (!byZero) {
+                result /= divisor;
+            }
+        }
+        if (byZero) {
+            throw new ArithmeticException("/ by zero");
+        }
+        return result;
+    }
 }
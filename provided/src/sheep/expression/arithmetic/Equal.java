@@ -1,6 +1,8 @@
 package sheep.expression.arithmetic;
 
 import sheep.expression.Expression;
+import sheep.expression.TypeError;
+import sheep.expression.ValueSource;
 
 /**
  * An equal to operation.
@@ -42,4 +44,21 @@ class Equal extends Arithmetic {
         }
         return 1;
     }
+
+    /**
+     * Whether the arguments are all equal, evaluated without collecting them.
+     *
+     * @param values The source of the values of cells and other identifiers.
+     * @return The result of the operation.
+     * @throws TypeError If any of the arguments cannot be converted to a numeric value.
+     */
+    @Override
+    public long evaluate(ValueSource values) throws TypeError {
+        boolean equal = true;
+        long first = evaluate(0, values);
+        for (int i = 1; i < arity(); i++) {
+            equal &= first == evaluate(i, values);
+        }
+        return equal ? 1 : 0;
+    }
 }
@@ -1,6 +1,8 @@
 package sheep.expression.arithmetic;
 
 import sheep.expression.Expression;
+import sheep.expression.TypeError;
+import sheep.expression.ValueSource;
 
 /**
  * A less than operation.
@@ -42,4 +44,23 @@ class Less extends Arithmetic {
         }
         return 1;
     }
+
+    /**
+     * Whether the arguments are strictly increasing, evaluated without collecting them.
+     *
+     * @param values The source of the values of cells and other identifiers.
+     * @return The result of the operation.
+     * @throws TypeError If any of the arguments cannot be converted to a numeric value.
+     */
+    @Override
+    public long evaluate(ValueSource values) throws TypeError {
+        boolean increasing = true;
+        long previous = evaluate(0, values);
+        for (int i = 1; i < arity(); i++) {
+            long next = evaluate(i, values);
+            increasing &= previous < next;
+            previous = next;
+        }
+        return increasing ? 1 : 0;
+    }
 }
@@ -1,6 +1,8 @@
 package sheep.expression.arithmetic;
 
 import sheep.expression.Expression;
+import sheep.expression.TypeError;
+import sheep.expression.ValueSource;
 
 /**
  * A minus operation.
@@ -38,4 +40,20 @@ class Minus extends Arithmetic {
         }
         return result;
     }
+
+    /**
+     * The first argument minus the rest, evaluated without collecting them.
+     *
+     * @param values The source of the values of cells and other identifiers.
+     * @return The result of the operation.
+     * @throws TypeError If any of the arguments cannot be converted to a numeric value.
+     */
+    @Override
+    public long evaluate(ValueSource values) throws TypeError {
+        long result = evaluate(0, values);
+        for (int i = 1; i < arity(); i++) {
+            result -= evaluate(i, values);
+        }
+        return result;
+    }
 }
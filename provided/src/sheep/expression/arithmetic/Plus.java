@@ -1,6 +1,8 @@
 package sheep.expression.arithmetic;
 
 import sheep.expression.Expression;
+import sheep.expression.TypeError;
+import sheep.expression.ValueSource;
 
 /**
  * A plus operation.
@@ -38,4 +40,20 @@ class Plus extends Arithmetic {
         }
         return result;
     }
+
+    /**
+     * The sum of the arguments, evaluated without collecting them.
+     *
+     * @param values The source of the values of cells and other identifiers.
+     * @return The result of the operation.
+     * @throws TypeError If any of the arguments cannot be converted to a numeric value.
+     */
+    @Override
+    public long evaluate(ValueSource values) throws TypeError {
+        long result = 0;
+        for (int i = 0; i < arity(); i++) {
+            result += evaluate(i, values);
+        }
+        return result;
+    }
 }
@@ -1,6 +1,7 @@
 package sheep.expression.basic;
 
 import sheep.expression.Expression;
+import sheep.expression.ValueSource;
 
 import java.util.*;
 
@@ -9,6 +10,17 @@ import java.util.*;
  * @stage1
  */
 public class Constant extends Expression {
+    private static final int CACHE_LOW = -128;
+    private static final int CACHE_HIGH = 1023;
+    // shared instances of the numbers most often found in cells
+    private static final Constant[] CACHE = new Constant[CACHE_HIGH - CACHE_LOW + 1];
+
+    static {
+        for (int i = 0; i < CACHE.length; i++) {
+            CACHE[i] = new Constant(CACHE_LOW + i);
+        }
+    }
+
     private final long number;
 
     /**
@@ -19,6 +31,22 @@ public class Constant extends Expression {
         this.number = number;
     }
 
+    /**
+     * A constant representing the given number.
+     * <p>
+     * Small numbers are represented by a shared instance rather than a new constant,
+     * so cells that hold the same small number share one expression.
+     *
+     * @param number The number to represent as an expression.
+     * @return A constant representing the number.
+     */
+    public static Constant of(long number) {
+        if (number >= CACHE_LOW && number <= CACHE_HIGH) {
+            return CACHE[(int) number - CACHE_LOW];
+        }
+        return new Constant(number);
+    }
+
     /**
      * Get the numeric value stored within the constant expression.
      * @return Value stored within the expression.
@@ -90,7 +118,7 @@ public class Constant extends Expression {
      */
     @Override
     public Set<String> dependencies() {
-        return new HashSet<>();
+        return Set.of();
     }
 
     /**
@@ -106,6 +134,18 @@ public class Constant extends Expression {
         return this;
     }
 
+    /**
+     * Evaluate the expression to a numeric value.
+     * For constants, this is the long value stored, regardless of the values.
+     *
+     * @param values The source of the values of cells and other identifiers.
+     * @return The numeric value of the constant.
+     */
+    @Override
+    public long evaluate(ValueSource values) {
+        return number;
+    }
+
     /**
      * Evaluate the expression to a numeric value.
      * For constants, this is the long value stored.
@@ -0,0 +1,171 @@
+package sheep.expression.basic;
+
+import sheep.expression.Expression;
+import sheep.expression.TypeError;
+import sheep.expression.ValueSource;
+import sheep.sheets.CellLocation;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An expression written within parentheses, e.g. (A1 + 2) in (A1 + 2) * 3,
+ * or an operand written with a sign, e.g. -A1 in 2 * -A1.
+ * <p>
+ * A group behaves exactly as the expression within it,
+ * the parentheses or sign are only kept so that it is rendered as it was written.
+ * The expression within a signed operand is the operand with the sign applied,
+ * e.g. 0 - A1 for -A1, or the operand itself for +A1.
+ */
+public final class Group extends Expression {
+    private final Expression inner;
+    // empty for parentheses
+    private final String sign;
+    private final Expression operand;
+
+    /**
+     * Construct a new group around an expression.
+     *
+     * @param inner The expression within the parentheses.
+     * @requires inner != null
+     */
+    public Group(Expression inner) {
+        this("", inner, inner);
+    }
+
+    /**
+     * Construct a new group of an operand written with a sign.
+     *
+     * @param sign The sign written before the operand, i.e. - or +.
+     * @param operand The operand as it was written after the sign.
+     * @param inner An expression equivalent to the signed operand, e.g. 0 - A1 for -A1.
+     * @requires sign is "-" or "+" and operand != null and inner != null
+     */
+    public Group(String sign, Expression operand, Expression inner) {
+        this.inner = inner;
+        this.sign = sign;
+        this.operand = operand;
+    }
+
+    /**
+     * The expression within the parentheses.
+     * @return The grouped expression.
+     */
+    public Expression getInner() {
+        return inner;
+    }
+
+    /**
+     * The sign written before the operand of the group.
+     * @return The sign, or an empty string if the group is written within parentheses.
+     */
+    public String getSign() {
+        return sign;
+    }
+
+    /**
+     * The operand as it was written after the sign.
+     * @return The signed operand, or the grouped expression if the group is
+     *         written within parentheses.
+     */
+    public Expression getOperand() {
+        return operand;
+    }
+
+    /**
+     * The expression within any amount of parentheses or signs,
+     * that is, the expression itself unless it is a group.
+     * For example, the innermost expression of -(A1) is 0 - (A1).
+     *
+     * @param expression Any expression.
+     * @return The innermost expression that is not a group.
+     */
+    public static Expression ungrouped(Expression expression) {
+        while (expression instanceof Group group) {
+            expression = group.inner;
+        }
+        return expression;
+    }
+
+    @Override
+    public Set<String> dependencies() {
+        return inner.dependencies();
+    }
+
+    @Override
+    public CellLocation[] cellDependencies() {
+        return inner.cellDependencies();
+    }
+
+    @Override
+    public long value() throws TypeError {
+        return inner.value();
+    }
+
+    @Override
+    public Expression value(Map<String, Expression> state) throws TypeError {
+        return inner.value(state);
+    }
+
+    @Override
+    public long evaluate(ValueSource values) throws TypeError {
+        return inner.evaluate(values);
+    }
+
+    /**
+     * The string representation of the expression when rendered within a cell,
+     * that is, the rendered expression within parentheses or the signed operand.
+     * <pre>
+     * {@code
+     * Group group = new Group(Arithmetic.plus(new Expression[]{new Reference("A1"), new Constant(2)}));
+     * group.render(); // "(A1 + 2)"
+     * new Group("-", group, Arithmetic.minus(new Expression[]{new Constant(0), group})).render(); // "-(A1 + 2)"
+     * }</pre>
+     * @return the string representation of the expression.
+     */
+    @Override
+    public String render() {
+        if (sign.isEmpty()) {
+            return "(" + inner.render() + ")";
+        }
+        return sign + operand.render();
+    }
+
+    /**
+     * String representation of the group.
+     * The result is formatted as "GROUP([inner])", or "SIGNED([sign][operand])" for a signed operand.
+     * @return String representation of the expression.
+     */
+    @Override
+    public String toString() {
+        if (sign.isEmpty()) {
+            return "GROUP(" + inner + ")";
+        }
+        return "SIGNED(" + sign + operand + ")";
+    }
+
+    /**
+     * If two groups are equal to each other.
+     * Equality is defined by grouping equal expressions, written with the same sign and operand.
+     * @param obj another instance to compare against.
+     * @return true if the other object is a group of an equal expression.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof Group other) {
+            return sign.equals(other.sign) && operand.equals(other.operand)
+                    && inner.equals(other.inner);
+        }
+        return false;
+    }
+
+    /**
+     * A hashcode method that respects the {@link Group#equals(Object)} method.
+     * @return An appropriate hashcode value for this instance.
+     */
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Group.class.getSimpleName().hashCode() + sign.hashCode())
+                + inner.hashCode();
+    }
+}
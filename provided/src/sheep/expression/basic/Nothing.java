@@ -2,6 +2,7 @@ package sheep.expression.basic;
 
 import sheep.expression.Expression;
 import sheep.expression.TypeError;
+import sheep.expression.ValueSource;
 
 import java.util.*;
 
@@ -10,6 +11,11 @@ import java.util.*;
  * @stage1
  */
 public class Nothing extends Expression {
+    /**
+     * A shared empty expression, which may be used wherever a new one would be created.
+     */
+    public static final Nothing EMPTY = new Nothing();
+
     /**
      * Dependencies of the empty expression.
      * Empty expressions have no dependencies.
@@ -18,7 +24,7 @@ public class Nothing extends Expression {
      */
     @Override
     public Set<String> dependencies() {
-        return new HashSet<>();
+        return Set.of();
     }
 
     /**
@@ -34,6 +40,19 @@ public class Nothing extends Expression {
         return this;
     }
 
+    /**
+     * Evaluate the expression to a numeric value.
+     * For empty expressions, a type error will always be thrown.
+     *
+     * @param values The source of the values of cells and other identifiers.
+     * @return Nothing will be returned as a {@link TypeError} is always thrown.
+     * @throws TypeError Will always be thrown by {@link Nothing}.
+     */
+    @Override
+    public long evaluate(ValueSource values) throws TypeError {
+        throw new TypeError();
+    }
+
     /**
      * Evaluate the expression to a numeric value.
      * For empty expressions, a type error will always be thrown.
@@ -74,4 +93,24 @@ public class Nothing extends Expression {
     public String toString() {
         return "NOTHING";
     }
+
+    /**
+     * If two instances of the empty expression are equal to each other.
+     * Every empty expression is equal, as they store no information.
+     * @param obj another instance to compare against.
+     * @return true if the other object is an empty expression.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        return obj != null && obj.getClass() == getClass();
+    }
+
+    /**
+     * A hashcode method that respects the {@link Nothing#equals(Object)} method.
+     * @return An appropriate hashcode value for this instance.
+     */
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
 }
@@ -0,0 +1,166 @@
+package sheep.expression.basic;
+
+import sheep.expression.Expression;
+import sheep.expression.TypeError;
+import sheep.sheets.CellLocation;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A rectangular range of cells, e.g. A1:B10.
+ * <p>
+ * A range has no value of its own, it is used as an argument to
+ * expressions that combine the values of many cells, such as
+ * {@link sheep.expression.aggregate.Aggregate}.
+ */
+public class Range extends Expression {
+    private final CellLocation start;
+    private final CellLocation end;
+    // computed when first needed, as ranges are immutable
+    private volatile Set<String> dependencies;
+    private volatile CellLocation[] cells;
+
+    /**
+     * Construct a new range between two corners, inclusive of both corners.
+     * The corners may be given in any order, the range always starts at its top left cell.
+     *
+     * @param first A corner of the range.
+     * @param second The opposite corner of the range.
+     * @requires first != null &amp;&amp; second != null
+     */
+    public Range(CellLocation first, CellLocation second) {
+        this.start = new CellLocation(Math.min(first.getRow(), second.getRow()),
+                Math.min(first.getColumn(), second.getColumn()));
+        this.end = new CellLocation(Math.max(first.getRow(), second.getRow()),
+                Math.max(first.getColumn(), second.getColumn()));
+    }
+
+    /**
+     * The top left cell of the range.
+     * @return The first cell of the range.
+     */
+    public CellLocation getStart() {
+        return start;
+    }
+
+    /**
+     * The bottom right cell of the range.
+     * @return The last cell of the range.
+     */
+    public CellLocation getEnd() {
+        return end;
+    }
+
+    /**
+     * Dependencies of the range expression.
+     * The dependencies of a range are the identifiers of every cell within it.
+     * The set is computed once and cannot be modified.
+     *
+     * @return A set containing the identifier of every cell in the range.
+     */
+    @Override
+    public Set<String> dependencies() {
+        Set<String> result = dependencies;
+        if (result == null) {
+            Set<String> identifiers = new HashSet<>();
+            for (CellLocation cell : cellDependencies()) {
+                identifiers.add(cell.toString());
+            }
+            result = Collections.unmodifiableSet(identifiers);
+            dependencies = result;
+        }
+        return result;
+    }
+
+    /**
+     * The location of every cell within the range, column by column.
+     *
+     * @return The cells of the range.
+     */
+    @Override
+    public CellLocation[] cellDependencies() {
+        CellLocation[] result = cells;
+        if (result == null) {
+            int rows = end.getRow() - start.getRow() + 1;
+            result = new CellLocation[rows * (end.getColumn() - start.getColumn() + 1)];
+            int index = 0;
+            for (int column = start.getColumn(); column <= end.getColumn(); column++) {
+                for (int row = start.getRow(); row <= end.getRow(); row++) {
+                    result[index++] = CellLocation.of(row, column);
+                }
+            }
+            cells = result;
+        }
+        return result;
+    }
+
+    /**
+     * The result of evaluating this expression.
+     * A range cannot be evaluated by itself, so it returns itself.
+     *
+     * @param state A mapping of references to the expression they hold.
+     * @return Itself.
+     */
+    @Override
+    public Expression value(Map<String, Expression> state) throws TypeError {
+        return this;
+    }
+
+    /**
+     * Evaluate the expression to a numeric value.
+     * For ranges, a type error will always be thrown.
+     * @return Nothing will be returned as a {@link TypeError} is always thrown.
+     * @throws TypeError Will always be thrown by {@link Range}.
+     */
+    @Override
+    public long value() throws TypeError {
+        throw new TypeError();
+    }
+
+    /**
+     * If two instances of range are equal to each other.
+     * Equality is defined by covering the same cells.
+     * @param obj another instance to compare against.
+     * @return true if the other object is a range with the same corners.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof Range range) {
+            return start.equals(range.start) && end.equals(range.end);
+        }
+        return false;
+    }
+
+    /**
+     * A hashcode method that respects the {@link Range#equals(Object)} method.
+     * @return An appropriate hashcode value for this instance.
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(start, end);
+    }
+
+    /**
+     * String representation of the range.
+     * The result is formatted as "RANGE([start]:[end])", e.g. "RANGE(A1:B10)".
+     * @return String representation of the expression.
+     */
+    @Override
+    public String toString() {
+        return "RANGE(" + render() + ")";
+    }
+
+    /**
+     * The string representation of an expression when rendered within a cell.
+     * For ranges, this is the two corners separated by a colon, e.g. "A1:B10".
+     * @return the string representation of the expression.
+     */
+    @Override
+    public String render() {
+        return start + ":" + end;
+    }
+}
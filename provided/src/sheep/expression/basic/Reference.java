@@ -2,6 +2,7 @@ package sheep.expression.basic;
 
 import sheep.expression.Expression;
 import sheep.expression.TypeError;
+import sheep.expression.ValueSource;
 import sheep.sheets.CellLocation;
 
 import java.util.*;
@@ -13,6 +14,11 @@ import java.util.*;
  */
 public class Reference extends Expression {
     private final String identifier;
+    private final Set<String> dependencies;
+    // the referenced cell, if the identifier names one exactly as the cell is named
+    private final CellLocation location;
+    // resolved when first needed, as references are immutable
+    private volatile CellLocation[] cells;
 
     /**
      * Construct a new reference to an identifier.
@@ -22,6 +28,10 @@ public class Reference extends Expression {
      */
     public Reference(String identifier) {
         this.identifier = identifier;
+        this.dependencies = Set.of(identifier);
+        this.location = CellLocation.maybeReference(identifier)
+                .filter(cell -> cell.toString().equals(identifier))
+                .orElse(null);
     }
 
     /**
@@ -84,14 +94,28 @@ public class Reference extends Expression {
     /**
      * Dependencies of the reference expression.
      * The dependencies of a reference are its identifier.
+     * The set cannot be modified.
      *
      * @return A set containing the references' identifier.
      */
     @Override
     public Set<String> dependencies() {
-        List<String> deps = new ArrayList<>();
-        deps.add(identifier);
-        return new HashSet<>(deps);
+        return dependencies;
+    }
+
+    /**
+     * The cell referred to, if the identifier is a reference to a cell.
+     *
+     * @return An array of the referenced cell, or an empty array for built-ins.
+     */
+    @Override
+    public CellLocation[] cellDependencies() {
+        CellLocation[] result = cells;
+        if (result == null) {
+            result = CellLocation.resolve(dependencies);
+            cells = result;
+        }
+        return result;
     }
 
     /**
@@ -113,6 +137,27 @@ public class Reference extends Expression {
         return this;
     }
 
+    /**
+     * Evaluate the expression to the numeric value of what it refers to.
+     * A reference to a cell reads the cell from the source by its row and column,
+     * which are resolved when the reference is constructed.
+     *
+     * @param values The source of the values of cells and other identifiers.
+     * @return The numeric value of the referenced cell or identifier.
+     * @throws TypeError If the source has no numeric value for the reference.
+     */
+    @Override
+    public long evaluate(ValueSource values) throws TypeError {
+        if (location != null) {
+            return values.cell(location.getRow(), location.getColumn());
+        }
+        Expression value = values.lookup(identifier);
+        if (value == null) {
+            throw new TypeError();
+        }
+        return value.evaluate(values);
+    }
+
     /**
      * Evaluate the expression to a numeric value.
      * For references, a type error will always be thrown.
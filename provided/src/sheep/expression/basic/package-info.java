@@ -1,5 +1,6 @@
 /**
  * Basic types of expressions:
- * empty expressions, constant numbers, and references to other cells.
+ * empty expressions, constant numbers, references to other cells,
+ * ranges of cells and parenthesised groups.
  */
 package sheep.expression.basic;
\ No newline at end of file
@@ -0,0 +1,50 @@
+package sheep.features.calculation;
+
+import sheep.features.Feature;
+import sheep.sheets.Sheet;
+import sheep.ui.UI;
+
+/**
+ * Allows users to recalculate the sheet and to change how it is recalculated.
+ */
+public class Calculation implements Feature {
+
+    /**
+     * The sheet that is recalculated.
+     */
+    private final Sheet sheet;
+
+    /**
+     * Constructor.
+     * @param sheet the sheet that is recalculated.
+     * @requires sheet != null.
+     */
+    public Calculation(Sheet sheet) {
+        this.sheet = sheet;
+    }
+
+    /**
+     * Registers recalculating and changing the calculation mode to the ui.
+     * @param ui the user interface that the user will interact with.
+     */
+    public void register(UI ui) {
+        ui.addFeature("recalculate", "Recalculate", getRecalculate());
+        ui.addFeature("calculation-mode", "Calculation mode", getChangeMode());
+    }
+
+    /**
+     * Returns an instance of Recalculate.
+     * @return an instance of Recalculate.
+     */
+    public Recalculate getRecalculate() {
+        return new Recalculate(sheet);
+    }
+
+    /**
+     * Returns an instance of ChangeMode.
+     * @return an instance of ChangeMode.
+     */
+    public ChangeMode getChangeMode() {
+        return new ChangeMode(sheet);
+    }
+}
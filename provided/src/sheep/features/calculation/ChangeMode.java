@@ -0,0 +1,59 @@
+package sheep.features.calculation;
+
+import sheep.expression.TypeError;
+import sheep.sheets.CalculationMode;
+import sheep.sheets.Sheet;
+import sheep.ui.Perform;
+import sheep.ui.Prompt;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Performs changing the calculation mode of the sheet.
+ */
+public class ChangeMode implements Perform {
+
+    /**
+     * The sheet whose calculation mode is changed.
+     */
+    private final Sheet sheet;
+
+    /**
+     * Constructor.
+     * @param sheet the sheet whose calculation mode is changed.
+     */
+    public ChangeMode(Sheet sheet) {
+        this.sheet = sheet;
+    }
+
+    /**
+     * Changes the calculation mode of the sheet.
+     * It will prompt the user for the name of the mode.
+     * @param row The currently selected row of the user, or -2 if none
+     *           selected.
+     * @param column The currently selected column of the user, or -2 if none
+     *              selected.
+     * @param prompt asks for the name of the calculation mode.
+     */
+    @Override
+    public void perform(int row, int column, Prompt prompt) {
+        Optional<String> name = prompt.ask("Calculation mode (automatic, lazy or manual)");
+        if (name.isEmpty()) {
+            return;
+        }
+        CalculationMode mode;
+        try {
+            mode = CalculationMode.valueOf(name.get().trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            prompt.message("Unknown calculation mode: " + name.get());
+            return;
+        }
+        try {
+            sheet.setCalculationMode(mode);
+        } catch (TypeError e) {
+            prompt.message("Type error: " + e);
+        }
+    }
+
+}
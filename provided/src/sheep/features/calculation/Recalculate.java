@@ -0,0 +1,43 @@
+package sheep.features.calculation;
+
+import sheep.expression.TypeError;
+import sheep.sheets.Sheet;
+import sheep.ui.Perform;
+import sheep.ui.Prompt;
+
+/**
+ * Performs recalculation of every out of date cell.
+ */
+public class Recalculate implements Perform {
+
+    /**
+     * The sheet that is recalculated.
+     */
+    private final Sheet sheet;
+
+    /**
+     * Constructor.
+     * @param sheet the sheet that is recalculated.
+     */
+    public Recalculate(Sheet sheet) {
+        this.sheet = sheet;
+    }
+
+    /**
+     * Recalculates every out of date cell of the sheet.
+     * @param row The currently selected row of the user, or -2 if none
+     *           selected.
+     * @param column The currently selected column of the user, or -2 if none
+     *              selected.
+     * @param prompt used to tell the user if the recalculation failed.
+     */
+    @Override
+    public void perform(int row, int column, Prompt prompt) {
+        try {
+            sheet.recalculate();
+        } catch (TypeError e) {
+            prompt.message("Type error: " + e);
+        }
+    }
+
+}
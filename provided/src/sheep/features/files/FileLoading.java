@@ -1,8 +1,9 @@
 package sheep.features.files;
 
+import sheep.expression.Expression;
 import sheep.expression.TypeError;
-import sheep.expression.basic.Constant;
 import sheep.features.Feature;
+import sheep.parsing.ParseResult;
 import sheep.sheets.CellLocation;
 import sheep.sheets.Sheet;
 import sheep.ui.UI;
@@ -10,12 +11,26 @@ import sheep.ui.UI;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Loads the file to the sheet.
  */
 public class FileLoading implements Feature {
 
+    /**
+     * The amount of lines at the start of a file holding the dimensions of the sheet.
+     */
+    private static final int DIMENSION_LINES = 2;
+
+    /**
+     * The amount of cells parsed at once.
+     */
+    private static final int CHUNK_SIZE = 4096;
+
     /**
      * The sheet to load the file.
      */
@@ -53,16 +68,30 @@ public class FileLoading implements Feature {
      * @requires filename != null.
      */
     public boolean load(String filename) {
+        return load(filename, LoadListener.IGNORE);
+    }
+
+    /**
+     * Tries to update the sheet by the given file, reporting the progress
+     * and every line that could not be loaded to the listener.
+     * @param filename the file that contains the contents.
+     * @param listener listener informed of the progress of loading.
+     * @return true if load operation was successful, otherwise false.
+     * @requires filename != null && listener != null.
+     */
+    public boolean load(String filename, LoadListener listener) {
         sheet.clear();
         try (BufferedReader reader =
                      new BufferedReader(new FileReader(filename))) {
             if (!updateDimension(reader)) {
+                listener.error(1, "Expected the amount of rows and columns");
                 return false;
             }
-            if (!updateSheet(reader)) {
+            if (!updateSheet(reader, listener, DIMENSION_LINES + 1)) {
                 return false;
             }
         } catch (IOException e) {
+            listener.error(0, "Unable to read " + filename);
             return false;
         }
 
@@ -85,7 +114,7 @@ public class FileLoading implements Feature {
         try {
             row = Integer.parseInt(reader.readLine());
             column = Integer.parseInt(reader.readLine());
-        } catch (NullPointerException | IOException e) {
+        } catch (NullPointerException | NumberFormatException | IOException e) {
             return false;
         }
         sheet.updateDimensions(row, column);
@@ -98,34 +127,124 @@ public class FileLoading implements Feature {
      * @return true if the update was successful, otherwise false.
      * @requires line.split("\\|").length == 3 && line[0]split("\\|") is
      *          integer && line[1].split("\\|") is integer.
-     * @ensures Sheet is updated with values which was in the file.
+     * @ensures Sheet is updated with values which was in the file, or not
+     *          updated at all if the file could not be read.
      */
     public boolean updateSheet(BufferedReader reader) {
-        int row;
-        int column;
-        int number;
+        return updateSheet(reader, LoadListener.IGNORE, 1);
+    }
+
+    /**
+     * Updates the sheet with the cells read from the file, one chunk of lines at a time.
+     * <p>
+     * Each chunk is parsed at once, possibly in parallel, into formulas that are not evaluated.
+     * Once every line is read, the formulas are inserted with a single
+     * {@link Sheet#updateAll(Map)}, so every cell is evaluated once in dependency order.
+     * Every line that cannot be loaded is reported, and then nothing is inserted.
+     *
+     * @param firstLine the line number of the first line read from the reader.
+     */
+    private boolean updateSheet(BufferedReader reader, LoadListener listener, int firstLine) {
+        Map<CellLocation, Expression> updates = new LinkedHashMap<>();
+        Chunk chunk = new Chunk();
+        boolean failed = false;
+        int lines = 0;
         try {
             String cells = reader.readLine();
             while (cells != null) {
-                String[] content = cells.split("\\|");
-                if (content.length != 3) {
-                    return false;
+                int line = firstLine + lines;
+                lines++;
+                String error = chunk.add(cells, line);
+                if (error != null) {
+                    listener.error(line, error);
+                    failed = true;
                 }
-                try {
-                    row = Integer.parseInt(content[0]);
-                    column = Integer.parseInt(content[1]);
-                    number = Integer.parseInt(content[2]);
-                    CellLocation cell = new CellLocation(row, column);
-                    Constant value = new Constant(number);
-                    sheet.update(cell, value);
-                } catch (NumberFormatException | TypeError e) {
-                    return false;
+                if (chunk.isFull()) {
+                    failed |= !chunk.parse(updates, listener);
+                    listener.progress(lines);
                 }
                 cells = reader.readLine();
             }
         } catch (IOException e) {
+            listener.error(firstLine + lines, "Unable to read line");
+            return false;
+        }
+        failed |= !chunk.parse(updates, listener);
+        listener.progress(lines);
+        if (failed) {
+            return false;
+        }
+        try {
+            sheet.updateAll(updates);
+        } catch (TypeError e) {
+            listener.error(0, "Type error: " + e);
             return false;
         }
         return true;
     }
+
+    /**
+     * The cells of consecutive lines of a file, which are parsed together.
+     */
+    private class Chunk {
+        private final List<String> inputs = new ArrayList<>(CHUNK_SIZE);
+        private final List<CellLocation> locations = new ArrayList<>(CHUNK_SIZE);
+        private final int[] lines = new int[CHUNK_SIZE];
+
+        /**
+         * Add the cell of a line of the file in the form row|column|formula.
+         * @return a description of why the line is not a cell, or null if it was added.
+         */
+        private String add(String cells, int line) {
+            int first = cells.indexOf('|');
+            int second = first < 0 ? -1 : cells.indexOf('|', first + 1);
+            if (second < 0 || second == cells.length() - 1
+                    || cells.indexOf('|', second + 1) >= 0) {
+                return "Expected row|column|value";
+            }
+            CellLocation location;
+            try {
+                location = CellLocation.of(Integer.parseInt(cells.substring(0, first)),
+                        Integer.parseInt(cells.substring(first + 1, second)));
+            } catch (NumberFormatException e) {
+                return "Expected a row and column";
+            }
+            if (!sheet.contains(location)) {
+                return "Cell " + location.getRow() + "|" + location.getColumn()
+                        + " is outside of the sheet";
+            }
+            lines[inputs.size()] = line;
+            inputs.add(cells.substring(second + 1));
+            locations.add(location);
+            return null;
+        }
+
+        private boolean isFull() {
+            return inputs.size() == CHUNK_SIZE;
+        }
+
+        /**
+         * Parse every cell of the chunk into the updates and empty the chunk.
+         * @return true if every cell was parsed.
+         */
+        private boolean parse(Map<CellLocation, Expression> updates, LoadListener listener) {
+            boolean parsed = true;
+            List<ParseResult> results = sheet.parseAll(inputs);
+            for (int i = 0; i < results.size(); i++) {
+                ParseResult result = results.get(i);
+                if (result.isSuccess()) {
+                    updates.put(locations.get(i), result.getExpression());
+                } else {
+                    String reason = result.getPosition() < 0 ? result.getMessage()
+                            : result.getMessage() + " at position " + result.getPosition();
+                    listener.error(lines[i], "Unable to parse: " + inputs.get(i)
+                            + " (" + reason + ")");
+                    parsed = false;
+                }
+            }
+            inputs.clear();
+            locations.clear();
+            return parsed;
+        }
+    }
 }
@@ -1,5 +1,6 @@
 package sheep.features.files;
 
+import sheep.core.SheetView;
 import sheep.features.Feature;
 import sheep.sheets.Sheet;
 import sheep.ui.UI;
@@ -67,14 +68,16 @@ public class FileSaving implements Feature {
     public String toString() {
         StringJoiner res = new StringJoiner(System.lineSeparator());
 
-        int rowSize = sheet.getRows();
-        int columnSize = sheet.getColumns();
+        // read from a snapshot so that a running game cannot tear the save
+        SheetView view = sheet.snapshot();
+        int rowSize = view.getRows();
+        int columnSize = view.getColumns();
         res.add(Integer.toString(rowSize));
         res.add(Integer.toString(columnSize));
 
         for (int row = 0; row < rowSize; row++) {
             for (int column = 0; column < columnSize; column++) {
-                String value = sheet.valueAt(row, column).getContent();
+                String value = view.valueAt(row, column).getContent();
                 if (!value.isEmpty()) {
                     String cell = row + "|" + column + "|" + value;
                     res.add(cell);
@@ -36,8 +36,23 @@ public class LoadFile implements Perform {
     public void perform(int row, int column, Prompt prompt) {
         Optional<String> filename = prompt.ask("File Name");
         if (filename.isPresent()) {
-            if (!fileLoading.load(filename.get())) {
-                prompt.message("Unable to load");
+            // only the first error fits within the message
+            String[] error = new String[1];
+            LoadListener listener = new LoadListener() {
+                @Override
+                public void progress(int lines) {
+                }
+
+                @Override
+                public void error(int line, String message) {
+                    if (error[0] == null) {
+                        error[0] = line > 0 ? "line " + line + ": " + message : message;
+                    }
+                }
+            };
+            if (!fileLoading.load(filename.get(), listener)) {
+                prompt.message(error[0] == null
+                        ? "Unable to load" : "Unable to load, " + error[0]);
             }
         } else {
             prompt.message("Unable to load");
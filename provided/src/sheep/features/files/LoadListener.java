@@ -0,0 +1,36 @@
+package sheep.features.files;
+
+/**
+ * A callback informed of the progress of loading a file with {@link FileLoading}.
+ */
+public interface LoadListener {
+    /**
+     * A listener that ignores the progress of loading.
+     */
+    LoadListener IGNORE = new LoadListener() {
+        @Override
+        public void progress(int lines) {
+        }
+
+        @Override
+        public void error(int line, String message) {
+        }
+    };
+
+    /**
+     * Called periodically while the cells of the file are read and parsed.
+     *
+     * @param lines The amount of lines of the file read so far.
+     */
+    void progress(int lines);
+
+    /**
+     * Called for each line of the file that could not be loaded.
+     * Lines are parsed in chunks, so errors are not necessarily reported in the order of the lines.
+     *
+     * @param line The number of the line within the file, starting from 1,
+     *             or 0 if the error does not belong to a single line.
+     * @param message A description of why the line could not be loaded.
+     */
+    void error(int line, String message);
+}
@@ -0,0 +1,50 @@
+package sheep.features.history;
+
+import sheep.features.Feature;
+import sheep.sheets.Sheet;
+import sheep.ui.UI;
+
+/**
+ * Allows users to undo and redo their edits of the sheet.
+ */
+public class History implements Feature {
+
+    /**
+     * The sheet whose edits are undone and redone.
+     */
+    private final Sheet sheet;
+
+    /**
+     * Constructor.
+     * @param sheet the sheet whose edits are undone and redone.
+     * @requires sheet != null.
+     */
+    public History(Sheet sheet) {
+        this.sheet = sheet;
+    }
+
+    /**
+     * Registers undo and redo to the ui.
+     * @param ui the user interface that the user will interact with.
+     */
+    public void register(UI ui) {
+        ui.addFeature("undo", "Undo", getUndo());
+        ui.addFeature("redo", "Redo", getRedo());
+    }
+
+    /**
+     * Returns an instance of Undo.
+     * @return an instance of Undo.
+     */
+    public Undo getUndo() {
+        return new Undo(sheet);
+    }
+
+    /**
+     * Returns an instance of Redo.
+     * @return an instance of Redo.
+     */
+    public Redo getRedo() {
+        return new Redo(sheet);
+    }
+}
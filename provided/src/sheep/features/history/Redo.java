@@ -0,0 +1,45 @@
+package sheep.features.history;
+
+import sheep.expression.TypeError;
+import sheep.sheets.Sheet;
+import sheep.ui.Perform;
+import sheep.ui.Prompt;
+
+/**
+ * Performs redo operation.
+ */
+public class Redo implements Perform {
+
+    /**
+     * The sheet whose most recently undone edit is redone.
+     */
+    private final Sheet sheet;
+
+    /**
+     * Constructor.
+     * @param sheet the sheet whose most recently undone edit is redone.
+     */
+    public Redo(Sheet sheet) {
+        this.sheet = sheet;
+    }
+
+    /**
+     * Redoes the most recently undone edit of the sheet.
+     * @param row The currently selected row of the user, or -2 if none
+     *           selected.
+     * @param column The currently selected column of the user, or -2 if none
+     *              selected.
+     * @param prompt used to tell the user if nothing could be redone.
+     */
+    @Override
+    public void perform(int row, int column, Prompt prompt) {
+        try {
+            if (!sheet.redo()) {
+                prompt.message("Nothing to redo");
+            }
+        } catch (TypeError e) {
+            prompt.message("Type error: " + e);
+        }
+    }
+
+}
@@ -0,0 +1,45 @@
+package sheep.features.history;
+
+import sheep.expression.TypeError;
+import sheep.sheets.Sheet;
+import sheep.ui.Perform;
+import sheep.ui.Prompt;
+
+/**
+ * Performs undo operation.
+ */
+public class Undo implements Perform {
+
+    /**
+     * The sheet whose most recent edit is undone.
+     */
+    private final Sheet sheet;
+
+    /**
+     * Constructor.
+     * @param sheet the sheet whose most recent edit is undone.
+     */
+    public Undo(Sheet sheet) {
+        this.sheet = sheet;
+    }
+
+    /**
+     * Undoes the most recent edit of the sheet.
+     * @param row The currently selected row of the user, or -2 if none
+     *           selected.
+     * @param column The currently selected column of the user, or -2 if none
+     *              selected.
+     * @param prompt used to tell the user if nothing could be undone.
+     */
+    @Override
+    public void perform(int row, int column, Prompt prompt) {
+        try {
+            if (!sheet.undo()) {
+                prompt.message("Nothing to undo");
+            }
+        } catch (TypeError e) {
+            prompt.message("Type error: " + e);
+        }
+    }
+
+}
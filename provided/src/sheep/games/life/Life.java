@@ -1,5 +1,6 @@
 package sheep.games.life;
 
+import sheep.expression.Expression;
 import sheep.expression.TypeError;
 import sheep.expression.basic.Constant;
 import sheep.expression.basic.Nothing;
@@ -15,7 +16,9 @@ import sheep.ui.Tick;
 import sheep.ui.UI;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -89,7 +92,7 @@ public class Life implements Tick, Feature, Game {
             for (int column = 0; column < sheet.getColumns(); column++) {
                 String isLive = sheet.valueAt(row, column).getContent();
                 if (Objects.equals(isLive, "1")) {
-                    contents.add(new CellLocation(row, column));
+                    contents.add(CellLocation.of(row, column));
                 }
             }
         }
@@ -124,12 +127,18 @@ public class Life implements Tick, Feature, Game {
      * Clears the sheet.
      */
     public void clear() {
+        Map<CellLocation, Expression> updates = new LinkedHashMap<>();
+        clear(updates);
+        apply(updates);
+    }
+
+    /**
+     * Adds the updates required to clear the sheet.
+     * @param updates the updates to add to.
+     */
+    private void clear(Map<CellLocation, Expression> updates) {
         for (CellLocation cell : contents) {
-            try {
-                sheet.update(cell, new Nothing());
-            } catch (TypeError e) {
-                throw new RuntimeException(e);
-            }
+            updates.put(cell, Nothing.EMPTY);
         }
     }
 
@@ -138,12 +147,32 @@ public class Life implements Tick, Feature, Game {
      * @param items The updated content.
      */
     public void render(List<CellLocation> items) {
+        Map<CellLocation, Expression> updates = new LinkedHashMap<>();
+        render(items, updates);
+        apply(updates);
+    }
+
+    /**
+     * Adds the updates required to recreate the sheet with the content.
+     * @param items The updated content.
+     * @param updates the updates to add to.
+     */
+    private void render(List<CellLocation> items,
+                        Map<CellLocation, Expression> updates) {
         for (CellLocation cell : items) {
-            try {
-                sheet.update(cell, new Constant(1));
-            } catch (TypeError e) {
-                throw new RuntimeException(e);
-            }
+            updates.put(cell, Constant.of(1));
+        }
+    }
+
+    /**
+     * Applies the updates to the sheet as a single batch.
+     * @param updates the updates to apply.
+     */
+    private void apply(Map<CellLocation, Expression> updates) {
+        try {
+            sheet.updateAll(updates);
+        } catch (TypeError e) {
+            throw new RuntimeException(e);
         }
     }
 
@@ -208,14 +237,16 @@ public class Life implements Tick, Feature, Game {
                     nextGen = isLiveOther(row, column);
                 }
                 if (nextGen) {
-                    newContent.add(new CellLocation(row, column));
+                    newContent.add(CellLocation.of(row, column));
                 }
             }
         }
 
-        clear();
+        Map<CellLocation, Expression> updates = new LinkedHashMap<>();
+        clear(updates);
         contents = newContent;
-        render(contents);
+        render(contents, updates);
+        apply(updates);
     }
 
     /**
@@ -53,7 +53,7 @@ public class RandomFreeCell implements RandomCell {
     public CellLocation pick() {
         CellLocation location;
         do {
-            location = new CellLocation(
+            location = CellLocation.of(
                     random.nextInt(sheet.getRows()),
                     random.nextInt(sheet.getColumns()));
         } while (!sheet.valueAt(location.getRow(), location.getColumn()).getContent().equals(""));
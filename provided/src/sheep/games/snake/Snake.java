@@ -1,5 +1,6 @@
 package sheep.games.snake;
 
+import sheep.expression.Expression;
 import sheep.expression.TypeError;
 import sheep.expression.basic.Constant;
 import sheep.expression.basic.Nothing;
@@ -17,7 +18,9 @@ import sheep.ui.Tick;
 import sheep.ui.UI;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Snake game.
@@ -99,7 +102,7 @@ public class Snake implements Tick, Feature, Game, MoveCell {
         getCurrentSheet();
         if (snake.isEmpty()) {
             try {
-                sheet.update(new CellLocation(row, column), new Constant(1));
+                sheet.update(CellLocation.of(row, column), Constant.of(1));
             } catch (TypeError e) {
                 throw new RuntimeException(e);
             }
@@ -187,7 +190,7 @@ public class Snake implements Tick, Feature, Game, MoveCell {
         snakeHead = snake.getLast();
         int row = snakeHead.getRow();
         int column = snakeHead.getColumn();
-        CellLocation newHead = new CellLocation(row + getRowShift(),
+        CellLocation newHead = CellLocation.of(row + getRowShift(),
                 column + getColumnShift());
 
         snake.add(newHead);
@@ -246,7 +249,7 @@ public class Snake implements Tick, Feature, Game, MoveCell {
         int row = snakeHead.getRow() + getRowShift();
         int column = snakeHead.getColumn() + getColumnShift();
 
-        CellLocation newHead = new CellLocation(row, column);
+        CellLocation newHead = CellLocation.of(row, column);
         snake.add(newHead);
 
         if (!inBounds(snake)) {
@@ -260,7 +263,7 @@ public class Snake implements Tick, Feature, Game, MoveCell {
             } else if (column == sheet.getColumns()) {
                 column = 0;
             }
-            newHead = new CellLocation(row, column);
+            newHead = CellLocation.of(row, column);
             snake.add(newHead);
         }
 
@@ -289,13 +292,11 @@ public class Snake implements Tick, Feature, Game, MoveCell {
      * Clears the sheet.
      */
     public void clear(List<CellLocation> items) {
+        Map<CellLocation, Expression> updates = new LinkedHashMap<>();
         for (CellLocation cell : items) {
-            try {
-                sheet.update(cell, new Nothing());
-            } catch (TypeError e) {
-                throw new RuntimeException(e);
-            }
+            updates.put(cell, Nothing.EMPTY);
         }
+        apply(updates);
     }
 
     /**
@@ -303,12 +304,22 @@ public class Snake implements Tick, Feature, Game, MoveCell {
      * @param items The updated content.
      */
     public void render(List<CellLocation> items, int object) {
+        Map<CellLocation, Expression> updates = new LinkedHashMap<>();
         for (CellLocation cell : items) {
-            try {
-                sheet.update(cell, new Constant(object));
-            } catch (TypeError e) {
-                throw new RuntimeException(e);
-            }
+            updates.put(cell, Constant.of(object));
+        }
+        apply(updates);
+    }
+
+    /**
+     * Applies the updates to the sheet as a single batch.
+     * @param updates the updates to apply.
+     */
+    private void apply(Map<CellLocation, Expression> updates) {
+        try {
+            sheet.updateAll(updates);
+        } catch (TypeError e) {
+            throw new RuntimeException(e);
         }
     }
 
@@ -337,12 +348,12 @@ public class Snake implements Tick, Feature, Game, MoveCell {
         for (int row = 0; row < sheet.getRows(); row ++) {
             for (int column = 0; column < sheet.getColumns(); column++) {
                 String content = sheet.valueAt(row, column).getContent();
-                CellLocation location = new CellLocation(row, column);
+                CellLocation location = CellLocation.of(row, column);
                 if (!snake.contains(location) && !food.contains(location)) {
                     if (content.equals("1")) {
-                        snake.add(new CellLocation(row, column));
+                        snake.add(CellLocation.of(row, column));
                     } else if (content.equals("2")) {
-                        food.add(new CellLocation(row, column));
+                        food.add(CellLocation.of(row, column));
                     }
                 }
             }
@@ -1,5 +1,6 @@
 package sheep.games.tetros;
 
+import sheep.expression.Expression;
 import sheep.expression.TypeError;
 import sheep.expression.basic.Constant;
 import sheep.expression.basic.Nothing;
@@ -157,7 +158,7 @@ public class Tetros implements Tick, Feature, Game, MoveCell {
     public boolean dropTile() {
         List<CellLocation> newContents = new ArrayList<>();
         for (CellLocation tile : contents) {
-            newContents.add(new CellLocation(tile.getRow() + 1,
+            newContents.add(CellLocation.of(tile.getRow() + 1,
                     tile.getColumn()));
         }
         clear();
@@ -195,7 +196,7 @@ public class Tetros implements Tick, Feature, Game, MoveCell {
         }
         List<CellLocation> newContents = new ArrayList<>();
         for (CellLocation tile : contents) {
-            newContents.add(new CellLocation(tile.getRow(),
+            newContents.add(CellLocation.of(tile.getRow(),
                     tile.getColumn() + shift));
         }
         if (!inBounds(newContents)) {
@@ -210,13 +211,11 @@ public class Tetros implements Tick, Feature, Game, MoveCell {
      * Clears the sheet.
      */
     public void clear() {
+        Map<CellLocation, Expression> updates = new LinkedHashMap<>();
         for (CellLocation cell : contents) {
-            try {
-                sheet.update(cell, new Nothing());
-            } catch (TypeError e) {
-                throw new RuntimeException(e);
-            }
+            updates.put(cell, Nothing.EMPTY);
         }
+        apply(updates);
     }
 
     /**
@@ -224,12 +223,22 @@ public class Tetros implements Tick, Feature, Game, MoveCell {
      * @param items The updated content.
      */
     public void render(List<CellLocation> items) {
+        Map<CellLocation, Expression> updates = new LinkedHashMap<>();
         for (CellLocation cell : items) {
-            try {
-                sheet.update(cell, new Constant(fallingType));
-            } catch (TypeError e) {
-                throw new RuntimeException(e);
-            }
+            updates.put(cell, Constant.of(fallingType));
+        }
+        apply(updates);
+    }
+
+    /**
+     * Applies the updates to the sheet as a single batch.
+     * @param updates the updates to apply.
+     */
+    private void apply(Map<CellLocation, Expression> updates) {
+        try {
+            sheet.updateAll(updates);
+        } catch (TypeError e) {
+            throw new RuntimeException(e);
         }
     }
 
@@ -258,52 +267,52 @@ public class Tetros implements Tick, Feature, Game, MoveCell {
         int value = randomTile.pick();
         switch (value) {
             case 1 -> {
-                contents.add(new CellLocation(0, 0));
-                contents.add(new CellLocation(1, 0));
-                contents.add(new CellLocation(2, 0));
-                contents.add(new CellLocation(2, 1));
+                contents.add(CellLocation.of(0, 0));
+                contents.add(CellLocation.of(1, 0));
+                contents.add(CellLocation.of(2, 0));
+                contents.add(CellLocation.of(2, 1));
                 fallingType = 7;
             }
             case 2 -> {
-                contents.add(new CellLocation(0, 1));
-                contents.add(new CellLocation(1, 1));
-                contents.add(new CellLocation(2, 1));
-                contents.add(new CellLocation(2, 0));
+                contents.add(CellLocation.of(0, 1));
+                contents.add(CellLocation.of(1, 1));
+                contents.add(CellLocation.of(2, 1));
+                contents.add(CellLocation.of(2, 0));
                 fallingType = 5;
             }
             case 3 -> {
-                contents.add(new CellLocation(0, 0));
-                contents.add(new CellLocation(0, 1));
-                contents.add(new CellLocation(0, 2));
-                contents.add(new CellLocation(1, 1));
+                contents.add(CellLocation.of(0, 0));
+                contents.add(CellLocation.of(0, 1));
+                contents.add(CellLocation.of(0, 2));
+                contents.add(CellLocation.of(1, 1));
                 fallingType = 8;
             }
             case 4 -> {
-                contents.add(new CellLocation(0, 0));
-                contents.add(new CellLocation(0, 1));
-                contents.add(new CellLocation(1, 0));
-                contents.add(new CellLocation(1, 1));
+                contents.add(CellLocation.of(0, 0));
+                contents.add(CellLocation.of(0, 1));
+                contents.add(CellLocation.of(1, 0));
+                contents.add(CellLocation.of(1, 1));
                 fallingType = 3;
             }
             case 5 -> {
-                contents.add(new CellLocation(0, 0));
-                contents.add(new CellLocation(1, 0));
-                contents.add(new CellLocation(2, 0));
-                contents.add(new CellLocation(3, 0));
+                contents.add(CellLocation.of(0, 0));
+                contents.add(CellLocation.of(1, 0));
+                contents.add(CellLocation.of(2, 0));
+                contents.add(CellLocation.of(3, 0));
                 fallingType = 6;
             }
             case 6 -> {
-                contents.add(new CellLocation(0, 1));
-                contents.add(new CellLocation(0, 2));
-                contents.add(new CellLocation(1, 1));
-                contents.add(new CellLocation(0, 1));
+                contents.add(CellLocation.of(0, 1));
+                contents.add(CellLocation.of(0, 2));
+                contents.add(CellLocation.of(1, 1));
+                contents.add(CellLocation.of(0, 1));
                 fallingType = 2;
             }
             case 0 -> {
-                contents.add(new CellLocation(0, 0));
-                contents.add(new CellLocation(0, 1));
-                contents.add(new CellLocation(1, 1));
-                contents.add(new CellLocation(1, 2));
+                contents.add(CellLocation.of(0, 0));
+                contents.add(CellLocation.of(0, 1));
+                contents.add(CellLocation.of(1, 1));
+                contents.add(CellLocation.of(1, 2));
                 fallingType = 4;
             }
         }
@@ -322,7 +331,7 @@ public class Tetros implements Tick, Feature, Game, MoveCell {
         for (CellLocation location : contents) {
             int newColumn = column + ((row - location.getRow()) * direction);
             int newRow = row + ((column - location.getColumn()) * direction);
-            CellLocation replacement = new CellLocation(newRow, newColumn);
+            CellLocation replacement = CellLocation.of(newRow, newColumn);
             newCells.add(replacement);
         }
 
@@ -385,10 +394,13 @@ public class Tetros implements Tick, Feature, Game, MoveCell {
         // check if row is full from bottom of sheet.
         for (int row = sheet.getRows() - 1; row >= 0; row--) {
             if (isFull(row)) {
-                // for each cell above the full row
+                // for each cell above the full row, every row is moved
+                // down in one batch as each row only reads the row above it
+                Map<CellLocation, Expression> updates = new LinkedHashMap<>();
                 for (int rowX = row; rowX > 0; rowX--) {
-                    updateRow(rowX);
+                    updateRow(rowX, updates);
                 }
+                apply(updates);
                 row = row + 1;
             }
         }
@@ -411,18 +423,16 @@ public class Tetros implements Tick, Feature, Game, MoveCell {
     /**
      * Updates a row in the sheet.
      * @param row the row to update.
+     * @param updates the updates to add the row to.
      */
-    private void updateRow(int row) {
+    private void updateRow(int row, Map<CellLocation, Expression> updates) {
         for (int column = 0; column < sheet.getColumns(); column++) {
-            try {
-                // check that the cell is not the falling block.
-                if (!contents.contains(new CellLocation(row - 1, column))) {
-                    sheet.update(new CellLocation(row, column), sheet.valueAt(new CellLocation(row - 1, column)));
-                }
+            // check that the cell is not the falling block.
+            if (!contents.contains(CellLocation.of(row - 1, column))) {
                 // bring down the cells to the row that was full
-            } catch (TypeError e) {
-                throw new RuntimeException(e);
+                updates.put(CellLocation.of(row, column),
+                        sheet.valueAt(CellLocation.of(row - 1, column)));
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,114 @@
+package sheep.parsing;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parses many inputs at once, such as every cell of a file being loaded,
+ * using every core of the machine.
+ * <p>
+ * The inputs are split in half until each part is within a threshold,
+ * and the parts are parsed in parallel within the common {@link ForkJoinPool}.
+ * Fewer inputs than the threshold are parsed on the calling thread.
+ * <p>
+ * Each input is parsed with {@link Parser#tryParse(String)},
+ * so an input that cannot be parsed does not stop any other input from being parsed.
+ * The parser, and the expression factory it constructs expressions with,
+ * must be safe to use from multiple threads at once, e.g. a {@link PrattParser}
+ * of an {@link sheep.expression.InterningFactory} or {@link sheep.expression.CoreFactory}.
+ */
+public class BulkParser {
+    /**
+     * The default amount of inputs parsed by a single task.
+     */
+    public static final int DEFAULT_THRESHOLD = 256;
+
+    private final Parser parser;
+    private final int threshold;
+
+    /**
+     * Construct a new bulk parser of the given parser,
+     * with the default threshold.
+     *
+     * @param parser A thread-safe parser used to parse each input.
+     */
+    public BulkParser(Parser parser) {
+        this(parser, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Construct a new bulk parser of the given parser.
+     *
+     * @param parser A thread-safe parser used to parse each input.
+     * @param threshold The most inputs parsed by a single task.
+     * @requires threshold &gt; 0
+     */
+    public BulkParser(Parser parser, int threshold) {
+        this.parser = parser;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Attempt to parse every input, in parallel if there are enough inputs.
+     *
+     * <pre>
+     * {@code
+     * BulkParser parser = new BulkParser(new PrattParser(new CoreFactory()));
+     * List<ParseResult> results = parser.parseAll(List.of("1", "A1 + 2", "4 + * 5"));
+     * results.get(1).getExpression(); // Plus(Reference(A1), Constant(2))
+     * results.get(2).getPosition(); // 4
+     * }</pre>
+     *
+     * @param inputs The strings to attempt to parse.
+     * @return The result of parsing each input, in the same order as the inputs.
+     */
+    public List<ParseResult> parseAll(List<String> inputs) {
+        String[] strings = inputs.toArray(new String[0]);
+        ParseResult[] results = new ParseResult[strings.length];
+        if (strings.length <= threshold) {
+            parse(strings, results, 0, strings.length);
+        } else {
+            ForkJoinPool.commonPool().invoke(new ParseTask(strings, results, 0, strings.length));
+        }
+        return Arrays.asList(results);
+    }
+
+    private void parse(String[] inputs, ParseResult[] results, int from, int to) {
+        for (int i = from; i < to; i++) {
+            results[i] = parser.tryParse(inputs[i]);
+        }
+    }
+
+    /**
+     * Parses a range of the inputs,
+     * splitting the range in half until it is within the threshold.
+     * Tasks are only ever run within the pool and never serialized.
+     */
+    @SuppressWarnings("serial")
+    private class ParseTask extends RecursiveAction {
+        private final String[] inputs;
+        private final ParseResult[] results;
+        private final int from;
+        private final int to;
+
+        private ParseTask(String[] inputs, ParseResult[] results, int from, int to) {
+            this.inputs = inputs;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > threshold) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ParseTask(inputs, results, from, middle),
+                        new ParseTask(inputs, results, middle, to));
+                return;
+            }
+            parse(inputs, results, from, to);
+        }
+    }
+}
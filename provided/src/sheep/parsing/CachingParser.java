@@ -0,0 +1,135 @@
+package sheep.parsing;
+
+import sheep.expression.Expression;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A parser that remembers the expressions most recently parsed by another parser.
+ * <p>
+ * Parsing an input that was parsed recently returns the same expression
+ * as before without parsing it again, which suits the small inputs
+ * that games and loaders insert over and over, e.g. "1" or "A3 + A2".
+ * Expressions are immutable, so a single instance may be shared by every cell it is inserted in.
+ * Inputs that cannot be parsed are not remembered.
+ * <p>
+ * At most a fixed amount of expressions are remembered,
+ * the least recently used expression is forgotten first.
+ * The parser may be used from multiple threads.
+ */
+public class CachingParser implements Parser {
+    private final Parser parser;
+    private final Map<String, Expression> cache;
+    private long hits;
+    private long misses;
+
+    /**
+     * Construct a new parser remembering the expressions parsed by the given parser.
+     *
+     * @param parser Parser used to parse inputs that are not remembered.
+     * @param capacity The most expressions to remember at once.
+     * @requires capacity &gt; 0
+     */
+    public CachingParser(Parser parser, int capacity) {
+        this.parser = parser;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Expression> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Attempt to parse a string expression into an expression,
+     * returning the remembered expression if the string was parsed recently.
+     *
+     * @param input A string to attempt to parse.
+     * @return The result of parsing the expression.
+     * @throws ParseException If the underlying parser cannot parse the input.
+     */
+    @Override
+    public Expression parse(String input) throws ParseException {
+        synchronized (cache) {
+            Expression expression = cache.get(input);
+            if (expression != null) {
+                hits++;
+                return expression;
+            }
+            misses++;
+        }
+        // parsed without holding the lock, racing threads may both parse the same input
+        Expression expression = parser.parse(input);
+        synchronized (cache) {
+            cache.put(input, expression);
+        }
+        return expression;
+    }
+
+    /**
+     * Attempt to parse a string expression into an expression without throwing on failure,
+     * returning the remembered expression if the string was parsed recently.
+     *
+     * @param input A string to attempt to parse.
+     * @return The parsed expression, or the reason the underlying parser cannot parse the input.
+     */
+    @Override
+    public ParseResult tryParse(String input) {
+        synchronized (cache) {
+            Expression expression = cache.get(input);
+            if (expression != null) {
+                hits++;
+                return ParseResult.success(expression);
+            }
+            misses++;
+        }
+        ParseResult result = parser.tryParse(input);
+        if (result.isSuccess()) {
+            synchronized (cache) {
+                cache.put(input, result.getExpression());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The amount of parsed inputs that were remembered.
+     * @return The amount of cache hits.
+     */
+    public long hits() {
+        synchronized (cache) {
+            return hits;
+        }
+    }
+
+    /**
+     * The amount of parsed inputs that had to be parsed by the underlying parser,
+     * including those that could not be parsed.
+     * @return The amount of cache misses.
+     */
+    public long misses() {
+        synchronized (cache) {
+            return misses;
+        }
+    }
+
+    /**
+     * The amount of expressions currently remembered.
+     * @return The size of the cache.
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Forget every remembered expression, the counters are kept.
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+}
@@ -5,11 +5,16 @@ package sheep.parsing;
  * @stage1
  */
 public class ParseException extends Exception {
+    private final String reason;
+    private final int position;
+
     /**
      * Construct a new exception without any additional details.
      */
     public ParseException() {
         super();
+        this.reason = null;
+        this.position = -1;
     }
 
     /**
@@ -18,6 +23,20 @@ public class ParseException extends Exception {
      */
     public ParseException(String message) {
         super(message);
+        this.reason = message;
+        this.position = -1;
+    }
+
+    /**
+     * Construct a new exception with a description of the exception
+     * and the position within the input at which parsing failed.
+     * @param message The description of the exception.
+     * @param position The index of the character at which parsing failed.
+     */
+    public ParseException(String message, int position) {
+        super(message + " at position " + position);
+        this.reason = message;
+        this.position = position;
     }
 
     /**
@@ -26,7 +45,23 @@ public class ParseException extends Exception {
      */
     public ParseException(Exception base) {
         super(base);
+        this.reason = base == null ? null : base.toString();
+        this.position = -1;
     }
 
+    /**
+     * The description of the exception, without the position at which parsing failed.
+     * @return The description given when constructed, or null if there is none.
+     */
+    public String getReason() {
+        return reason;
+    }
 
-}
\ No newline at end of file
+    /**
+     * The index of the character within the input at which parsing failed.
+     * @return The position of the failure, or -1 if it is not known.
+     */
+    public int getPosition() {
+        return position;
+    }
+}
@@ -0,0 +1,100 @@
+package sheep.parsing;
+
+import sheep.expression.Expression;
+
+/**
+ * The outcome of attempting to parse an input with {@link Parser#tryParse(String)},
+ * either the parsed expression or a description of why the input could not be parsed.
+ * <p>
+ * Unlike a {@link ParseException}, a failed result is cheap to construct,
+ * so rejecting large amounts of input that is not an expression is fast.
+ */
+public final class ParseResult {
+    private final Expression expression;
+    private final String message;
+    private final int position;
+
+    private ParseResult(Expression expression, String message, int position) {
+        this.expression = expression;
+        this.message = message;
+        this.position = position;
+    }
+
+    /**
+     * The result of successfully parsing an expression.
+     *
+     * @param expression The parsed expression.
+     * @requires expression != null
+     * @return A successful result.
+     */
+    public static ParseResult success(Expression expression) {
+        return new ParseResult(expression, null, -1);
+    }
+
+    /**
+     * The result of failing to parse an input.
+     *
+     * @param message A description of why the input could not be parsed.
+     * @param position The index of the character at which parsing failed, or -1 if not known.
+     * @return A failed result.
+     */
+    public static ParseResult failure(String message, int position) {
+        return new ParseResult(null, message, position);
+    }
+
+    /**
+     * Whether the input was parsed.
+     * @return True if the result holds an expression.
+     */
+    public boolean isSuccess() {
+        return expression != null;
+    }
+
+    /**
+     * The parsed expression.
+     * @return The expression, or null if the input could not be parsed.
+     */
+    public Expression getExpression() {
+        return expression;
+    }
+
+    /**
+     * A description of why the input could not be parsed.
+     * @return The description, or null if the input was parsed.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * The index of the character within the input at which parsing failed.
+     * @return The position of the failure, or -1 if it is not known or the input was parsed.
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * The parsed expression, for callers that handle failure with exceptions.
+     *
+     * @return The parsed expression.
+     * @throws ParseException If the input could not be parsed.
+     */
+    public Expression orElseThrow() throws ParseException {
+        if (expression != null) {
+            return expression;
+        }
+        if (position < 0) {
+            throw new ParseException(message);
+        }
+        throw new ParseException(message, position);
+    }
+
+    @Override
+    public String toString() {
+        if (isSuccess()) {
+            return "ParseResult(" + expression + ")";
+        }
+        return "ParseResult(" + message + (position < 0 ? "" : " at position " + position) + ")";
+    }
+}
@@ -16,4 +16,22 @@ public interface Parser {
      * @throws ParseException If the string input is not recognisable as an expression
      */
     Expression parse(String input) throws ParseException;
+
+    /**
+     * Attempt to parse a string expression into an expression without throwing on failure.
+     * <p>
+     * By default, the result of {@link #parse(String)} is wrapped in a result,
+     * parsers that can reject input without constructing an exception should override this.
+     *
+     * @param input A string to attempt to parse.
+     * @return The parsed expression, or the reason the string input is not recognisable
+     *         as an expression.
+     */
+    default ParseResult tryParse(String input) {
+        try {
+            return ParseResult.success(parse(input));
+        } catch (ParseException e) {
+            return ParseResult.failure(e.getReason(), e.getPosition());
+        }
+    }
 }
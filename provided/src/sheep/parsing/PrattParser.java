@@ -0,0 +1,346 @@
+package sheep.parsing;
+
+import sheep.expression.Expression;
+import sheep.expression.ExpressionFactory;
+import sheep.expression.InvalidExpression;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Parser of expressions in a single pass over the input,
+ * by precedence climbing over a character level tokenizer.
+ * <p>
+ * Expressions are parsed as by {@link SimpleParser}, with the operators binding
+ * from loosest to tightest in the order =, &lt;, +, -, *, /, and every operand of
+ * a chain of the same operator collected into a single operator,
+ * e.g. 4 + 5 + 7 * 12 + 3 is Plus(4, 5, Times(7, 12), 3).
+ * In addition:
+ * <ul>
+ *     <li>parentheses group an expression, which is created with
+ *     {@link ExpressionFactory#createGroup(Expression)} so that it is rendered as written;</li>
+ *     <li>a sign directly before a number is part of the number, e.g. -42,
+ *     and before any other operand it is created with
+ *     {@link ExpressionFactory#createSigned(String, Expression)}, e.g. -A1 evaluates as 0 - A1
+ *     but is still rendered as -A1; and</li>
+ *     <li>malformed input is rejected, rather than parsed with empty operands,
+ *     with the position of the first unexpected character.</li>
+ * </ul>
+ * The input is never split into substrings, only identifiers are copied out of it.
+ */
+public class PrattParser implements Parser {
+    // from the loosest to the tightest binding operator
+    private static final String OPERATORS = "=<+-*/";
+    private static final String[] NAMES = {"=", "<", "+", "-", "*", "/"};
+
+    private final ExpressionFactory factory;
+
+    /**
+     * Construct a new parser.
+     * Parsed expressions are constructed using the expression factory.
+     *
+     * @param factory Factory used to construct parsed expressions.
+     */
+    public PrattParser(ExpressionFactory factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Attempt to parse a string expression into an expression.
+     * If the string is just whitespace, an empty expression is constructed.
+     *
+     * <pre>
+     * {@code
+     * Parser parser = new PrattParser(new CoreFactory());
+     * parser.parse("  42  "); // Constant(42)
+     * parser.parse("4 + 5 + 7 * 12 + 3"); // Plus(Constant(4), Constant(5), Times(Constant(7), Constant(12)), Constant(3))
+     * parser.parse("(A1 + 2) * -3"); // Times(Group(Plus(Reference(A1), Constant(2))), Constant(-3))
+     * parser.parse("sum(A1:A10) + 1"); // Plus(Sum(Range(A1:A10)), Constant(1))
+     * parser.parse("4 + * 5"); // ParseException: Expected an expression at position 4
+     * }</pre>
+     *
+     * @param input A string to attempt to parse.
+     * @return The result of parsing the expression.
+     * @throws ParseException If the string input is not recognisable as an expression,
+     *                        with the position at which it is not recognisable if known.
+     */
+    @Override
+    public Expression parse(String input) throws ParseException {
+        return tryParse(input).orElseThrow();
+    }
+
+    /**
+     * Attempt to parse a string expression into an expression, as by {@link #parse(String)},
+     * without constructing an exception if the input cannot be parsed.
+     *
+     * @param input A string to attempt to parse.
+     * @return The parsed expression, or the reason and position at which
+     *         the string input is not recognisable as an expression.
+     */
+    @Override
+    public ParseResult tryParse(String input) {
+        Tokens tokens = new Tokens(input);
+        try {
+            if (tokens.peek() == Tokens.END) {
+                return ParseResult.success(factory.createEmpty());
+            }
+            Expression expression = parseLevel(tokens, 0);
+            if (expression != null && tokens.peek() != Tokens.END) {
+                tokens.unexpected();
+            }
+            return tokens.result(expression);
+        } catch (InvalidExpression e) {
+            return ParseResult.failure(e.getMessage(), -1);
+        }
+    }
+
+    /**
+     * Parse a chain of operands separated by the operator of the given level,
+     * each of which is parsed at the next tighter level.
+     * Every parse method returns null once parsing has failed.
+     */
+    private Expression parseLevel(Tokens tokens, int level) throws InvalidExpression {
+        if (level == OPERATORS.length()) {
+            return parseOperand(tokens);
+        }
+        Expression first = parseLevel(tokens, level + 1);
+        char operator = OPERATORS.charAt(level);
+        if (first == null || tokens.peek() != operator) {
+            return first;
+        }
+        List<Expression> operands = new ArrayList<>();
+        operands.add(first);
+        while (tokens.peek() == operator) {
+            tokens.advance();
+            Expression operand = parseLevel(tokens, level + 1);
+            if (operand == null) {
+                return null;
+            }
+            operands.add(operand);
+        }
+        return factory.createOperator(NAMES[level], operands.toArray());
+    }
+
+    /**
+     * Parse a number, reference, range, function call, group or negated operand.
+     */
+    private Expression parseOperand(Tokens tokens) throws InvalidExpression {
+        char next = tokens.peek();
+        if (next == '-' || next == '+') {
+            tokens.advance();
+            // only a sign immediately followed by digits is part of a number
+            if (tokens.atNumber()) {
+                return constant(tokens, next == '-');
+            }
+            Expression operand = parseOperand(tokens);
+            if (operand == null) {
+                return null;
+            }
+            return factory.createSigned(String.valueOf(next), operand);
+        }
+        if (next == '(') {
+            tokens.advance();
+            Expression inner = parseLevel(tokens, 0);
+            if (inner == null || !tokens.expect(')')) {
+                return null;
+            }
+            return factory.createGroup(inner);
+        }
+        if (tokens.atNumber()) {
+            return constant(tokens, false);
+        }
+        int start = tokens.position();
+        String word = tokens.word();
+        if (word.isEmpty()) {
+            return tokens.fail("Expected an expression", start);
+        }
+        if (tokens.peek() == ':') {
+            tokens.advance();
+            int end = tokens.position();
+            String corner = tokens.word();
+            if (corner.isEmpty()) {
+                return tokens.fail("Expected a cell reference", end);
+            }
+            return factory.createRange(word, corner);
+        }
+        if (tokens.peek() == '(') {
+            return parseFunction(tokens, word, start);
+        }
+        return factory.createReference(word);
+    }
+
+    private Expression constant(Tokens tokens, boolean negative) {
+        int start = tokens.position();
+        long number = tokens.number(negative);
+        if (tokens.position() == start) {
+            return tokens.fail("Number out of range", start);
+        }
+        return factory.createConstant(number);
+    }
+
+    /**
+     * Parse the comma separated arguments of a function call, e.g. SUM(A1:A10, 4).
+     * Function names are not case-sensitive.
+     */
+    private Expression parseFunction(Tokens tokens, String name, int start)
+            throws InvalidExpression {
+        for (int i = 0; i < name.length(); i++) {
+            if (!Character.isAlphabetic(name.charAt(i))) {
+                return tokens.fail("Unknown function " + name, start);
+            }
+        }
+        tokens.advance();
+        List<Expression> arguments = new ArrayList<>();
+        if (tokens.peek() != ')') {
+            do {
+                if (!arguments.isEmpty()) {
+                    tokens.advance();
+                }
+                Expression argument = parseLevel(tokens, 0);
+                if (argument == null) {
+                    return null;
+                }
+                arguments.add(argument);
+            } while (tokens.peek() == ',');
+        }
+        if (!tokens.expect(')')) {
+            return null;
+        }
+        return factory.createOperator(name.toUpperCase(Locale.ROOT), arguments.toArray());
+    }
+
+    /**
+     * The characters of the input, read one token at a time.
+     * Whitespace between tokens is skipped.
+     */
+    private static final class Tokens {
+        // a noncharacter, which never appears in text
+        private static final char END = '\uffff';
+
+        private final String input;
+        private int position;
+        private String error;
+        private int errorPosition;
+
+        private Tokens(String input) {
+            this.input = input;
+        }
+
+        private void skipWhitespace() {
+            while (position < input.length() && Character.isWhitespace(input.charAt(position))) {
+                position++;
+            }
+        }
+
+        /**
+         * The next character that is not whitespace, or {@link #END} at the end of the input.
+         */
+        private char peek() {
+            skipWhitespace();
+            return position < input.length() ? input.charAt(position) : END;
+        }
+
+        private int position() {
+            skipWhitespace();
+            return position;
+        }
+
+        private void advance() {
+            position++;
+        }
+
+        /**
+         * Consume the expected character, or fail if it is not next.
+         */
+        private boolean expect(char expected) {
+            if (peek() != expected) {
+                fail("Expected '" + expected + "'", position);
+                return false;
+            }
+            position++;
+            return true;
+        }
+
+        private void unexpected() {
+            fail("Unexpected '" + input.charAt(position) + "'", position);
+        }
+
+        /**
+         * Record the first failure to parse the input.
+         *
+         * @return Null, the result of every parse method once parsing has failed.
+         */
+        private Expression fail(String message, int at) {
+            if (error == null) {
+                error = message;
+                errorPosition = at;
+            }
+            return null;
+        }
+
+        private ParseResult result(Expression expression) {
+            if (error != null) {
+                return ParseResult.failure(error, errorPosition);
+            }
+            return ParseResult.success(expression);
+        }
+
+        private static boolean isWordCharacter(char character) {
+            return Character.isAlphabetic(character) || Character.isDigit(character);
+        }
+
+        /**
+         * Whether the word at the current position is only digits,
+         * rather than an identifier that starts with digits or any other token.
+         */
+        private boolean atNumber() {
+            if (position >= input.length() || !Character.isDigit(input.charAt(position))) {
+                return false;
+            }
+            int end = position;
+            while (end < input.length() && Character.isDigit(input.charAt(end))) {
+                end++;
+            }
+            return end == input.length() || !isWordCharacter(input.charAt(end));
+        }
+
+        /**
+         * Read the digits at the current position as a number, which must be {@link #atNumber()},
+         * accumulated negatively so that the smallest long can be read.
+         * If the number is out of range, nothing is read.
+         */
+        private long number(boolean negative) {
+            int start = position;
+            long result = 0;
+            while (position < input.length() && Character.isDigit(input.charAt(position))) {
+                int digit = Character.digit(input.charAt(position), 10);
+                if (result < (Long.MIN_VALUE + digit) / 10) {
+                    position = start;
+                    return 0;
+                }
+                result = result * 10 - digit;
+                position++;
+            }
+            if (negative) {
+                return result;
+            }
+            if (result == Long.MIN_VALUE) {
+                position = start;
+                return 0;
+            }
+            return -result;
+        }
+
+        /**
+         * Read the alphabetic and digit characters at the current position.
+         */
+        private String word() {
+            int start = position();
+            while (position < input.length() && isWordCharacter(input.charAt(position))) {
+                position++;
+            }
+            return input.substring(start, position);
+        }
+    }
+}
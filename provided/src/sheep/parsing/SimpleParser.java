@@ -4,8 +4,13 @@ import sheep.expression.Expression;
 import sheep.expression.ExpressionFactory;
 import sheep.expression.InvalidExpression;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
 /**
- * Parser of basic expressions and arithmetic expressions.
+ * Parser of basic expressions, arithmetic expressions,
+ * ranges of cells and aggregate functions.
  */
 public class SimpleParser implements Parser {
     private final ExpressionFactory factory;
@@ -20,15 +25,15 @@ public class SimpleParser implements Parser {
         this.factory = factory;
     }
 
-    private Expression[] tryParse(String[] inputs) throws ParseException, InvalidExpression {
+    private Expression[] parseExpression(String[] inputs) throws ParseException, InvalidExpression {
         Expression[] expressions = new Expression[inputs.length];
         for (int i = 0; i < inputs.length; i++) {
-            expressions[i] = tryParse(inputs[i]);
+            expressions[i] = parseExpression(inputs[i]);
         }
         return expressions;
     }
 
-    private Expression tryParse(String input) throws ParseException, InvalidExpression {
+    private Expression parseExpression(String input) throws ParseException, InvalidExpression {
         input = input.strip();
         try {
             long number = Long.parseLong(input);
@@ -37,18 +42,29 @@ public class SimpleParser implements Parser {
             // ignore unable to parse
         }
 
-        if (input.contains("=")) {
-            return factory.createOperator("=", tryParse(input.split("=")));
-        } else if (input.contains("<")) {
-            return factory.createOperator("<", tryParse(input.split("<")));
-        } else if (input.contains("+")) {
-            return factory.createOperator("+", tryParse(input.split("\\+")));
-        } else if (input.contains("-")) {
-            return factory.createOperator("-", tryParse(input.split("-")));
-        } else if (input.contains("*")) {
-            return factory.createOperator("*", tryParse(input.split("\\*")));
-        } else if (input.contains("/")) {
-            return factory.createOperator("/", tryParse(input.split("/")));
+        if (contains(input, '=')) {
+            return factory.createOperator("=", parseExpression(split(input, '=')));
+        } else if (contains(input, '<')) {
+            return factory.createOperator("<", parseExpression(split(input, '<')));
+        } else if (contains(input, '+')) {
+            return factory.createOperator("+", parseExpression(split(input, '+')));
+        } else if (contains(input, '-')) {
+            return factory.createOperator("-", parseExpression(split(input, '-')));
+        } else if (contains(input, '*')) {
+            return factory.createOperator("*", parseExpression(split(input, '*')));
+        } else if (contains(input, '/')) {
+            return factory.createOperator("/", parseExpression(split(input, '/')));
+        } else if (contains(input, ':')) {
+            String[] corners = split(input, ':');
+            if (corners.length != 2) {
+                throw new ParseException("Unknown input: " + input);
+            }
+            return factory.createRange(corners[0].strip(), corners[1].strip());
+        }
+
+        int open = input.indexOf('(');
+        if (open > 0 && input.endsWith(")")) {
+            return tryParseFunction(input, open);
         }
 
         for (char character : input.toCharArray()) {
@@ -62,6 +78,88 @@ public class SimpleParser implements Parser {
         return factory.createReference(input);
     }
 
+    /**
+     * Parse a function call, e.g. SUM(A1:A10, 4), whose arguments are
+     * separated by commas and parsed by the same rules as the top-level expression.
+     * Function names are not case-sensitive.
+     */
+    private Expression tryParseFunction(String input, int open)
+            throws ParseException, InvalidExpression {
+        String name = input.substring(0, open).strip();
+        for (char character : name.toCharArray()) {
+            if (!Character.isAlphabetic(character)) {
+                throw new ParseException("Unknown input: " + input);
+            }
+        }
+        String body = input.substring(open + 1, input.length() - 1);
+        // the opening parenthesis must be closed by the last character
+        if (contains(body, ')') || depth(body) != 0) {
+            throw new ParseException("Unknown input: " + input);
+        }
+        String[] arguments = body.isBlank() ? new String[0] : split(body, ',');
+        return factory.createOperator(name.toUpperCase(Locale.ROOT), parseExpression(arguments));
+    }
+
+    /**
+     * Whether the input contains the character outside of any parentheses.
+     */
+    private static boolean contains(String input, char character) {
+        int depth = 0;
+        for (int i = 0; i < input.length(); i++) {
+            char next = input.charAt(i);
+            if (next == character && depth == 0) {
+                return true;
+            }
+            if (next == '(') {
+                depth++;
+            } else if (next == ')') {
+                depth--;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The amount of parentheses opened but not closed within the input.
+     */
+    private static int depth(String input) {
+        int depth = 0;
+        for (int i = 0; i < input.length(); i++) {
+            if (input.charAt(i) == '(') {
+                depth++;
+            } else if (input.charAt(i) == ')') {
+                depth--;
+            }
+        }
+        return depth;
+    }
+
+    /**
+     * Split the input around every occurrence of the separator outside of any parentheses.
+     * As with {@link String#split(String)}, trailing empty components are removed.
+     */
+    private static String[] split(String input, char separator) {
+        List<String> components = new ArrayList<>();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < input.length(); i++) {
+            char next = input.charAt(i);
+            if (next == separator && depth == 0) {
+                components.add(input.substring(start, i));
+                start = i + 1;
+            } else if (next == '(') {
+                depth++;
+            } else if (next == ')') {
+                depth--;
+            }
+        }
+        components.add(input.substring(start));
+        while (!components.isEmpty() && components.get(components.size() - 1).isEmpty()) {
+            components.remove(components.size() - 1);
+        }
+        return components.toArray(new String[0]);
+    }
+
     /**
      * Attempt to parse a string expression into an expression.
      * <ul>
@@ -80,6 +178,7 @@ public class SimpleParser implements Parser {
      * e.g. leading and trailing whitespace should be ignored, etc.
      * If any component cannot be parsed, the whole expression cannot be parsed.
      * Arithmetic expressions should be constructed with {@link ExpressionFactory#createOperator(String, Object[])}.
+     * Operators within the parentheses of a function call are left to the arguments of the call.
      * You must attempt to parse the arithmetic operators in the following order:
      * <ul>
      *     <li>=</li>
@@ -100,6 +199,15 @@ public class SimpleParser implements Parser {
      * 2) only contains alphabetic {@link Character#isAlphabetic(int)} and digit characters {@link Character#isDigit(char)},
      * should be treated as a reference.
      * </li>
+     * <li>
+     * Two cell references separated by a colon, e.g. A1:A10, should be constructed
+     * as a range with {@link ExpressionFactory#createRange(String, String)}.
+     * </li>
+     * <li>
+     * A name followed by comma separated arguments within parentheses, e.g. SUM(A1:A10, 4),
+     * should be constructed as a function with {@link ExpressionFactory#createOperator(String, Object[])},
+     * using the upper case name of the function as the operator name.
+     * </li>
      * </ul>
      *
      * <pre>
@@ -110,6 +218,7 @@ public class SimpleParser implements Parser {
      * parser.parse("HEY "); // Reference("HEY")
      * parser.parse("hello + world"); // Plus(Reference("hello"), Reference("world"))
      * parser.parse("4 + 5 + 7 * 12 + 3"); // Plus(Constant(4), Constant(5), Times(Constant(7), Constant(12)), Constant(3))
+     * parser.parse("sum(A1:A10) + 1"); // Plus(Sum(Range(A1:A10)), Constant(1))
      * }</pre>
      *
      * @param input A string to attempt to parse.
@@ -119,7 +228,7 @@ public class SimpleParser implements Parser {
     @Override
     public Expression parse(String input) throws ParseException {
         try {
-            return tryParse(input);
+            return parseExpression(input);
         } catch (InvalidExpression e) {
             throw new ParseException(e);
         }
@@ -0,0 +1,29 @@
+package sheep.sheets;
+
+/**
+ * The ways in which a {@link Sheet} recalculates the cells that use an updated cell.
+ * <p>
+ * Whatever the mode, the updated cells themselves are always calculated as they are
+ * updated, so an update that results in a TypeError being thrown is rejected.
+ */
+public enum CalculationMode {
+    /**
+     * Every cell which transitively uses an updated cell is recalculated as part of the update.
+     * This is the default mode.
+     */
+    AUTOMATIC,
+
+    /**
+     * Cells which use an updated cell are marked out of date and only calculated
+     * once their value is read, along with the out of date cells they use.
+     * Cells that are never read are never calculated.
+     */
+    LAZY,
+
+    /**
+     * Cells which use an updated cell are marked out of date and keep their previous value
+     * until {@link Sheet#recalculate()} is called.
+     * The updated cells are calculated from the current, possibly out of date, values.
+     */
+    MANUAL
+}
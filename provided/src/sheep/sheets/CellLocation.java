@@ -1,18 +1,49 @@
 package sheep.sheets;
 
 
-import java.util.Objects;
+import sheep.expression.Expression;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * A location of a cell within a grid.
  * This class represents a location via a row, column coordinate system.
  * <p>
- * Notably columns are represented as character, e.g. in cell A1,
+ * Notably columns are represented as letters, e.g. in cell A1,
  * the column is 0 and the row is 1.
+ * After column Z, columns continue with two and then three letters,
+ * e.g. AA is column 26, and the last column, XFD, is column 16383.
  * @stage2
  */
 public class CellLocation {
+    /**
+     * The amount of columns that can be referred to, that is, up to column XFD.
+     */
+    public static final int MAX_COLUMNS = 16384;
+
+    /**
+     * The key returned by {@link #packReference(String)} for strings that are not references.
+     */
+    static final long NOT_A_REFERENCE = -1;
+
+    private static final CellLocation[] NONE = new CellLocation[0];
+    private static final int CACHED_ROWS = 1024;
+    private static final int CACHED_COLUMNS = 26;
+    // filled when the class is initialised, so every thread sees the same locations
+    private static final CellLocation[][] CACHE = new CellLocation[CACHED_ROWS][CACHED_COLUMNS];
+
+    static {
+        for (int row = 0; row < CACHED_ROWS; row++) {
+            for (int column = 0; column < CACHED_COLUMNS; column++) {
+                CACHE[row][column] = new CellLocation(row, column);
+            }
+        }
+    }
+
     private final int row;
     private final int column;
 
@@ -47,7 +78,7 @@ public class CellLocation {
      * }</pre>
      *
      * @requires row and column are greater than or equal to zero.
-     * @requires column is less than 26.
+     * @requires column is less than {@link #MAX_COLUMNS}.
      * @param row A number representing the row number.
      * @param column A number representing the column (see description of method).
      */
@@ -56,15 +87,78 @@ public class CellLocation {
         this.column = column;
     }
 
+    /**
+     * A cell location at the given row and column.
+     * <p>
+     * Equivalent to {@link #CellLocation(int, int)}, however locations near the
+     * top left of a sheet are shared rather than allocated on every call.
+     * As cell locations are immutable, callers cannot tell the difference
+     * other than by identity.
+     *
+     * @requires row and column are greater than or equal to zero.
+     * @param row A number representing the row number.
+     * @param column A number representing the column.
+     * @return A cell location at the given row and column.
+     */
+    public static CellLocation of(int row, int column) {
+        if (row < 0 || row >= CACHED_ROWS || column < 0 || column >= CACHED_COLUMNS) {
+            return new CellLocation(row, column);
+        }
+        return CACHE[row][column];
+    }
+
+    /**
+     * Pack a row and column into a single primitive key.
+     * The row is stored in the upper and the column in the lower 32 bits.
+     *
+     * @param row A number representing the row number.
+     * @param column A number representing the column.
+     * @return The packed key of the cell location.
+     */
+    static long pack(int row, int column) {
+        return ((long) row << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    /**
+     * The row of a key created by {@link #pack(int, int)}.
+     *
+     * @param key A packed cell location.
+     * @return The row of the cell location.
+     */
+    static int rowOf(long key) {
+        return (int) (key >> 32);
+    }
+
+    /**
+     * The column of a key created by {@link #pack(int, int)}.
+     *
+     * @param key A packed cell location.
+     * @return The column of the cell location.
+     */
+    static int columnOf(long key) {
+        return (int) key;
+    }
+
+    /**
+     * The key of this cell location created by {@link #pack(int, int)}.
+     *
+     * @return The packed key of this cell location.
+     */
+    long pack() {
+        return pack(row, column);
+    }
+
     /**
      * Attempt to parse a string as a reference to a cell location.
      * If the string is not a reference to a cell location, returns {@link Optional#empty()}.
-     * The format of the reference is a single uppercase character followed by
-     * an integer without spaces and without extraneous characters after the integer or before the character.
+     * The format of the reference is one to three uppercase characters naming a column
+     * (up to XFD) followed by an integer without spaces and without extraneous characters
+     * after the integer or before the characters.
      *
      * <pre>
      * {@code
      * CellLocation.maybeReference("A2") // Optional.of(new CellLocation(2, 'A'))
+     * CellLocation.maybeReference("AB10") // Optional.of(new CellLocation(10, 27))
      * CellLocation.maybeReference("2A") // Optional.empty()
      * CellLocation.maybeReference("A 2") // Optional.empty()
      * CellLocation.maybeReference(" A2 ") // Optional.empty()
@@ -76,19 +170,117 @@ public class CellLocation {
      *         otherwise the empty optional.
      */
     public static Optional<CellLocation> maybeReference(String ref) {
-        if (ref.length() < 2 || ref.charAt(0) < 'A' || ref.charAt(0) > 'Z') {
+        long key = packReference(ref);
+        if (key == NOT_A_REFERENCE) {
             return Optional.empty();
         }
-        char column = ref.charAt(0);
-        StringBuilder rowString = new StringBuilder();
-        for (int i = 1; i < ref.length(); i++) {
-            if (!Character.isDigit(ref.charAt(i))) {
-                return Optional.empty();
+        return Optional.of(of(rowOf(key), columnOf(key)));
+    }
+
+    /**
+     * The cell locations referred to by some identifiers,
+     * skipping every identifier that is not a reference to a cell location.
+     *
+     * @param identifiers Identifiers that may represent cell locations.
+     * @requires identifiers does not contain null
+     * @return The location of each identifier that is a reference, in iteration order.
+     */
+    public static CellLocation[] resolve(Collection<String> identifiers) {
+        if (identifiers.isEmpty()) {
+            return NONE;
+        }
+        CellLocation[] locations = new CellLocation[identifiers.size()];
+        int size = 0;
+        for (String identifier : identifiers) {
+            long key = packReference(identifier);
+            if (key != NOT_A_REFERENCE) {
+                locations[size++] = of(rowOf(key), columnOf(key));
             }
-            rowString.append(ref.charAt(i));
         }
-        int row = Integer.parseInt(rowString.toString());
-        return Optional.of(new CellLocation(row, column));
+        return size == locations.length ? locations : Arrays.copyOf(locations, size);
+    }
+
+    /**
+     * The distinct cell locations among the cell dependencies of some expressions,
+     * without resolving the dependencies of any expression from their identifiers.
+     * <p>
+     * If only one of the expressions depends on any cell, its array is returned as is.
+     *
+     * @param expressions The expressions whose cell dependencies are combined.
+     * @return The location of every cell depended upon by any of the expressions.
+     * @see Expression#cellDependencies()
+     */
+    public static CellLocation[] union(Expression[] expressions) {
+        CellLocation[] only = NONE;
+        Set<CellLocation> union = null;
+        for (Expression expression : expressions) {
+            CellLocation[] cells = expression.cellDependencies();
+            if (cells.length == 0) {
+                continue;
+            }
+            if (only.length == 0) {
+                only = cells;
+                continue;
+            }
+            if (union == null) {
+                union = new LinkedHashSet<>(Arrays.asList(only));
+            }
+            union.addAll(Arrays.asList(cells));
+        }
+        return union == null ? only : union.toArray(NONE);
+    }
+
+    /**
+     * Parse a string as a reference to a cell location, in the format accepted by
+     * {@link #maybeReference(String)}, without allocating.
+     *
+     * @param ref A string that may represent a cell location.
+     * @requires ref != null
+     * @return The packed key of the referenced cell location (see {@link #pack(int, int)}),
+     *         or {@link #NOT_A_REFERENCE} if the string is not a reference.
+     */
+    static long packReference(String ref) {
+        int length = ref.length();
+        int index = 0;
+        int column = 0;
+        while (index < length && ref.charAt(index) >= 'A' && ref.charAt(index) <= 'Z') {
+            column = column * 26 + (ref.charAt(index) - 'A' + 1);
+            index++;
+            if (column > MAX_COLUMNS) {
+                return NOT_A_REFERENCE;
+            }
+        }
+        if (index == 0 || index == length) {
+            return NOT_A_REFERENCE;
+        }
+        long row = 0;
+        for (; index < length; index++) {
+            int digit = Character.digit(ref.charAt(index), 10);
+            if (digit < 0) {
+                return NOT_A_REFERENCE;
+            }
+            row = row * 10 + digit;
+            if (row > Integer.MAX_VALUE) {
+                return NOT_A_REFERENCE;
+            }
+        }
+        return pack((int) row, column - 1);
+    }
+
+    /**
+     * The name of a column as used in references, e.g. A for 0, Z for 25 and AA for 26.
+     *
+     * @param column A number representing the column.
+     * @requires column is greater than or equal to zero.
+     * @return The letters naming the column.
+     */
+    public static String columnName(int column) {
+        char[] letters = new char[7];
+        int start = letters.length;
+        for (int remaining = column + 1; remaining > 0; remaining = (remaining - 1) / 26) {
+            letters[--start] = (char) ('A' + (remaining - 1) % 26);
+        }
+        return new String(letters, start, letters.length - start);
     }
 
     /**
@@ -128,7 +320,8 @@ public class CellLocation {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(row, column);
+        long mixed = pack() * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
     }
 
     /**
@@ -137,7 +330,7 @@ public class CellLocation {
      */
     @Override
     public String toString() {
-        return "" + Character.toString(getColumn() + 'A') + getRow();
+        return columnName(getColumn()) + getRow();
     }
 }
 
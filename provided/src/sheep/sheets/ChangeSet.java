@@ -0,0 +1,122 @@
+package sheep.sheets;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The cells of a {@link Sheet} that were changed by a single modification,
+ * such as an update, a batch of updates or a recalculation.
+ * <p>
+ * Only cells whose formula or value is no longer equal to what it was are included,
+ * so a cell that is recalculated to the same value is not part of the change set.
+ * Modifications that may change every cell, such as clearing or resizing the sheet,
+ * produce a structural change set without any cells,
+ * after which every cell should be read again.
+ */
+public final class ChangeSet {
+    private static final ChangeSet EMPTY = new ChangeSet(Set.of(), Set.of(), false);
+    private static final ChangeSet STRUCTURAL = new ChangeSet(Set.of(), Set.of(), true);
+
+    private final Set<CellLocation> formulas;
+    private final Set<CellLocation> values;
+    private final boolean structural;
+
+    private ChangeSet(Set<CellLocation> formulas, Set<CellLocation> values, boolean structural) {
+        this.formulas = formulas;
+        this.values = values;
+        this.structural = structural;
+    }
+
+    /**
+     * A change set of the given cells.
+     *
+     * @param formulas The cells whose formula changed.
+     * @param values The cells whose value changed.
+     * @return A change set that is not structural.
+     */
+    static ChangeSet of(Set<CellLocation> formulas, Set<CellLocation> values) {
+        if (formulas.isEmpty() && values.isEmpty()) {
+            return EMPTY;
+        }
+        return new ChangeSet(Collections.unmodifiableSet(formulas),
+                Collections.unmodifiableSet(values), false);
+    }
+
+    /**
+     * A change set where nothing changed.
+     *
+     * @return An empty change set.
+     */
+    static ChangeSet empty() {
+        return EMPTY;
+    }
+
+    /**
+     * A change set where every cell, or the dimensions of the sheet, may have changed.
+     *
+     * @return A structural change set.
+     */
+    static ChangeSet structural() {
+        return STRUCTURAL;
+    }
+
+    /**
+     * The cells whose formula changed.
+     *
+     * @return An unmodifiable set of cell locations.
+     */
+    public Set<CellLocation> getFormulas() {
+        return formulas;
+    }
+
+    /**
+     * The cells whose value changed.
+     *
+     * @return An unmodifiable set of cell locations.
+     */
+    public Set<CellLocation> getValues() {
+        return values;
+    }
+
+    /**
+     * The cells whose formula or value changed.
+     *
+     * @return A set of cell locations.
+     */
+    public Set<CellLocation> getChanged() {
+        if (formulas.isEmpty()) {
+            return values;
+        }
+        Set<CellLocation> changed = new HashSet<>(values);
+        changed.addAll(formulas);
+        return changed;
+    }
+
+    /**
+     * Whether every cell, or the dimensions of the sheet, may have changed,
+     * in which case the change set does not list any cells.
+     *
+     * @return True if the whole sheet should be read again.
+     */
+    public boolean isStructural() {
+        return structural;
+    }
+
+    /**
+     * Whether nothing changed.
+     *
+     * @return True if no cell changed and the change set is not structural.
+     */
+    public boolean isEmpty() {
+        return !structural && formulas.isEmpty() && values.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        if (structural) {
+            return "ChangeSet{structural}";
+        }
+        return "ChangeSet{formulas=" + formulas + ", values=" + values + "}";
+    }
+}
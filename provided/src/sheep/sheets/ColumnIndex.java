@@ -0,0 +1,128 @@
+package sheep.sheets;
+
+/**
+ * Index of the numeric values in a column of a sheet,
+ * which summarises any range of rows in logarithmic time.
+ * <p>
+ * Totals and amounts are kept in Fenwick trees of prefix sums,
+ * the smallest and largest values in segment trees.
+ * Changing the value of a single row updates each tree along one path from a leaf,
+ * so it is also logarithmic in the amount of rows.
+ * <p>
+ * The index may be summarised and updated from multiple threads.
+ */
+class ColumnIndex {
+    private final int size;
+    private final long[] values;
+    private final boolean[] numeric;
+    // Fenwick trees, indexed from one
+    private final long[] sums;
+    private final long[] counts;
+    // segment trees, the leaves are stored from index size onwards
+    private final long[] mins;
+    private final long[] maxs;
+
+    /**
+     * Construct an index of the given values, in linear time.
+     *
+     * @param values The value of each row, only read for numeric rows.
+     * @param numeric Whether each row has a numeric value.
+     * @requires values.length == numeric.length
+     */
+    ColumnIndex(long[] values, boolean[] numeric) {
+        this.size = values.length;
+        this.values = values;
+        this.numeric = numeric;
+        this.sums = new long[size + 1];
+        this.counts = new long[size + 1];
+        this.mins = new long[2 * size];
+        this.maxs = new long[2 * size];
+        for (int row = 0; row < size; row++) {
+            sums[row + 1] += numeric[row] ? values[row] : 0;
+            counts[row + 1] += numeric[row] ? 1 : 0;
+            int parent = (row + 1) + ((row + 1) & -(row + 1));
+            if (parent <= size) {
+                sums[parent] += sums[row + 1];
+                counts[parent] += counts[row + 1];
+            }
+            mins[size + row] = numeric[row] ? values[row] : Long.MAX_VALUE;
+            maxs[size + row] = numeric[row] ? values[row] : Long.MIN_VALUE;
+        }
+        for (int node = size - 1; node > 0; node--) {
+            mins[node] = Math.min(mins[2 * node], mins[2 * node + 1]);
+            maxs[node] = Math.max(maxs[2 * node], maxs[2 * node + 1]);
+        }
+    }
+
+    /**
+     * The amount of rows indexed.
+     * @return The amount of rows indexed.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Replace the value of a row.
+     *
+     * @param row A row within the index.
+     * @param value The new value of the row, only read if the row is numeric.
+     * @param isNumeric Whether the row has a numeric value.
+     */
+    synchronized void set(int row, long value, boolean isNumeric) {
+        long sumDelta = (isNumeric ? value : 0) - (numeric[row] ? values[row] : 0);
+        long countDelta = (isNumeric ? 1 : 0) - (numeric[row] ? 1 : 0);
+        values[row] = value;
+        numeric[row] = isNumeric;
+        for (int node = row + 1; node <= size; node += node & -node) {
+            sums[node] += sumDelta;
+            counts[node] += countDelta;
+        }
+        int node = size + row;
+        mins[node] = isNumeric ? value : Long.MAX_VALUE;
+        maxs[node] = isNumeric ? value : Long.MIN_VALUE;
+        for (node >>= 1; node > 0; node >>= 1) {
+            mins[node] = Math.min(mins[2 * node], mins[2 * node + 1]);
+            maxs[node] = Math.max(maxs[2 * node], maxs[2 * node + 1]);
+        }
+    }
+
+    /**
+     * Include the numeric values of a range of rows in a summary.
+     *
+     * @param from The first row of the range.
+     * @param to The last row of the range, inclusive.
+     * @param summary The summary to include the values in.
+     * @requires from &gt;= 0 &amp;&amp; to &lt; size()
+     */
+    synchronized void summarize(int from, int to, RangeSummary summary) {
+        if (from > to) {
+            return;
+        }
+        long sum = 0;
+        long count = 0;
+        for (int node = to + 1; node > 0; node -= node & -node) {
+            sum += sums[node];
+            count += counts[node];
+        }
+        for (int node = from; node > 0; node -= node & -node) {
+            sum -= sums[node];
+            count -= counts[node];
+        }
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int left = from + size, right = to + size + 1; left < right; left >>= 1, right >>= 1) {
+            if ((left & 1) == 1) {
+                min = Math.min(min, mins[left]);
+                max = Math.max(max, maxs[left]);
+                left++;
+            }
+            if ((right & 1) == 1) {
+                right--;
+                min = Math.min(min, mins[right]);
+                max = Math.max(max, maxs[right]);
+            }
+        }
+        summary.add(count, sum, min, max);
+    }
+}
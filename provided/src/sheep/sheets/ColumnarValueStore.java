@@ -0,0 +1,245 @@
+package sheep.sheets;
+
+import sheep.expression.Expression;
+import sheep.expression.TypeError;
+import sheep.expression.basic.Constant;
+import sheep.expression.basic.Nothing;
+
+import java.util.Arrays;
+
+/**
+ * Value store that keeps numeric values in primitive arrays per column.
+ * <p>
+ * Each cell has a type tag stating whether it holds the default expression,
+ * an empty value, a number or some other expression, or was never assigned.
+ * Numbers are stored in {@code long[]} chunks of each column so that no
+ * {@link Constant} instance needs to be retained for them.
+ * Any other expression is kept in a side table,
+ * as there are no error values, those are the only expressions that cannot be packed.
+ * <p>
+ * Each column is split into chunks of consecutive rows, a chunk is only allocated
+ * once a cell within it is assigned a value, so an empty region of a sheet costs nothing.
+ * <p>
+ * Snapshots share the chunks of the store they were taken from.
+ * Afterwards, the store copies a chunk the first time it is modified,
+ * so taking a snapshot is constant time and only modified chunks are ever copied.
+ */
+class ColumnarValueStore implements ValueStore {
+    private static final byte ABSENT = 0;
+    private static final byte DEFAULT = 1;
+    private static final byte EMPTY = 2;
+    private static final byte NUMBER = 3;
+    private static final byte OTHER = 4;
+
+    private static final int CHUNK_BITS = 8;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final Expression defaultExpression;
+    private final Expression empty;
+    private final Expression fallback;
+    private final PersistentLongMap<Expression> others;
+    private final boolean frozen;
+    // indexed by [column][chunk][row within chunk]
+    private long[][][] numbers;
+    private byte[][][] tags;
+    // the epoch at which each column's chunk table and each chunk were copied,
+    // those of earlier epochs may be shared with a snapshot
+    private int[] columnEpochs;
+    private int[][] chunkEpochs;
+    private int epoch;
+    private boolean sharedColumns;
+
+    /**
+     * Construct a new columnar store where no cell has been assigned.
+     *
+     * @param defaultExpression The default expression of the sheet.
+     * @param fallback The value of cells that have not been assigned,
+     *                 or null if such cells have no value.
+     * @param columns Initial amount of columns to allocate.
+     */
+    ColumnarValueStore(Expression defaultExpression, Expression fallback, int columns) {
+        this.defaultExpression = defaultExpression;
+        this.empty = defaultExpression instanceof Nothing ? defaultExpression : Nothing.EMPTY;
+        this.fallback = fallback;
+        this.others = new PersistentLongMap<>();
+        this.frozen = false;
+        this.numbers = new long[columns][][];
+        this.tags = new byte[columns][][];
+        this.columnEpochs = new int[columns];
+        this.chunkEpochs = new int[columns][];
+    }
+
+    private ColumnarValueStore(ColumnarValueStore store) {
+        this.defaultExpression = store.defaultExpression;
+        this.empty = store.empty;
+        this.fallback = store.fallback;
+        this.others = store.others.snapshot();
+        this.frozen = true;
+        this.numbers = store.numbers;
+        this.tags = store.tags;
+        this.columnEpochs = store.columnEpochs;
+        this.chunkEpochs = store.chunkEpochs;
+    }
+
+    @Override
+    public Expression get(int row, int column) {
+        return switch (tagAt(row, column)) {
+            case EMPTY -> empty;
+            case NUMBER -> Constant.of(numbers[column][row >>> CHUNK_BITS][row & CHUNK_MASK]);
+            case OTHER -> others.get(CellLocation.pack(row, column));
+            case DEFAULT -> defaultExpression;
+            default -> fallback;
+        };
+    }
+
+    @Override
+    public void put(int row, int column, Expression value) {
+        checkMutable();
+        // compared by equality, an equal expression may be a different instance from the parser
+        if (value.equals(fallback) && tagAt(row, column) == ABSENT) {
+            return;
+        }
+        int chunk = row >>> CHUNK_BITS;
+        int offset = row & CHUNK_MASK;
+        ownChunk(column, chunk);
+        byte previous = tags[column][chunk][offset];
+        byte tag = tagOf(value);
+        tags[column][chunk][offset] = tag;
+        if (tag == NUMBER) {
+            numbers[column][chunk][offset] = ((Constant) value).getValue();
+        } else if (tag == OTHER) {
+            others.put(CellLocation.pack(row, column), value);
+        }
+        if (previous == OTHER && tag != OTHER) {
+            others.remove(CellLocation.pack(row, column));
+        }
+    }
+
+    @Override
+    public long number(int row, int column) throws TypeError {
+        return switch (tagAt(row, column)) {
+            case EMPTY -> throw new TypeError();
+            case NUMBER -> numbers[column][row >>> CHUNK_BITS][row & CHUNK_MASK];
+            case OTHER -> others.get(CellLocation.pack(row, column)).value();
+            case DEFAULT -> defaultExpression.value();
+            default -> {
+                if (fallback == null) {
+                    throw new TypeError();
+                }
+                yield fallback.value();
+            }
+        };
+    }
+
+    @Override
+    public String render(int row, int column) {
+        return switch (tagAt(row, column)) {
+            case EMPTY -> "";
+            case NUMBER -> Long.toString(numbers[column][row >>> CHUNK_BITS][row & CHUNK_MASK]);
+            case OTHER -> others.get(CellLocation.pack(row, column)).render();
+            default -> defaultExpression.render();
+        };
+    }
+
+    @Override
+    public void clear() {
+        checkMutable();
+        others.clear();
+        int columns = tags.length;
+        numbers = new long[columns][][];
+        tags = new byte[columns][][];
+        columnEpochs = new int[columns];
+        chunkEpochs = new int[columns][];
+        sharedColumns = false;
+    }
+
+    @Override
+    public ValueStore snapshot() {
+        if (frozen) {
+            return this;
+        }
+        ValueStore snapshot = new ColumnarValueStore(this);
+        sharedColumns = true;
+        epoch++;
+        return snapshot;
+    }
+
+    private void checkMutable() {
+        if (frozen) {
+            throw new UnsupportedOperationException("Snapshots cannot be modified");
+        }
+    }
+
+    private byte tagAt(int row, int column) {
+        if (column >= tags.length || tags[column] == null) {
+            return ABSENT;
+        }
+        byte[][] chunks = tags[column];
+        int chunk = row >>> CHUNK_BITS;
+        if (chunk >= chunks.length || chunks[chunk] == null) {
+            return ABSENT;
+        }
+        return chunks[chunk][row & CHUNK_MASK];
+    }
+
+    private byte tagOf(Expression value) {
+        if (value.equals(defaultExpression)) {
+            return DEFAULT;
+        }
+        if (value.getClass() == Nothing.class) {
+            return EMPTY;
+        }
+        if (value.getClass() == Constant.class) {
+            return NUMBER;
+        }
+        return OTHER;
+    }
+
+    /**
+     * Make sure that a chunk is allocated and not shared with any snapshot,
+     * along with the arrays that lead to it.
+     */
+    private void ownChunk(int column, int chunk) {
+        if (sharedColumns) {
+            tags = tags.clone();
+            numbers = numbers.clone();
+            columnEpochs = columnEpochs.clone();
+            chunkEpochs = chunkEpochs.clone();
+            sharedColumns = false;
+        }
+        if (column >= tags.length) {
+            int columns = column + 1;
+            tags = Arrays.copyOf(tags, columns);
+            numbers = Arrays.copyOf(numbers, columns);
+            columnEpochs = Arrays.copyOf(columnEpochs, columns);
+            chunkEpochs = Arrays.copyOf(chunkEpochs, columns);
+        }
+        if (tags[column] == null) {
+            tags[column] = new byte[chunk + 1][];
+            numbers[column] = new long[chunk + 1][];
+            chunkEpochs[column] = new int[chunk + 1];
+            columnEpochs[column] = epoch;
+        } else if (columnEpochs[column] != epoch) {
+            tags[column] = tags[column].clone();
+            numbers[column] = numbers[column].clone();
+            chunkEpochs[column] = chunkEpochs[column].clone();
+            columnEpochs[column] = epoch;
+        }
+        if (chunk >= tags[column].length) {
+            int chunks = Math.max(chunk + 1, tags[column].length * 2);
+            tags[column] = Arrays.copyOf(tags[column], chunks);
+            numbers[column] = Arrays.copyOf(numbers[column], chunks);
+            chunkEpochs[column] = Arrays.copyOf(chunkEpochs[column], chunks);
+        }
+        if (tags[column][chunk] == null) {
+            tags[column][chunk] = new byte[CHUNK_SIZE];
+            numbers[column][chunk] = new long[CHUNK_SIZE];
+            chunkEpochs[column][chunk] = epoch;
+        } else if (chunkEpochs[column][chunk] != epoch) {
+            tags[column][chunk] = tags[column][chunk].clone();
+            numbers[column][chunk] = numbers[column][chunk].clone();
+            chunkEpochs[column][chunk] = epoch;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package sheep.sheets;
+
+import sheep.expression.TypeError;
+
+/**
+ * A formula that has been compiled into a specialised evaluator.
+ * <p>
+ * Compiled formulas read the numeric value of referenced cells directly
+ * from a {@link NumberSource} by row and column, so evaluating them does
+ * not allocate intermediate expressions or look up references by name.
+ *
+ * @see FormulaCompiler
+ */
+@FunctionalInterface
+interface CompiledFormula {
+    /**
+     * Evaluate the formula to a numeric value.
+     *
+     * @param cells The values of the cells within the sheet.
+     * @return The numeric result of the formula.
+     * @throws TypeError If any part of the formula does not have a numeric value.
+     */
+    long evaluate(NumberSource cells) throws TypeError;
+}
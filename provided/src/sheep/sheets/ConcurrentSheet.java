@@ -0,0 +1,336 @@
+package sheep.sheets;
+
+import sheep.core.ViewElement;
+import sheep.expression.Expression;
+import sheep.expression.TypeError;
+import sheep.parsing.Parser;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sheet that may be updated and read from multiple threads at once.
+ * <p>
+ * Cells are spread over a fixed amount of lock stripes by their location.
+ * An update locks the stripes of every cell it may read or modify (see
+ * {@link Sheet#footprint(Map)}), that is, the updated cells, the cells that
+ * transitively use them and the cells the new formulas refer to.
+ * Two updates that share a dependant therefore share a stripe and are serialized,
+ * whereas updates of independent parts of the sheet hold disjoint stripes and
+ * recalculate their cells in parallel. Stripes are always locked in ascending order,
+ * so updates never deadlock.
+ * <p>
+ * The structures shared by every cell, such as the usages and the value store,
+ * are only modified while briefly holding the writer lock of the sheet,
+ * once to link the new formulas and once to store the calculated values.
+ * Cells are evaluated without holding the writer lock,
+ * against a snapshot of the values taken once the stripes are held.
+ * <p>
+ * Reads are answered from the most recently published {@link SheetSnapshot},
+ * so they never wait for an update and never observe part of an update.
+ */
+public class ConcurrentSheet extends Sheet {
+    private static final int STRIPE_BITS = 6;
+
+    // one stripe per bit of a long, so a set of stripes is a bit mask
+    private final ReentrantLock[] stripes = new ReentrantLock[1 << STRIPE_BITS];
+
+    /**
+     * Construct a new concurrent sheet.
+     * <p>
+     * A sheet should initially be populated in every cell with the defaultExpression.
+     *
+     * @param parser The parser instance used to create expressions.
+     * @param builtins A mapping of built-in identifiers to expressions.
+     * @param defaultExpression The default expression to load in every cell.
+     * @param rows Amount of rows for the new sheet.
+     * @param columns Amount of columns for the new sheet.
+     * @requires rows &gt; 0
+     * @requires columns &gt; 0 &amp;&amp; columns &lt;= {@link CellLocation#MAX_COLUMNS}
+     */
+    public ConcurrentSheet(Parser parser, Map<String, Expression> builtins,
+                           Expression defaultExpression, int rows, int columns) {
+        this(parser, builtins, defaultExpression, rows, columns, new SheetOptions());
+    }
+
+    ConcurrentSheet(Parser parser, Map<String, Expression> builtins,
+                    Expression defaultExpression, int rows, int columns, SheetOptions options) {
+        super(parser, builtins, defaultExpression, rows, columns, concurrent(options));
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * The given options with concurrent updates selected,
+     * so that the sheet publishes a snapshot after every modification from the start.
+     */
+    private static SheetOptions concurrent(SheetOptions options) {
+        SheetOptions concurrent = options.copy();
+        concurrent.concurrent = true;
+        return concurrent;
+    }
+
+    /**
+     * Insert many expressions into the sheet as a single transaction,
+     * see {@link Sheet#updateAll(Map)}.
+     * <p>
+     * May be called from multiple threads at once.
+     * Updates whose cells do not affect each other are recalculated in parallel.
+     *
+     * @param updates A mapping of cell locations to the expressions to insert at those locations.
+     * @param recorded Whether the update is remembered as an edit that may be undone.
+     * @return The cells whose formula or value changed.
+     * @throws TypeError If the evaluation of any inserted cell or any of their usages
+     *                  results in a TypeError being thrown.
+     */
+    @Override
+    ChangeSet updateAll(Map<CellLocation, Expression> updates, boolean recorded) throws TypeError {
+        if (updates.isEmpty()) {
+            return ChangeSet.empty();
+        }
+
+        ChangeSet changes;
+        long held = lockStripes(updates);
+        try {
+            Recalculation recalculation;
+            writer.lock();
+            try {
+                recalculation = prepare(updates, true);
+            } finally {
+                // nothing visible has changed yet, so there is nothing to publish
+                writer.unlock();
+            }
+            try {
+                recalculation.run();
+            } catch (TypeError | RuntimeException e) {
+                writer.lock();
+                try {
+                    discard(recalculation);
+                } finally {
+                    writer.unlock();
+                }
+                throw e;
+            }
+            writer.lock();
+            try {
+                changes = apply(recalculation, recorded);
+            } finally {
+                commit();
+            }
+        } finally {
+            unlockStripes(held);
+        }
+        notifyListeners(changes);
+        return changes;
+    }
+
+    /**
+     * Calculate the given cells, along with every out of date cell they transitively use.
+     * Waits for every update in progress to complete.
+     *
+     * @param cells The cells to calculate, or null to calculate every out of date cell.
+     * @throws TypeError If the calculation of any cell results in a TypeError being thrown.
+     */
+    @Override
+    void calculate(Collection<CellLocation> cells) throws TypeError {
+        lockStripes(-1L);
+        try {
+            super.calculate(cells);
+        } finally {
+            unlockStripes(-1L);
+        }
+    }
+
+    /**
+     * Clear the current sheet so that it contains the default formula in every cell.
+     * Waits for every update in progress to complete.
+     */
+    @Override
+    public void clear() {
+        lockStripes(-1L);
+        try {
+            super.clear();
+        } finally {
+            unlockStripes(-1L);
+        }
+    }
+
+    /**
+     * Update the dimensions of the spreadsheet, see {@link Sheet#updateDimensions(int, int)}.
+     * Waits for every update in progress to complete.
+     *
+     * @param rows New number of rows.
+     * @param columns New number of columns.
+     */
+    @Override
+    public void updateDimensions(int rows, int columns) {
+        lockStripes(-1L);
+        try {
+            super.updateDimensions(rows, columns);
+        } finally {
+            unlockStripes(-1L);
+        }
+    }
+
+    /**
+     * The number of rows for this spreadsheet as of the most recently completed modification.
+     * @return The number of rows for this spreadsheet.
+     */
+    @Override
+    public int getRows() {
+        return snapshot().getRows();
+    }
+
+    /**
+     * The number of columns for this spreadsheet as of the most recently completed modification.
+     * @return The number of columns for this spreadsheet.
+     */
+    @Override
+    public int getColumns() {
+        return snapshot().getColumns();
+    }
+
+    /**
+     * The value to render at this location as of the most recently completed update.
+     *
+     * @param row A row within the spreadsheet.
+     * @param column A column within the spreadsheet.
+     * @requires location is within the bounds (row/columns) of the spreadsheet.
+     * @return The value to render at this location.
+     */
+    @Override
+    public ViewElement valueAt(int row, int column) {
+        return snapshot().valueAt(row, column);
+    }
+
+    /**
+     * The formula to render at this location as of the most recently completed update.
+     *
+     * @param row A row within the spreadsheet.
+     * @param column A column within the spreadsheet.
+     * @requires location is within the bounds (row/columns) of the spreadsheet.
+     * @return The formula to render at this location.
+     */
+    @Override
+    public ViewElement formulaAt(int row, int column) {
+        return snapshot().formulaAt(row, column);
+    }
+
+    /**
+     * The formula expression stored at the location as of the most recently completed update.
+     *
+     * @param location A cell location within the spreadsheet.
+     * @requires location is within the bounds (row/columns) of the spreadsheet.
+     * @return The formula expression at the given cell location.
+     */
+    @Override
+    public Expression formulaAt(CellLocation location) {
+        return snapshot().formulaAt(location);
+    }
+
+    /**
+     * The value expression stored at the location as of the most recently completed update.
+     *
+     * @param location A cell location within the spreadsheet.
+     * @requires location is within the bounds (row/columns) of the spreadsheet.
+     * @return The value expression at the given cell location.
+     */
+    @Override
+    public Expression valueAt(CellLocation location) {
+        return snapshot().valueAt(location);
+    }
+
+    /**
+     * Determine which cells use the formula at the given cell location,
+     * see {@link Sheet#usedBy(CellLocation)}.
+     *
+     * @param location A cell location within the spreadsheet.
+     * @requires location is within the bounds (row/columns) of the spreadsheet.
+     * @return A copy of all the cells which use the given cell as a dependency.
+     */
+    @Override
+    public Set<CellLocation> usedBy(CellLocation location) {
+        writer.lock();
+        try {
+            return new HashSet<>(super.usedBy(location));
+        } finally {
+            writer.unlock();
+        }
+    }
+
+    /**
+     * Create a string representation of the current spreadsheet, see {@link Sheet#encode()}.
+     *
+     * @return The string representation of the current spreadsheet.
+     */
+    @Override
+    public String encode() {
+        writer.lock();
+        try {
+            return super.encode();
+        } finally {
+            writer.unlock();
+        }
+    }
+
+    /**
+     * Lock the stripes of every cell the given updates may read or modify.
+     * <p>
+     * The cells are found before their stripes are locked, so they are found again
+     * afterwards in case another update linked new usages in the meantime.
+     * Once the stripes of every found cell are held,
+     * no other update can change which cells are found.
+     *
+     * @return The stripes that were locked.
+     */
+    private long lockStripes(Map<CellLocation, Expression> updates) {
+        long held = 0;
+        while (true) {
+            long needed = held | stripesOf(updates);
+            if (needed == held) {
+                return held;
+            }
+            // stripes must be locked in ascending order, so start over with every stripe needed
+            unlockStripes(held);
+            lockStripes(needed);
+            held = needed;
+        }
+    }
+
+    private long stripesOf(Map<CellLocation, Expression> updates) {
+        long mask = 0;
+        writer.lock();
+        try {
+            for (CellLocation cell : footprint(updates)) {
+                mask |= 1L << stripe(cell);
+            }
+        } finally {
+            writer.unlock();
+        }
+        return mask;
+    }
+
+    private void lockStripes(long mask) {
+        for (int stripe = 0; stripe < stripes.length; stripe++) {
+            if ((mask & (1L << stripe)) != 0) {
+                stripes[stripe].lock();
+            }
+        }
+    }
+
+    private void unlockStripes(long mask) {
+        for (int stripe = stripes.length - 1; stripe >= 0; stripe--) {
+            if ((mask & (1L << stripe)) != 0) {
+                stripes[stripe].unlock();
+            }
+        }
+    }
+
+    private static int stripe(CellLocation cell) {
+        return (int) ((cell.pack() * 0x9E3779B97F4A7C15L) >>> (Long.SIZE - STRIPE_BITS));
+    }
+}
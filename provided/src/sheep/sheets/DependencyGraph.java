@@ -0,0 +1,311 @@
+package sheep.sheets;
+
+import java.util.Arrays;
+
+/**
+ * Graph of the usages between cells, from each cell to the cells whose formulas use it.
+ * <p>
+ * Cells are identified by their packed location (see {@link CellLocation#pack(int, int)})
+ * and are given a dense integer node index when they first take part in an edge.
+ * Node indexes stay the same until the graph is cleared.
+ * <p>
+ * Edges are kept in compressed sparse row form, that is, the outgoing edges of every node
+ * are stored contiguously in a single {@code int[]}. Edges inserted since the arrays
+ * were last built are kept in an overflow buffer, and removed edges are marked as such,
+ * so editing the graph never copies the arrays. Once enough edits have accumulated,
+ * the arrays are rebuilt the next time a node is looked up.
+ * <p>
+ * Outgoing edges are traversed with cursors:
+ * <pre>
+ * {@code
+ * for (int cursor = graph.first(node); cursor != DependencyGraph.END;
+ *         cursor = graph.next(node, cursor)) {
+ *     int usage = graph.target(cursor);
+ * }
+ * }</pre>
+ * Cursors are invalidated by modifying the graph or by {@link #node(long)}.
+ * <p>
+ * Edges are counted, an edge that has been added twice must be removed twice.
+ */
+class DependencyGraph {
+    /**
+     * The cursor after the last outgoing edge of a node.
+     */
+    static final int END = -1;
+
+    private static final int REMOVED = -1;
+    private static final int MIN_PENDING = 64;
+
+    // node index of every packed location, slots hold the node index plus one
+    private long[] slotKeys = new long[16];
+    private int[] slotNodes = new int[16];
+
+    private long[] keys = new long[16];
+    private int nodes;
+
+    // compressed rows, built for the first builtNodes nodes
+    private int[] offsets = new int[1];
+    private int[] targets = new int[0];
+    private int builtNodes;
+
+    // overflow edges, linked into a list per node
+    private int[] heads = new int[16];
+    private int[] overflowTargets = new int[16];
+    private int[] overflowNext = new int[16];
+    private int overflow;
+
+    private int removed;
+    private int edges;
+
+    /**
+     * Construct a new graph without any nodes.
+     */
+    DependencyGraph() {
+        Arrays.fill(heads, END);
+    }
+
+    /**
+     * Add an edge from a cell to a cell that uses it.
+     *
+     * @param from The packed location of the cell that is used.
+     * @param to The packed location of the cell that uses it.
+     */
+    void addEdge(long from, long to) {
+        int source = nodeOf(from);
+        int target = nodeOf(to);
+        if (overflow == overflowTargets.length) {
+            overflowTargets = Arrays.copyOf(overflowTargets, overflow * 2);
+            overflowNext = Arrays.copyOf(overflowNext, overflow * 2);
+        }
+        overflowTargets[overflow] = target;
+        overflowNext[overflow] = heads[source];
+        heads[source] = overflow;
+        overflow++;
+        edges++;
+    }
+
+    /**
+     * Remove an edge from a cell to a cell that uses it, if there is such an edge.
+     *
+     * @param from The packed location of the cell that is used.
+     * @param to The packed location of the cell that uses it.
+     */
+    void removeEdge(long from, long to) {
+        int source = find(from);
+        int target = find(to);
+        if (source < 0 || target < 0) {
+            return;
+        }
+        if (source < builtNodes) {
+            for (int i = offsets[source]; i < offsets[source + 1]; i++) {
+                if (targets[i] == target) {
+                    targets[i] = REMOVED;
+                    removed++;
+                    edges--;
+                    return;
+                }
+            }
+        }
+        for (int edge = heads[source]; edge != END; edge = overflowNext[edge]) {
+            if (overflowTargets[edge] == target) {
+                overflowTargets[edge] = REMOVED;
+                removed++;
+                edges--;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Remove every node and edge from the graph.
+     */
+    void clear() {
+        Arrays.fill(slotNodes, 0);
+        Arrays.fill(heads, 0, nodes, END);
+        nodes = 0;
+        offsets = new int[1];
+        targets = new int[0];
+        builtNodes = 0;
+        overflow = 0;
+        removed = 0;
+        edges = 0;
+    }
+
+    /**
+     * The amount of nodes in the graph, all node indexes are less than this amount.
+     *
+     * @return The amount of nodes in the graph.
+     */
+    int nodes() {
+        return nodes;
+    }
+
+    /**
+     * The node index of a cell, rebuilding the compressed rows if enough edits are pending.
+     *
+     * @param key The packed location of a cell.
+     * @return The node index of the cell, or -1 if the cell has never been part of an edge.
+     */
+    int node(long key) {
+        int pending = overflow + removed;
+        if (pending > MIN_PENDING && pending * 2 > edges) {
+            compact();
+        }
+        return find(key);
+    }
+
+    /**
+     * The packed location of a node.
+     *
+     * @param node A node index.
+     * @return The packed location of the cell the node represents.
+     */
+    long key(int node) {
+        return keys[node];
+    }
+
+    /**
+     * A cursor at the first outgoing edge of a node.
+     *
+     * @param node A node index.
+     * @return A cursor at the first edge, or {@link #END} if the node has no outgoing edges.
+     */
+    int first(int node) {
+        if (node < builtNodes) {
+            int cursor = skipRows(node, offsets[node]);
+            if (cursor != END) {
+                return cursor;
+            }
+        }
+        return skipOverflow(heads[node]);
+    }
+
+    /**
+     * A cursor at the outgoing edge of a node that follows the given cursor.
+     *
+     * @param node The node index the cursor was obtained for.
+     * @param cursor A cursor at an outgoing edge of the node.
+     * @return A cursor at the next edge, or {@link #END} if there are no more outgoing edges.
+     */
+    int next(int node, int cursor) {
+        if (cursor >= 0) {
+            int next = skipRows(node, cursor + 1);
+            if (next != END) {
+                return next;
+            }
+            return skipOverflow(heads[node]);
+        }
+        return skipOverflow(overflowNext[-cursor - 2]);
+    }
+
+    /**
+     * The node at the end of the edge a cursor is at.
+     *
+     * @param cursor A cursor at an edge.
+     * @return The node index that uses the node the edge starts at.
+     */
+    int target(int cursor) {
+        if (cursor >= 0) {
+            return targets[cursor];
+        }
+        return overflowTargets[-cursor - 2];
+    }
+
+    private int skipRows(int node, int index) {
+        for (int i = index; i < offsets[node + 1]; i++) {
+            if (targets[i] != REMOVED) {
+                return i;
+            }
+        }
+        return END;
+    }
+
+    private int skipOverflow(int edge) {
+        for (int i = edge; i != END; i = overflowNext[i]) {
+            if (overflowTargets[i] != REMOVED) {
+                return -i - 2;
+            }
+        }
+        return END;
+    }
+
+    /**
+     * Rebuild the compressed rows so that they contain every edge.
+     */
+    private void compact() {
+        int[] newOffsets = new int[nodes + 1];
+        for (int node = 0; node < nodes; node++) {
+            int degree = 0;
+            for (int cursor = first(node); cursor != END; cursor = next(node, cursor)) {
+                degree++;
+            }
+            newOffsets[node + 1] = newOffsets[node] + degree;
+        }
+        int[] newTargets = new int[newOffsets[nodes]];
+        for (int node = 0; node < nodes; node++) {
+            int index = newOffsets[node];
+            for (int cursor = first(node); cursor != END; cursor = next(node, cursor)) {
+                newTargets[index++] = target(cursor);
+            }
+            heads[node] = END;
+        }
+        offsets = newOffsets;
+        targets = newTargets;
+        builtNodes = nodes;
+        overflow = 0;
+        removed = 0;
+    }
+
+    private int find(long key) {
+        int mask = slotNodes.length - 1;
+        for (int slot = slot(key, mask); slotNodes[slot] != 0; slot = (slot + 1) & mask) {
+            if (slotKeys[slot] == key) {
+                return slotNodes[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    private int nodeOf(long key) {
+        int mask = slotNodes.length - 1;
+        int slot = slot(key, mask);
+        while (slotNodes[slot] != 0) {
+            if (slotKeys[slot] == key) {
+                return slotNodes[slot] - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int node = nodes++;
+        if (node == keys.length) {
+            keys = Arrays.copyOf(keys, node * 2);
+            heads = Arrays.copyOf(heads, node * 2);
+            Arrays.fill(heads, node, heads.length, END);
+        }
+        keys[node] = key;
+        slotKeys[slot] = key;
+        slotNodes[slot] = node + 1;
+        if (nodes * 4 > slotNodes.length * 3) {
+            rehash(slotNodes.length * 2);
+        }
+        return node;
+    }
+
+    private static int slot(long key, int mask) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32)) & mask;
+    }
+
+    private void rehash(int capacity) {
+        slotKeys = new long[capacity];
+        slotNodes = new int[capacity];
+        int mask = capacity - 1;
+        for (int node = 0; node < nodes; node++) {
+            int slot = slot(keys[node], mask);
+            while (slotNodes[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slotKeys[slot] = keys[node];
+            slotNodes[slot] = node + 1;
+        }
+    }
+}
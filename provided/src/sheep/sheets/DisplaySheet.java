@@ -5,7 +5,7 @@ import sheep.core.SheetView;
 import sheep.core.UpdateResponse;
 import sheep.core.ViewElement;
 import sheep.expression.Expression;
-import sheep.parsing.ParseException;
+import sheep.parsing.ParseResult;
 import sheep.parsing.Parser;
 
 import java.util.HashMap;
@@ -43,7 +43,7 @@ public class DisplaySheet implements SheetView, SheetUpdate {
         this.columns = columns;
         for (int row = 0; row < rows; row++) {
             for (int column = 0; column < columns; column++) {
-                contents.put(new CellLocation(row, column), defaultExpression);
+                contents.put(CellLocation.of(row, column), defaultExpression);
             }
         }
     }
@@ -74,13 +74,12 @@ public class DisplaySheet implements SheetView, SheetUpdate {
      */
     @Override
     public UpdateResponse update(int row, int column, String input) {
-        try {
-            Expression expr = parser.parse(input);
-            contents.put(new CellLocation(row, column), expr);
-            return UpdateResponse.success();
-        } catch (ParseException e) {
+        ParseResult parsed = parser.tryParse(input);
+        if (!parsed.isSuccess()) {
             return UpdateResponse.fail("Unable to parse: " + input);
         }
+        contents.put(CellLocation.of(row, column), parsed.getExpression());
+        return UpdateResponse.success();
     }
 
     /**
@@ -119,7 +118,7 @@ public class DisplaySheet implements SheetView, SheetUpdate {
      */
     @Override
     public ViewElement valueAt(int row, int column) {
-        Expression expr = contents.get(new CellLocation(row, column));
+        Expression expr = contents.get(CellLocation.of(row, column));
         return new ViewElement(expr.render(), "white", "black");
     }
 
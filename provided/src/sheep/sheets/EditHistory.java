@@ -0,0 +1,112 @@
+package sheep.sheets;
+
+import sheep.expression.Expression;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+
+/**
+ * The edits made to a sheet that may be undone or redone.
+ * <p>
+ * An edit only remembers the formulas of the cells it changed, before and after the edit,
+ * so recording an edit costs no more than the edit itself.
+ * Undoing an edit inserts the formulas from before the edit,
+ * which recalculates the same cells the edit did.
+ * <p>
+ * Only the most recent edits are remembered. The history may be used from multiple threads,
+ * as an edit is taken from the history before it is undone or redone and
+ * returned to the history afterwards.
+ */
+class EditHistory {
+    /**
+     * The amount of edits remembered by default.
+     */
+    static final int DEFAULT_LIMIT = 100;
+
+    /**
+     * An edit of the formulas of a sheet.
+     *
+     * @param before The formulas of the changed cells before the edit.
+     * @param after The formulas of the changed cells after the edit.
+     */
+    record Edit(Map<CellLocation, Expression> before, Map<CellLocation, Expression> after) {
+    }
+
+    private final int limit;
+    private final Deque<Edit> undoable = new ArrayDeque<>();
+    private final Deque<Edit> redoable = new ArrayDeque<>();
+
+    /**
+     * Construct a new empty history.
+     *
+     * @param limit The amount of edits that may be undone, older edits are forgotten.
+     * @requires limit &gt;= 0
+     */
+    EditHistory(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Remember a new edit, which may no longer be redone once it is undone.
+     * Every edit that could have been redone is forgotten.
+     *
+     * @param before The formulas of the changed cells before the edit.
+     * @param after The formulas of the changed cells after the edit.
+     */
+    synchronized void record(Map<CellLocation, Expression> before,
+                             Map<CellLocation, Expression> after) {
+        if (limit == 0) {
+            return;
+        }
+        pushUndo(new Edit(before, Map.copyOf(after)));
+        redoable.clear();
+    }
+
+    /**
+     * Take the most recent edit that may be undone.
+     *
+     * @return The edit, or null if there are none.
+     */
+    synchronized Edit takeUndo() {
+        return undoable.pollLast();
+    }
+
+    /**
+     * Take the most recently undone edit that may be redone.
+     *
+     * @return The edit, or null if there are none.
+     */
+    synchronized Edit takeRedo() {
+        return redoable.pollLast();
+    }
+
+    /**
+     * Return an edit to those that may be undone.
+     *
+     * @param edit An edit that was made or redone.
+     */
+    synchronized void pushUndo(Edit edit) {
+        undoable.addLast(edit);
+        if (undoable.size() > limit) {
+            undoable.removeFirst();
+        }
+    }
+
+    /**
+     * Return an edit to those that may be redone.
+     *
+     * @param edit An edit that was undone.
+     */
+    synchronized void pushRedo(Edit edit) {
+        redoable.addLast(edit);
+    }
+
+    /**
+     * Forget every edit.
+     */
+    synchronized void clear() {
+        undoable.clear();
+        redoable.clear();
+    }
+}
@@ -0,0 +1,249 @@
+package sheep.sheets;
+
+import sheep.expression.Expression;
+import sheep.expression.Folded;
+import sheep.expression.TypeError;
+import sheep.expression.aggregate.Aggregate;
+import sheep.expression.arithmetic.Arithmetic;
+import sheep.expression.basic.Constant;
+import sheep.expression.basic.Group;
+import sheep.expression.basic.Nothing;
+import sheep.expression.basic.Range;
+import sheep.expression.basic.Reference;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.ToLongFunction;
+
+/**
+ * Compiles arithmetic formulas into a tree of primitive closures.
+ * <p>
+ * Each node of the expression tree is turned into a {@link CompiledFormula}
+ * specialised for its operator. Cell references are resolved to their row and column
+ * once, at compile time, and read as a {@code long} when evaluated.
+ * Aggregates summarise their ranges through {@link NumberSource#summarize},
+ * so a source that indexes its values never reads every cell of a range.
+ * <p>
+ * Only the core expressions can be compiled. Formulas containing any other
+ * kind of expression, or a reference to a non-numeric built-in,
+ * are left to {@link Expression#evaluate(sheep.expression.ValueSource)}
+ * or {@link Expression#value(Map)}.
+ */
+class FormulaCompiler {
+    private final Map<String, Expression> builtins;
+
+    /**
+     * Construct a compiler resolving identifiers using the given built-ins.
+     *
+     * @param builtins A mapping of built-in identifiers to expressions.
+     */
+    FormulaCompiler(Map<String, Expression> builtins) {
+        this.builtins = builtins;
+    }
+
+    /**
+     * Compile a formula if it is worth compiling.
+     * Only arithmetic and aggregate formulas are compiled, as other formulas evaluate to
+     * either themselves or to the value of another cell.
+     * Folded formulas are compiled in their simplified form, and groups as what they group.
+     *
+     * @param formula The formula to compile.
+     * @return The compiled formula, or null if the formula cannot be compiled.
+     */
+    CompiledFormula compile(Expression formula) {
+        formula = Group.ungrouped(Folded.simplified(formula));
+        if (!(formula instanceof Arithmetic || formula instanceof Aggregate)) {
+            return null;
+        }
+        return compileNode(formula);
+    }
+
+    private CompiledFormula compileNode(Expression expression) {
+        if (expression.getClass() == Constant.class) {
+            long number = ((Constant) expression).getValue();
+            return cells -> number;
+        }
+        if (expression.getClass() == Nothing.class || expression.getClass() == Range.class) {
+            return cells -> {
+                throw new TypeError();
+            };
+        }
+        if (expression instanceof Group group) {
+            return compileNode(group.getInner());
+        }
+        if (expression.getClass() == Reference.class) {
+            return compileReference(((Reference) expression).getIdentifier());
+        }
+        if (expression instanceof Arithmetic arithmetic) {
+            return compileArithmetic(arithmetic);
+        }
+        if (expression instanceof Aggregate aggregate) {
+            return compileAggregate(aggregate);
+        }
+        return null;
+    }
+
+    private CompiledFormula compileReference(String identifier) {
+        Optional<CellLocation> location = CellLocation.maybeReference(identifier);
+        if (location.isPresent()) {
+            int row = location.get().getRow();
+            int column = location.get().getColumn();
+            return cells -> cells.number(row, column);
+        }
+        Expression builtin = builtins.get(identifier);
+        if (builtin == null) {
+            // unresolved references never have a numeric value
+            return cells -> {
+                throw new TypeError();
+            };
+        }
+        if (builtin.getClass() == Constant.class) {
+            long number = ((Constant) builtin).getValue();
+            return cells -> number;
+        }
+        return null;
+    }
+
+    private CompiledFormula compileArithmetic(Arithmetic arithmetic) {
+        Expression[] arguments = arithmetic.getArguments();
+        CompiledFormula[] compiled = new CompiledFormula[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            compiled[i] = compileNode(arguments[i]);
+            if (compiled[i] == null) {
+                return null;
+            }
+        }
+        return switch (arithmetic.getOperator()) {
+            case "+" -> plus(compiled);
+            case "-" -> minus(compiled);
+            case "*" -> times(compiled);
+            case "/" -> divide(compiled);
+            case "<" -> less(compiled);
+            case "=" -> equal(compiled);
+            default -> null;
+        };
+    }
+
+    private CompiledFormula compileAggregate(Aggregate aggregate) {
+        ToLongFunction<RangeSummary> result = switch (aggregate.getName()) {
+            case "SUM" -> RangeSummary::sum;
+            case "MIN" -> RangeSummary::min;
+            case "MAX" -> RangeSummary::max;
+            case "COUNT" -> RangeSummary::count;
+            case "AVG" -> RangeSummary::average;
+            default -> null;
+        };
+        if (result == null) {
+            return null;
+        }
+        // the first row and column, then the last row and column, of each range
+        List<int[]> ranges = new ArrayList<>();
+        List<CompiledFormula> scalars = new ArrayList<>();
+        for (Expression argument : aggregate.getArguments()) {
+            if (argument instanceof Range range) {
+                ranges.add(new int[] {range.getStart().getRow(), range.getStart().getColumn(),
+                        range.getEnd().getRow(), range.getEnd().getColumn()});
+                continue;
+            }
+            CompiledFormula compiled = compileNode(argument);
+            if (compiled == null) {
+                return null;
+            }
+            scalars.add(compiled);
+        }
+        int[][] corners = ranges.toArray(new int[0][]);
+        CompiledFormula[] arguments = scalars.toArray(new CompiledFormula[0]);
+        return cells -> {
+            RangeSummary summary = new RangeSummary();
+            for (int[] range : corners) {
+                cells.summarize(range[0], range[1], range[2], range[3], summary);
+            }
+            for (CompiledFormula argument : arguments) {
+                summary.add(argument.evaluate(cells));
+            }
+            return result.applyAsLong(summary);
+        };
+    }
+
+    private static CompiledFormula plus(CompiledFormula[] arguments) {
+        if (arguments.length == 2) {
+            CompiledFormula left = arguments[0];
+            CompiledFormula right = arguments[1];
+            return cells -> left.evaluate(cells) + right.evaluate(cells);
+        }
+        return cells -> {
+            long result = 0;
+            for (CompiledFormula argument : arguments) {
+                result += argument.evaluate(cells);
+            }
+            return result;
+        };
+    }
+
+    private static CompiledFormula minus(CompiledFormula[] arguments) {
+        return cells -> {
+            long result = arguments[0].evaluate(cells);
+            for (int i = 1; i < arguments.length; i++) {
+                result -= arguments[i].evaluate(cells);
+            }
+            return result;
+        };
+    }
+
+    private static CompiledFormula times(CompiledFormula[] arguments) {
+        return cells -> {
+            long result = 1;
+            for (CompiledFormula argument : arguments) {
+                result *= argument.evaluate(cells);
+            }
+            return result;
+        };
+    }
+
+    private static CompiledFormula divide(CompiledFormula[] arguments) {
+        return cells -> {
+            long result = arguments[0].evaluate(cells);
+            // every argument is evaluated before dividing so that type errors
+            // take precedence over division by zero, as in Arithmetic#value(Map)
+            boolean byZero = false;
+            for (int i = 1; i < arguments.length; i++) {
+                long divisor = arguments[i].evaluate(cells);
+                if (divisor == 0) {
+                    byZero = true;
+                } else if (!byZero) {
+                    result /= divisor;
+                }
+            }
+            if (byZero) {
+                throw new ArithmeticException("/ by zero");
+            }
+            return result;
+        };
+    }
+
+    private static CompiledFormula less(CompiledFormula[] arguments) {
+        return cells -> {
+            boolean increasing = true;
+            long previous = arguments[0].evaluate(cells);
+            for (int i = 1; i < arguments.length; i++) {
+                long next = arguments[i].evaluate(cells);
+                increasing &= previous < next;
+                previous = next;
+            }
+            return increasing ? 1 : 0;
+        };
+    }
+
+    private static CompiledFormula equal(CompiledFormula[] arguments) {
+        return cells -> {
+            boolean equal = true;
+            long first = arguments[0].evaluate(cells);
+            for (int i = 1; i < arguments.length; i++) {
+                equal &= first == arguments[i].evaluate(cells);
+            }
+            return equal ? 1 : 0;
+        };
+    }
+}
@@ -0,0 +1,194 @@
+package sheep.sheets;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from primitive {@code long} keys to values.
+ * <p>
+ * Keys are stored unboxed in an open addressing table with linear probing,
+ * so neither lookups nor insertions of existing keys allocate.
+ * It is used with cell locations packed by {@link CellLocation#pack(int, int)}.
+ * Null values are not permitted, {@link #get(long)} returns null for absent keys.
+ *
+ * @param <V> The type of values stored in the map.
+ */
+class LongMap<V> {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+
+    /**
+     * Construct a new empty map.
+     */
+    LongMap() {
+        keys = new long[INITIAL_CAPACITY];
+        values = new Object[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Consumer of the entries of a map.
+     *
+     * @param <V> The type of values stored in the map.
+     */
+    @FunctionalInterface
+    interface EntryConsumer<V> {
+        /**
+         * Accept an entry of the map.
+         *
+         * @param key The key of the entry.
+         * @param value The value of the entry.
+         */
+        void accept(long key, V value);
+    }
+
+    /**
+     * The amount of entries in this map.
+     *
+     * @return The amount of keys that are mapped to a value.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * The value mapped to the given key.
+     *
+     * @param key The key to look up.
+     * @return The value of the key, or null if the key is not in the map.
+     */
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        int slot = find(key);
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    /**
+     * Whether the given key is mapped to a value.
+     *
+     * @param key The key to look up.
+     * @return True if the key is in the map.
+     */
+    boolean containsKey(long key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Map the given key to a value, replacing any previous value.
+     *
+     * @param key The key to map.
+     * @param value The new value of the key.
+     * @requires value != null
+     * @return The previous value of the key, or null if the key was not in the map.
+     */
+    @SuppressWarnings("unchecked")
+    V put(long key, V value) {
+        int mask = values.length - 1;
+        int slot = slot(key, mask);
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        if (size * 4 > values.length * 3) {
+            resize(values.length * 2);
+        }
+        return null;
+    }
+
+    /**
+     * Remove the given key from the map.
+     *
+     * @param key The key to remove.
+     * @return The value the key was mapped to, or null if the key was not in the map.
+     */
+    @SuppressWarnings("unchecked")
+    V remove(long key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return null;
+        }
+        V previous = (V) values[slot];
+        int mask = values.length - 1;
+        // shift later entries of the probe sequence back into the gap
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (values[next] != null) {
+            int home = slot(keys[next], mask);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[gap] = null;
+        size--;
+        return previous;
+    }
+
+    /**
+     * Remove every entry from the map.
+     */
+    void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Perform the given action for every entry of the map, in no particular order.
+     * The map must not be modified by the action.
+     *
+     * @param action The action to perform on each entry.
+     */
+    @SuppressWarnings("unchecked")
+    void forEach(EntryConsumer<? super V> action) {
+        for (int slot = 0; slot < values.length; slot++) {
+            if (values[slot] != null) {
+                action.accept(keys[slot], (V) values[slot]);
+            }
+        }
+    }
+
+    private int find(long key) {
+        int mask = values.length - 1;
+        int slot = slot(key, mask);
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static int slot(long key, int mask) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32)) & mask;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = slot(oldKeys[i], mask);
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
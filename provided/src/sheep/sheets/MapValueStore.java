@@ -0,0 +1,72 @@
+package sheep.sheets;
+
+import sheep.expression.Expression;
+import sheep.expression.TypeError;
+
+/**
+ * Value store that keeps a value expression per packed cell location in a hash map.
+ * <p>
+ * When a fallback expression is given, cells holding an expression equal to the fallback
+ * are not stored at all.
+ */
+class MapValueStore implements ValueStore {
+    private final PersistentLongMap<Expression> values;
+    private final Expression fallback;
+
+    /**
+     * Construct a new empty map value store.
+     *
+     * @param fallback The value of cells that have not been assigned,
+     *                 or null if such cells have no value.
+     */
+    MapValueStore(Expression fallback) {
+        this(new PersistentLongMap<>(), fallback);
+    }
+
+    private MapValueStore(PersistentLongMap<Expression> values, Expression fallback) {
+        this.values = values;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public Expression get(int row, int column) {
+        Expression value = values.get(CellLocation.pack(row, column));
+        if (value == null) {
+            return fallback;
+        }
+        return value;
+    }
+
+    @Override
+    public void put(int row, int column, Expression value) {
+        if (fallback != null && fallback.equals(value)) {
+            values.remove(CellLocation.pack(row, column));
+        } else {
+            values.put(CellLocation.pack(row, column), value);
+        }
+    }
+
+    @Override
+    public long number(int row, int column) throws TypeError {
+        Expression value = get(row, column);
+        if (value == null) {
+            throw new TypeError();
+        }
+        return value.value();
+    }
+
+    @Override
+    public String render(int row, int column) {
+        return get(row, column).render();
+    }
+
+    @Override
+    public void clear() {
+        values.clear();
+    }
+
+    @Override
+    public ValueStore snapshot() {
+        return new MapValueStore(values.snapshot(), fallback);
+    }
+}
@@ -0,0 +1,47 @@
+package sheep.sheets;
+
+import sheep.expression.TypeError;
+
+/**
+ * Source of the numeric values of cells, addressed by row and column.
+ *
+ * @see CompiledFormula
+ */
+@FunctionalInterface
+interface NumberSource {
+    /**
+     * The numeric value of the cell at the given row and column.
+     *
+     * @param row A row within the spreadsheet.
+     * @param column A column within the spreadsheet.
+     * @return The numeric value of the given cell.
+     * @throws TypeError If the cell has no value or the value is not numeric.
+     */
+    long number(int row, int column) throws TypeError;
+
+    /**
+     * Include the numeric values of a rectangular range of cells in a summary,
+     * cells without a numeric value are skipped.
+     * <p>
+     * By default, every cell in the range is read,
+     * sources that index their values may summarise a range without doing so.
+     *
+     * @param fromRow The first row of the range.
+     * @param fromColumn The first column of the range.
+     * @param toRow The last row of the range, inclusive.
+     * @param toColumn The last column of the range, inclusive.
+     * @param summary The summary to include the values in.
+     */
+    default void summarize(int fromRow, int fromColumn, int toRow, int toColumn,
+                           RangeSummary summary) {
+        for (int column = fromColumn; column <= toColumn; column++) {
+            for (int row = fromRow; row <= toRow; row++) {
+                try {
+                    summary.add(number(row, column));
+                } catch (TypeError ignored) {
+                    // cells without a numeric value are skipped
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package sheep.sheets;
+
+/**
+ * A hash map from primitive {@code long} keys to values that can be copied in constant time.
+ * <p>
+ * The map is a hash array mapped trie: each node branches on five bits of the
+ * mixed key and stores entries inline until two keys share a branch.
+ * {@link #snapshot()} returns an immutable map that shares every node with this map.
+ * Afterwards, this map copies the nodes along the path to any entry it modifies
+ * rather than modifying them in place, so the snapshot never changes.
+ * Nodes created since the last snapshot are owned by this map and modified in place,
+ * so a series of modifications between snapshots only copies each node once.
+ * <p>
+ * Null values are not permitted, {@link #get(long)} returns null for absent keys.
+ *
+ * @param <V> The type of values stored in the map.
+ */
+class PersistentLongMap<V> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final long[] NO_KEYS = new long[0];
+    private static final Object[] NO_VALUES = new Object[0];
+
+    private Node root;
+    private int size;
+    // nodes owned by this token may be modified in place, null if the map is immutable
+    private Object owner;
+    private Object removed;
+
+    /**
+     * Construct a new empty map.
+     */
+    PersistentLongMap() {
+        this.owner = new Object();
+        this.root = new Node(owner);
+    }
+
+    private PersistentLongMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+        this.owner = null;
+    }
+
+    private static final class Node {
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private final Object owner;
+        private int dataMap;
+        private int nodeMap;
+        private long[] keys = NO_KEYS;
+        private Object[] values = NO_VALUES;
+        private Node[] children = NO_CHILDREN;
+
+        private Node(Object owner) {
+            this.owner = owner;
+        }
+
+        private Node copy(Object owner) {
+            Node copy = new Node(owner);
+            copy.dataMap = dataMap;
+            copy.nodeMap = nodeMap;
+            copy.keys = keys.clone();
+            copy.values = values.clone();
+            copy.children = children.clone();
+            return copy;
+        }
+
+        private int dataIndex(int bit) {
+            return Integer.bitCount(dataMap & (bit - 1));
+        }
+
+        private int nodeIndex(int bit) {
+            return Integer.bitCount(nodeMap & (bit - 1));
+        }
+    }
+
+    /**
+     * An immutable copy of this map, made in constant time.
+     * Later changes to this map do not affect the copy.
+     *
+     * @return An immutable map with the same entries as this map.
+     */
+    PersistentLongMap<V> snapshot() {
+        if (owner == null) {
+            return this;
+        }
+        // nodes reachable from the snapshot must no longer be modified in place
+        owner = new Object();
+        return new PersistentLongMap<>(root, size);
+    }
+
+    /**
+     * The amount of entries in this map.
+     *
+     * @return The amount of keys that are mapped to a value.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * The value mapped to the given key.
+     *
+     * @param key The key to look up.
+     * @return The value of the key, or null if the key is not in the map.
+     */
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        long hash = mix(key);
+        Node node = root;
+        for (int shift = 0; ; shift += BITS) {
+            int bit = bit(hash, shift);
+            if ((node.dataMap & bit) != 0) {
+                int index = node.dataIndex(bit);
+                return node.keys[index] == key ? (V) node.values[index] : null;
+            }
+            if ((node.nodeMap & bit) == 0) {
+                return null;
+            }
+            node = node.children[node.nodeIndex(bit)];
+        }
+    }
+
+    /**
+     * Whether the given key is mapped to a value.
+     *
+     * @param key The key to look up.
+     * @return True if the key is in the map.
+     */
+    boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Map the given key to a value, replacing any previous value.
+     *
+     * @param key The key to map.
+     * @param value The new value of the key.
+     * @requires value != null
+     * @return The previous value of the key, or null if the key was not in the map.
+     * @throws UnsupportedOperationException If this map is a snapshot.
+     */
+    @SuppressWarnings("unchecked")
+    V put(long key, V value) {
+        checkMutable();
+        removed = null;
+        root = put(root, key, mix(key), 0, value);
+        if (removed == null) {
+            size++;
+        }
+        V previous = (V) removed;
+        removed = null;
+        return previous;
+    }
+
+    /**
+     * Remove the given key from the map.
+     *
+     * @param key The key to remove.
+     * @return The value the key was mapped to, or null if the key was not in the map.
+     * @throws UnsupportedOperationException If this map is a snapshot.
+     */
+    @SuppressWarnings("unchecked")
+    V remove(long key) {
+        checkMutable();
+        removed = null;
+        root = remove(root, key, mix(key), 0);
+        if (removed != null) {
+            size--;
+        }
+        V previous = (V) removed;
+        removed = null;
+        return previous;
+    }
+
+    /**
+     * Remove every entry from the map.
+     *
+     * @throws UnsupportedOperationException If this map is a snapshot.
+     */
+    void clear() {
+        checkMutable();
+        root = new Node(owner);
+        size = 0;
+    }
+
+    /**
+     * Perform the given action for every entry of the map, in no particular order.
+     * The map must not be modified by the action.
+     *
+     * @param action The action to perform on each entry.
+     */
+    void forEach(LongMap.EntryConsumer<? super V> action) {
+        forEach(root, action);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> void forEach(Node node, LongMap.EntryConsumer<? super V> action) {
+        for (int i = 0; i < node.keys.length; i++) {
+            action.accept(node.keys[i], (V) node.values[i]);
+        }
+        for (Node child : node.children) {
+            forEach(child, action);
+        }
+    }
+
+    private void checkMutable() {
+        if (owner == null) {
+            throw new UnsupportedOperationException("Snapshots cannot be modified");
+        }
+    }
+
+    private Node editable(Node node) {
+        return node.owner == owner ? node : node.copy(owner);
+    }
+
+    private Node put(Node node, long key, long hash, int shift, V value) {
+        int bit = bit(hash, shift);
+        if ((node.dataMap & bit) != 0) {
+            int index = node.dataIndex(bit);
+            if (node.keys[index] == key) {
+                Node edited = editable(node);
+                removed = edited.values[index];
+                edited.values[index] = value;
+                return edited;
+            }
+            // two keys share this branch, move both into a new child
+            Node child = merge(node.keys[index], node.values[index], key, hash, value, shift + BITS);
+            Node edited = editable(node);
+            removeData(edited, bit, index);
+            insertChild(edited, bit, child);
+            return edited;
+        }
+        if ((node.nodeMap & bit) != 0) {
+            int index = node.nodeIndex(bit);
+            Node child = node.children[index];
+            Node updated = put(child, key, hash, shift + BITS, value);
+            if (updated == child) {
+                return node;
+            }
+            Node edited = editable(node);
+            edited.children[index] = updated;
+            return edited;
+        }
+        Node edited = editable(node);
+        insertData(edited, bit, key, value);
+        return edited;
+    }
+
+    private Node merge(long existingKey, Object existingValue,
+                       long key, long hash, Object value, int shift) {
+        Node node = new Node(owner);
+        long existingHash = mix(existingKey);
+        int existingBit = bit(existingHash, shift);
+        int bit = bit(hash, shift);
+        if (existingBit == bit) {
+            Node child = merge(existingKey, existingValue, key, hash, value, shift + BITS);
+            insertChild(node, bit, child);
+        } else {
+            insertData(node, existingBit, existingKey, existingValue);
+            insertData(node, bit, key, value);
+        }
+        return node;
+    }
+
+    private Node remove(Node node, long key, long hash, int shift) {
+        int bit = bit(hash, shift);
+        if ((node.dataMap & bit) != 0) {
+            int index = node.dataIndex(bit);
+            if (node.keys[index] != key) {
+                return node;
+            }
+            removed = node.values[index];
+            Node edited = editable(node);
+            removeData(edited, bit, index);
+            return edited;
+        }
+        if ((node.nodeMap & bit) == 0) {
+            return node;
+        }
+        int index = node.nodeIndex(bit);
+        Node child = node.children[index];
+        Node updated = remove(child, key, hash, shift + BITS);
+        if (updated == child) {
+            return node;
+        }
+        Node edited = editable(node);
+        if (updated.nodeMap == 0 && updated.keys.length <= 1) {
+            // inline a child with a single entry, or drop an empty child
+            removeChild(edited, bit, index);
+            if (updated.keys.length == 1) {
+                insertData(edited, bit, updated.keys[0], updated.values[0]);
+            }
+        } else {
+            edited.children[index] = updated;
+        }
+        return edited;
+    }
+
+    private static void insertData(Node node, int bit, long key, Object value) {
+        int index = node.dataIndex(bit);
+        int length = node.keys.length;
+        long[] keys = new long[length + 1];
+        Object[] values = new Object[length + 1];
+        System.arraycopy(node.keys, 0, keys, 0, index);
+        System.arraycopy(node.values, 0, values, 0, index);
+        keys[index] = key;
+        values[index] = value;
+        System.arraycopy(node.keys, index, keys, index + 1, length - index);
+        System.arraycopy(node.values, index, values, index + 1, length - index);
+        node.keys = keys;
+        node.values = values;
+        node.dataMap |= bit;
+    }
+
+    private static void removeData(Node node, int bit, int index) {
+        int length = node.keys.length;
+        long[] keys = new long[length - 1];
+        Object[] values = new Object[length - 1];
+        System.arraycopy(node.keys, 0, keys, 0, index);
+        System.arraycopy(node.values, 0, values, 0, index);
+        System.arraycopy(node.keys, index + 1, keys, index, length - index - 1);
+        System.arraycopy(node.values, index + 1, values, index, length - index - 1);
+        node.keys = keys;
+        node.values = values;
+        node.dataMap &= ~bit;
+    }
+
+    private static void insertChild(Node node, int bit, Node child) {
+        int index = node.nodeIndex(bit);
+        int length = node.children.length;
+        Node[] children = new Node[length + 1];
+        System.arraycopy(node.children, 0, children, 0, index);
+        children[index] = child;
+        System.arraycopy(node.children, index, children, index + 1, length - index);
+        node.children = children;
+        node.nodeMap |= bit;
+    }
+
+    private static void removeChild(Node node, int bit, int index) {
+        int length = node.children.length;
+        Node[] children = new Node[length - 1];
+        System.arraycopy(node.children, 0, children, 0, index);
+        System.arraycopy(node.children, index + 1, children, index, length - index - 1);
+        node.children = children;
+        node.nodeMap &= ~bit;
+    }
+
+    private static int bit(long hash, int shift) {
+        return 1 << ((int) (hash >>> shift) & MASK);
+    }
+
+    /**
+     * Mix the bits of a key. Multiplying by an odd constant is a bijection,
+     * so distinct keys always differ somewhere in their mixed bits.
+     */
+    private static long mix(long key) {
+        return key * 0x9E3779B97F4A7C15L;
+    }
+}
@@ -0,0 +1,167 @@
+package sheep.sheets;
+
+import sheep.expression.Expression;
+import sheep.expression.Folded;
+import sheep.expression.TypeError;
+import sheep.expression.aggregate.Aggregate;
+import sheep.expression.arithmetic.Arithmetic;
+import sheep.expression.basic.Group;
+import sheep.expression.basic.Nothing;
+import sheep.expression.basic.Range;
+
+import java.util.Arrays;
+
+/**
+ * The {@link ColumnIndex} of every column of a sheet that a compiled aggregate formula reads.
+ * <p>
+ * A column is only indexed once a formula that aggregates a range of it is compiled,
+ * so sheets without aggregates pay nothing for the index.
+ * Afterwards, the index is updated whenever a value in the column is stored,
+ * and kept until the sheet is cleared.
+ * <p>
+ * Columns are only indexed and values only stored while holding the writer lock of the sheet,
+ * whereas indexed columns may be summarised from any thread.
+ */
+class RangeIndex {
+    private final ValueStore values;
+    private int rows;
+    // replaced rather than modified, so it may be read without holding the writer lock
+    private volatile ColumnIndex[] columns = new ColumnIndex[0];
+
+    /**
+     * Construct an index of the given values where no column is indexed.
+     *
+     * @param values The values of the sheet.
+     * @param rows The amount of rows in the sheet.
+     */
+    RangeIndex(ValueStore values, int rows) {
+        this.values = values;
+        this.rows = rows;
+    }
+
+    /**
+     * Index every column that the given formula aggregates a range of.
+     *
+     * @param formula A formula that has been compiled.
+     */
+    void track(Expression formula) {
+        formula = Group.ungrouped(Folded.simplified(formula));
+        if (formula instanceof Aggregate aggregate) {
+            for (Expression argument : aggregate.getArguments()) {
+                if (argument instanceof Range range) {
+                    for (int column = range.getStart().getColumn();
+                            column <= range.getEnd().getColumn(); column++) {
+                        track(column);
+                    }
+                } else {
+                    track(argument);
+                }
+            }
+        } else if (formula instanceof Arithmetic arithmetic) {
+            for (Expression argument : arithmetic.getArguments()) {
+                track(argument);
+            }
+        }
+    }
+
+    private void track(int column) {
+        ColumnIndex[] tracked = columns;
+        if (column < tracked.length && tracked[column] != null) {
+            return;
+        }
+        tracked = Arrays.copyOf(tracked, Math.max(tracked.length, column + 1));
+        tracked[column] = build(column);
+        columns = tracked;
+    }
+
+    /**
+     * Whether any column is indexed.
+     * @return True if no column is indexed.
+     */
+    boolean isEmpty() {
+        return columns.length == 0;
+    }
+
+    /**
+     * The index of a column.
+     *
+     * @param column A column within the sheet.
+     * @return The index of the column, or null if the column is not indexed.
+     */
+    ColumnIndex column(int column) {
+        ColumnIndex[] tracked = columns;
+        return column < tracked.length ? tracked[column] : null;
+    }
+
+    /**
+     * Update the index of a cell after a new value is stored in it.
+     *
+     * @param row A row within the sheet.
+     * @param column A column within the sheet.
+     * @param value The new value of the cell.
+     */
+    void put(int row, int column, Expression value) {
+        ColumnIndex index = column(column);
+        if (index == null || row >= index.size()) {
+            return;
+        }
+        if (isNumeric(value)) {
+            try {
+                index.set(row, value.value(), true);
+                return;
+            } catch (TypeError ignored) {
+                // not numeric after all
+            }
+        }
+        index.set(row, 0, false);
+    }
+
+    /**
+     * Index the indexed columns again for a new amount of rows.
+     *
+     * @param rows The new amount of rows in the sheet.
+     */
+    void resize(int rows) {
+        this.rows = rows;
+        ColumnIndex[] tracked = columns.clone();
+        for (int column = 0; column < tracked.length; column++) {
+            if (tracked[column] != null) {
+                tracked[column] = build(column);
+            }
+        }
+        columns = tracked;
+    }
+
+    /**
+     * Stop indexing every column.
+     */
+    void clear() {
+        columns = new ColumnIndex[0];
+    }
+
+    private ColumnIndex build(int column) {
+        long[] numbers = new long[rows];
+        boolean[] numeric = new boolean[rows];
+        for (int row = 0; row < rows; row++) {
+            Expression value = values.get(row, column);
+            if (!isNumeric(value)) {
+                continue;
+            }
+            try {
+                numbers[row] = value.value();
+                numeric[row] = true;
+            } catch (TypeError ignored) {
+                // cells without a numeric value are not included in any summary
+            }
+        }
+        return new ColumnIndex(numbers, numeric);
+    }
+
+    /**
+     * Whether a value may be numeric, most cells without a numeric value are empty
+     * and are ruled out here without throwing a type error.
+     */
+    private static boolean isNumeric(Expression value) {
+        return value != null && !(value instanceof Nothing);
+    }
+}
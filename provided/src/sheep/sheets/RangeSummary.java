@@ -0,0 +1,82 @@
+package sheep.sheets;
+
+/**
+ * The amount, total, smallest and largest of some numeric values,
+ * accumulated a value or a summary of many values at a time.
+ * <p>
+ * A summary is all that is needed to calculate any aggregate function,
+ * so the values of a range of cells never need to be gathered.
+ */
+final class RangeSummary {
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    /**
+     * Include a single value in the summary.
+     *
+     * @param value A numeric value.
+     */
+    void add(long value) {
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Include the summary of many values in the summary.
+     *
+     * @param count The amount of values.
+     * @param sum The total of the values.
+     * @param min The smallest value, or {@link Long#MAX_VALUE} if there are none.
+     * @param max The largest value, or {@link Long#MIN_VALUE} if there are none.
+     */
+    void add(long count, long sum, long min, long max) {
+        this.count += count;
+        this.sum += sum;
+        this.min = Math.min(this.min, min);
+        this.max = Math.max(this.max, max);
+    }
+
+    /**
+     * The amount of values summarised.
+     * @return The amount of values.
+     */
+    long count() {
+        return count;
+    }
+
+    /**
+     * The total of the values summarised.
+     * @return The total of the values, or 0 if there are none.
+     */
+    long sum() {
+        return sum;
+    }
+
+    /**
+     * The smallest of the values summarised.
+     * @return The smallest value, or 0 if there are none.
+     */
+    long min() {
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     * The largest of the values summarised.
+     * @return The largest value, or 0 if there are none.
+     */
+    long max() {
+        return count == 0 ? 0 : max;
+    }
+
+    /**
+     * The mean of the values summarised, rounded towards zero.
+     * @return The mean value, or 0 if there are none.
+     */
+    long average() {
+        return count == 0 ? 0 : sum / count;
+    }
+}
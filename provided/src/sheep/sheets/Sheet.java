@@ -1,15 +1,27 @@
 package sheep.sheets;
 
+import sheep.core.ChangeListener;
 import sheep.core.SheetUpdate;
 import sheep.core.SheetView;
 import sheep.core.UpdateResponse;
 import sheep.core.ViewElement;
 import sheep.expression.Expression;
+import sheep.expression.Folded;
 import sheep.expression.TypeError;
-import sheep.parsing.ParseException;
+import sheep.expression.ValueSource;
+import sheep.expression.arithmetic.Arithmetic;
+import sheep.expression.basic.Constant;
+import sheep.expression.basic.Group;
+import sheep.parsing.BulkParser;
+import sheep.parsing.ParseResult;
 import sheep.parsing.Parser;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Spreadsheet that evaluates its expressions and updates dependant cells.
@@ -23,16 +35,33 @@ import java.util.*;
  */
 public class Sheet implements SheetView, SheetUpdate {
 
-    private final Map<CellLocation, Expression> formulas = new HashMap<>();
-    private final Map<CellLocation, Expression> values = new HashMap<>();
-    private final Map<CellLocation, Set<CellLocation>> usages = new HashMap<>();
+    private final PersistentLongMap<Expression> formulas = new PersistentLongMap<>();
+    private final ValueStore values;
+    private final RangeIndex ranges;
+    private final DependencyGraph usages = new DependencyGraph();
+    private final Map<CellLocation, Set<CellLocation>> closures = new HashMap<>();
+    // formulas whose usages are linked but which are not yet inserted, only if closures are cached
+    private final LongMap<Expression> linked = new LongMap<>();
+    private final LongMap<CompiledFormula> compiled = new LongMap<>();
+    private final EditHistory history = new EditHistory(EditHistory.DEFAULT_LIMIT);
+    // cells whose value is out of date, only in lazy and manual calculation modes
+    private final PersistentLongMap<CellLocation> stale = new PersistentLongMap<>();
+    private volatile CalculationMode calculationMode;
+    private final List<SheetListener> listeners = new CopyOnWriteArrayList<>();
     private final Map<String, Expression> builtins;
+    private final FormulaCompiler compiler;
+    private final SheetOptions options;
     private final Expression defaultExpression;
     private int rows;
     private int columns;
 
     private final Parser parser;
 
+    // held while the sheet is modified, readers take snapshots without waiting for it
+    final ReentrantLock writer = new ReentrantLock();
+    private volatile SheetSnapshot published;
+    private volatile boolean snapshotting;
+
     /**
      * Construct a new instance of the sheet class.
      * <p>
@@ -44,15 +73,45 @@ public class Sheet implements SheetView, SheetUpdate {
      * @param rows Amount of rows for the new sheet.
      * @param columns Amount of columns for the new sheet.
      * @requires rows &gt; 0
-     * @requires columns &gt; 0 &amp;&amp; columns &lt; 26
+     * @requires columns &gt; 0 &amp;&amp; columns &lt;= {@link CellLocation#MAX_COLUMNS}
      */
     protected Sheet(Parser parser, Map<String, Expression> builtins,
           Expression defaultExpression, int rows, int columns) {
+        this(parser, builtins, defaultExpression, rows, columns, new SheetOptions());
+    }
+
+    /**
+     * Construct a new instance of the sheet class with the given options.
+     *
+     * @param parser The parser instance used to create expressions.
+     * @param builtins A mapping of built-in identifiers to expressions.
+     * @param defaultExpression The default expression to load in every cell.
+     * @param rows Amount of rows for the new sheet.
+     * @param columns Amount of columns for the new sheet.
+     * @param options Optional behaviour of the new sheet.
+     * @requires rows &gt; 0
+     * @requires columns &gt; 0 &amp;&amp; columns &lt;= {@link CellLocation#MAX_COLUMNS}
+     */
+    Sheet(Parser parser, Map<String, Expression> builtins,
+          Expression defaultExpression, int rows, int columns, SheetOptions options) {
         this.parser = parser;
         this.rows = rows;
         this.columns = columns;
         this.defaultExpression = defaultExpression;
         this.builtins = new HashMap<>(builtins);
+        this.compiler = new FormulaCompiler(this.builtins);
+        this.options = options;
+        this.calculationMode = options.calculationMode;
+        // concurrent sheets answer reads from snapshots, published after every modification
+        this.snapshotting = options.concurrent;
+        // sparse sheets store nothing for cells holding the default expression
+        Expression absent = options.sparse ? defaultExpression : null;
+        if (options.columnarValues) {
+            this.values = new ColumnarValueStore(defaultExpression, absent, columns);
+        } else {
+            this.values = new MapValueStore(absent);
+        }
+        this.ranges = new RangeIndex(values, rows);
         this.populate();
     }
 
@@ -61,22 +120,161 @@ public class Sheet implements SheetView, SheetUpdate {
      * formula in every cell.
      */
     public void clear() {
-        populate();
+        writer.lock();
+        try {
+            formulas.clear();
+            values.clear();
+            usages.clear();
+            closures.clear();
+            linked.clear();
+            compiled.clear();
+            ranges.clear();
+            history.clear();
+            stale.clear();
+            populate();
+        } finally {
+            commit();
+        }
+        notifyListeners(ChangeSet.structural());
+    }
+
+    /**
+     * Register a listener that is called with the cells that changed
+     * whenever the sheet is modified.
+     *
+     * @param listener The listener to call.
+     */
+    public void addListener(SheetListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Stop calling a listener that was registered with {@link #addListener(SheetListener)}.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeListener(SheetListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Register a listener that is notified of the cells that change whenever the sheet
+     * is modified, see {@link #addListener(SheetListener)}.
+     *
+     * @param listener The listener to notify of changes.
+     * @return True, as sheets always report their changes.
+     */
+    @Override
+    public boolean addChangeListener(ChangeListener listener) {
+        addListener(changes -> {
+            if (changes.isStructural()) {
+                listener.sheetChanged();
+                return;
+            }
+            Set<CellLocation> changed = changes.getChanged();
+            int[] changedRows = new int[changed.size()];
+            int[] changedColumns = new int[changed.size()];
+            int i = 0;
+            for (CellLocation cell : changed) {
+                changedRows[i] = cell.getRow();
+                changedColumns[i] = cell.getColumn();
+                i++;
+            }
+            listener.cellsChanged(changedRows, changedColumns);
+        });
+        return true;
+    }
+
+    /**
+     * Call every listener with the changes of a modification,
+     * called once the modification has completed and the sheet is unlocked.
+     */
+    void notifyListeners(ChangeSet changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        for (SheetListener listener : listeners) {
+            listener.changed(changes);
+        }
+    }
+
+    /**
+     * An immutable view of the formulas and values of the sheet as of the most recently
+     * completed modification, taken in constant time.
+     * <p>
+     * Once a snapshot has been taken, every modification of the sheet publishes a new
+     * snapshot as it completes, so this method never waits for a modification in progress
+     * on another thread and a snapshot never contains part of a modification.
+     * Only the first call waits for a modification in progress to complete.
+     * Snapshots may be read from any thread while the sheet is updated.
+     *
+     * @return A snapshot of the sheet.
+     */
+    @Override
+    public SheetSnapshot snapshot() {
+        if (!snapshotting || published == null) {
+            writer.lock();
+            try {
+                // the first snapshot is taken here rather than by the constructor, so it never
+                // captures a partially constructed subclass; otherwise a modification on this
+                // thread is still in progress if the lock was already held
+                if (published == null || (!snapshotting && writer.getHoldCount() == 1)) {
+                    publish();
+                }
+                snapshotting = true;
+            } finally {
+                writer.unlock();
+            }
+        }
+        return published;
+    }
+
+    /**
+     * Publish a snapshot if snapshots are being taken and release the writer lock,
+     * called once a modification has completed.
+     */
+    void commit() {
+        if (snapshotting && writer.getHoldCount() == 1) {
+            publish();
+        }
+        writer.unlock();
+    }
+
+    private void publish() {
+        published = new SheetSnapshot(this, formulas.snapshot(), values.snapshot(),
+                stale.snapshot(), calculationMode == CalculationMode.LAZY,
+                options.sparse ? defaultExpression : null, builtins, rows, columns);
+    }
+
+    /**
+     * Style the rendered value of a cell for display.
+     * Must only depend on the given content, as it is also used to style snapshots.
+     *
+     * @param content The rendered value of a cell.
+     * @return The view element used to display the value.
+     */
+    protected ViewElement renderValue(String content) {
+        return new ViewElement(content, "white", "black");
     }
 
     private void populate() {
+        if (options.sparse) {
+            return;
+        }
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < columns; j++) {
-                CellLocation location = new CellLocation(i, j);
-                populate(location);
+                populate(i, j);
             }
         }
     }
 
-    private void populate(CellLocation location) {
-        values.put(location, defaultExpression);
-        formulas.put(location, defaultExpression);
-        usages.put(location, new HashSet<>());
+    private void populate(int row, int column) {
+        long key = CellLocation.pack(row, column);
+        if (options.sparse || formulas.containsKey(key)) {
+            return;
+        }
+        values.put(row, column, defaultExpression);
+        formulas.put(key, defaultExpression);
     }
 
     /**
@@ -89,18 +287,27 @@ public class Sheet implements SheetView, SheetUpdate {
      * @param columns New number of columns.
      */
     public void updateDimensions(int rows, int columns) {
-        for (int newRow = 0; newRow < rows - this.rows; newRow++) {
-            for (int column = 0; column < columns; column++) {
-                populate(new CellLocation(newRow + this.rows, column));
+        writer.lock();
+        try {
+            for (int newRow = 0; newRow < rows - this.rows; newRow++) {
+                for (int column = 0; column < columns; column++) {
+                    populate(newRow + this.rows, column);
+                }
             }
-        }
-        for (int newCol = 0; newCol < columns - this.columns; newCol++) {
-            for (int row = 0; row < columns; row++) {
-                populate(new CellLocation(row, newCol + this.columns));
+            for (int newCol = 0; newCol < columns - this.columns; newCol++) {
+                for (int row = 0; row < rows; row++) {
+                    populate(row, newCol + this.columns);
+                }
             }
+            this.rows = rows;
+            this.columns = columns;
+            ranges.resize(rows);
+            // edits of removed cells can no longer be undone
+            history.clear();
+        } finally {
+            commit();
         }
-        this.rows = rows;
-        this.columns = columns;
+        notifyListeners(ChangeSet.structural());
     }
 
     /**
@@ -148,7 +355,10 @@ public class Sheet implements SheetView, SheetUpdate {
      */
     @Override
     public ViewElement valueAt(int row, int column) {
-        return new ViewElement(valueAt(new CellLocation(row, column)).render(), "white", "black");
+        if (calculationMode == CalculationMode.LAZY) {
+            return renderValue(calculatedValue(CellLocation.of(row, column)).render());
+        }
+        return renderValue(values.render(row, column));
     }
 
     /**
@@ -164,7 +374,7 @@ public class Sheet implements SheetView, SheetUpdate {
      */
     @Override
     public ViewElement formulaAt(int row, int column) {
-        return new ViewElement(formulaAt(new CellLocation(row, column)).render(), "white", "black");
+        return new ViewElement(formulaOf(row, column).render(), "white", "black");
     }
 
     /**
@@ -190,17 +400,41 @@ public class Sheet implements SheetView, SheetUpdate {
      */
     @Override
     public UpdateResponse update(int row, int column, String input) {
+        // rejected without constructing an exception, input is often not a formula
+        ParseResult parsed = parser.tryParse(input);
+        if (!parsed.isSuccess()) {
+            return UpdateResponse.fail("Unable to parse: " + input);
+        }
         try {
-            Expression expr = parser.parse(input);
-            update(new CellLocation(row, column), expr);
+            update(CellLocation.of(row, column), parsed.getExpression());
             return UpdateResponse.success();
         } catch (TypeError e) {
             return UpdateResponse.fail("Type error: " + e);
-        } catch (ParseException e) {
-            return UpdateResponse.fail("Unable to parse: " + input);
         }
     }
 
+    /**
+     * Attempt to parse many inputs with the parser of this sheet, without inserting them,
+     * such that the parsed expressions may be inserted together with {@link #updateAll(Map)}.
+     * <p>
+     * If the sheet was constructed with {@link SheetBuilder#parallelParsing(int)},
+     * the inputs are parsed in parallel by a {@link BulkParser},
+     * otherwise they are parsed on the calling thread.
+     *
+     * @param inputs The strings to attempt to parse.
+     * @return The result of parsing each input, in the same order as the inputs.
+     */
+    public List<ParseResult> parseAll(List<String> inputs) {
+        if (options.parseThreshold > 0) {
+            return new BulkParser(parser, options.parseThreshold).parseAll(inputs);
+        }
+        List<ParseResult> results = new ArrayList<>(inputs.size());
+        for (String input : inputs) {
+            results.add(parser.tryParse(input));
+        }
+        return results;
+    }
+
     /**
      * The formula expression currently stored at the location in the spreadsheet.
      * @param location A cell location within the spreadsheet.
@@ -208,7 +442,15 @@ public class Sheet implements SheetView, SheetUpdate {
      * @return The formula expression at the given cell location.
      */
     public Expression formulaAt(CellLocation location) {
-        return formulas.get(location);
+        return formulaOf(location.getRow(), location.getColumn());
+    }
+
+    private Expression formulaOf(int row, int column) {
+        Expression formula = formulas.get(CellLocation.pack(row, column));
+        if (formula == null && options.sparse) {
+            return defaultExpression;
+        }
+        return formula;
     }
 
     /**
@@ -223,7 +465,160 @@ public class Sheet implements SheetView, SheetUpdate {
      * @return The value expression at the given cell location.
      */
     public Expression valueAt(CellLocation location) {
-        return values.get(location);
+        if (calculationMode == CalculationMode.LAZY) {
+            return calculatedValue(location);
+        }
+        return values.get(location.getRow(), location.getColumn());
+    }
+
+    /**
+     * The value of a cell, calculating it first if it is out of date.
+     * If the calculation results in a TypeError being thrown,
+     * the cell keeps its previous value and remains out of date.
+     */
+    Expression calculatedValue(CellLocation location) {
+        // read from the published snapshot, only calculating takes the writer lock
+        SheetSnapshot current = snapshot();
+        if (current.isStale(location.getRow(), location.getColumn())) {
+            try {
+                calculate(List.of(location));
+            } catch (TypeError e) {
+                // the previous value is returned
+            }
+            current = snapshot();
+        }
+        return current.storedValueAt(location);
+    }
+
+    /**
+     * The way in which cells are recalculated when a cell they use is updated.
+     *
+     * @return The current calculation mode of the sheet.
+     */
+    public CalculationMode getCalculationMode() {
+        return calculationMode;
+    }
+
+    /**
+     * Change the way in which cells are recalculated when a cell they use is updated.
+     * <p>
+     * Switching to {@link CalculationMode#AUTOMATIC} first recalculates
+     * every cell that is out of date.
+     *
+     * @param mode The new calculation mode of the sheet.
+     * @throws TypeError If switching to automatic calculation and the recalculation
+     *                  of an out of date cell results in a TypeError being thrown,
+     *                  in which case the calculation mode is unchanged.
+     */
+    public void setCalculationMode(CalculationMode mode) throws TypeError {
+        if (mode == CalculationMode.AUTOMATIC) {
+            recalculate();
+        }
+        writer.lock();
+        try {
+            calculationMode = mode;
+        } finally {
+            commit();
+        }
+    }
+
+    /**
+     * Whether the value of a cell is out of date, that is, whether a cell it uses
+     * was updated since its value was last calculated.
+     * Cells are only ever out of date in the lazy and manual calculation modes.
+     *
+     * @param location A cell location within the spreadsheet.
+     * @return True if the value of the cell must be recalculated.
+     */
+    public boolean isStale(CellLocation location) {
+        return snapshot().isStale(location.getRow(), location.getColumn());
+    }
+
+    /**
+     * Calculate every cell whose value is out of date, in dependency order.
+     * <p>
+     * This is how a sheet in the {@link CalculationMode#MANUAL} calculation mode is updated,
+     * in any other mode there is usually nothing to calculate.
+     * If a {@link TypeError} is thrown, no value is changed and every cell remains out of date.
+     *
+     * @throws TypeError If the calculation of any cell results in a TypeError being thrown.
+     */
+    public void recalculate() throws TypeError {
+        calculate(null);
+    }
+
+    /**
+     * Calculate the given cells, along with every out of date cell they transitively use.
+     *
+     * @param cells The cells to calculate, or null to calculate every out of date cell.
+     * @throws TypeError If the calculation of any cell results in a TypeError being thrown.
+     */
+    void calculate(Collection<CellLocation> cells) throws TypeError {
+        ChangeSet changes;
+        writer.lock();
+        try {
+            if (cells == null) {
+                List<CellLocation> all = new ArrayList<>(stale.size());
+                stale.forEach((key, cell) -> all.add(cell));
+                cells = all;
+            }
+            List<CellLocation> order = staleOrder(cells, Map.of());
+            if (order.isEmpty()) {
+                return;
+            }
+            Recalculation recalculation = new Recalculation(Map.of(), Map.of(),
+                    order, List.of(), false);
+            recalculation.run();
+            changes = apply(recalculation, false);
+        } finally {
+            commit();
+        }
+        notifyListeners(changes);
+    }
+
+    /**
+     * The given cells and every out of date cell they transitively use,
+     * ordered such that each cell appears after all the cells it uses.
+     * <p>
+     * Cells are found by a depth first search through the dependencies of formulas,
+     * taking the formulas of cells that are about to be updated from the given updates.
+     */
+    private List<CellLocation> staleOrder(Collection<CellLocation> cells,
+                                          Map<CellLocation, Expression> updates) {
+        List<CellLocation> order = new ArrayList<>();
+        Set<CellLocation> visited = new HashSet<>();
+        Deque<CellLocation> path = new ArrayDeque<>();
+        Deque<Iterator<CellLocation>> dependencies = new ArrayDeque<>();
+        for (CellLocation root : cells) {
+            if (!visited.add(root)) {
+                continue;
+            }
+            path.push(root);
+            dependencies.push(dependenciesOf(root, updates));
+            while (!path.isEmpty()) {
+                Iterator<CellLocation> next = dependencies.peek();
+                if (!next.hasNext()) {
+                    order.add(path.pop());
+                    dependencies.pop();
+                    continue;
+                }
+                CellLocation dependency = stale.get(next.next().pack());
+                if (dependency != null && visited.add(dependency)) {
+                    path.push(dependency);
+                    dependencies.push(dependenciesOf(dependency, updates));
+                }
+            }
+        }
+        return order;
+    }
+
+    private Iterator<CellLocation> dependenciesOf(CellLocation cell,
+                                                  Map<CellLocation, Expression> updates) {
+        Expression formula = updates.get(cell);
+        if (formula == null) {
+            formula = formulaOf(cell.getRow(), cell.getColumn());
+        }
+        return Arrays.asList(formula.cellDependencies()).iterator();
     }
 
     /**
@@ -256,27 +651,84 @@ public class Sheet implements SheetView, SheetUpdate {
      * @return All the cells which use the given cell as a dependency.
      */
     public Set<CellLocation> usedBy(CellLocation location) {
-        Set<CellLocation> usages = new HashSet<>();
-        usedBy(location, usages);
-        return usages;
+        if (!options.cachedUsedBy) {
+            return closure(location);
+        }
+        Set<CellLocation> cached = closures.get(location);
+        if (cached == null) {
+            cached = Collections.unmodifiableSet(closure(location));
+            closures.put(location, cached);
+        }
+        return cached;
     }
 
-    private void usedBy(CellLocation location, Set<CellLocation> seen) {
-        for (CellLocation next : usages.get(location)) {
-            if (seen.contains(next)) {
-                return;
+    /**
+     * Every cell reachable through usages from the given cell, found by a depth first search.
+     */
+    private Set<CellLocation> closure(CellLocation location) {
+        Set<CellLocation> result = new HashSet<>();
+        int root = usages.node(location.pack());
+        if (root < 0) {
+            return result;
+        }
+        BitSet seen = new BitSet(usages.nodes());
+        int[] stack = new int[16];
+        int size = 0;
+        stack[size++] = root;
+        while (size > 0) {
+            int node = stack[--size];
+            for (int cursor = usages.first(node); cursor != DependencyGraph.END;
+                    cursor = usages.next(node, cursor)) {
+                int next = usages.target(cursor);
+                if (seen.get(next)) {
+                    continue;
+                }
+                seen.set(next);
+                result.add(locationOf(next));
+                if (size == stack.length) {
+                    stack = Arrays.copyOf(stack, size * 2);
+                }
+                stack[size++] = next;
             }
-            seen.add(next);
-            usedBy(next, seen);
         }
+        return result;
     }
 
-    private Map<String, Expression> createState() {
-        Map<String, Expression> symbols = new HashMap<>(builtins);
-        for (CellLocation location : formulas.keySet()) {
-            symbols.put(location.toString(), values.get(location));
+    /**
+     * Forget the cached usages of the given cell and of every cell it transitively uses,
+     * as those are the only closures that may change with the usages of the given cell.
+     * <p>
+     * The cells are found by walking back through the dependencies of formulas.
+     * While a cell is being updated its usages may be linked to either its current formula
+     * or the formula about to be inserted, so the dependencies of both are followed.
+     */
+    private void invalidateClosures(long key) {
+        if (closures.isEmpty()) {
+            return;
         }
-        return symbols;
+        Set<CellLocation> visited = new HashSet<>();
+        Deque<CellLocation> pending = new ArrayDeque<>();
+        pending.push(CellLocation.of(CellLocation.rowOf(key), CellLocation.columnOf(key)));
+        while (!pending.isEmpty()) {
+            CellLocation cell = pending.pop();
+            if (!visited.add(cell)) {
+                continue;
+            }
+            closures.remove(cell);
+            Expression formula = formulaOf(cell.getRow(), cell.getColumn());
+            if (formula != null) {
+                pending.addAll(Arrays.asList(formula.cellDependencies()));
+            }
+            Expression update = linked.get(cell.pack());
+            if (update != null) {
+                pending.addAll(Arrays.asList(update.cellDependencies()));
+            }
+        }
+    }
+
+    private CellLocation locationOf(int node) {
+        long key = usages.key(node);
+        return CellLocation.of(CellLocation.rowOf(key), CellLocation.columnOf(key));
     }
 
     /**
@@ -306,49 +758,679 @@ public class Sheet implements SheetView, SheetUpdate {
      * @requires location is within the bounds (row/columns) of the spreadsheet.
      * @throws TypeError If the evaluation of the inserted cell or any of its usages
      *                  results in a TypeError being thrown.
+     * @see #updateWithChanges(CellLocation, Expression)
      */
     public void update(CellLocation location, Expression cell) throws TypeError {
-        Map<String, Expression> state = createState();
-        state.put(location.toString(), cell.value(state));
-        // recursively pre-calculate all the updated values
-        // this approach triggers a TypeError before the state is modified
-        applyUpdate(state, location);
+        updateWithChanges(location, cell);
+    }
 
-        // no type error, update the state
-        updateUsage(location, cell);
-        formulas.put(location, cell);
-        for (CellLocation existing : values.keySet()) {
-            if (state.containsKey(existing.toString())) {
-                values.put(existing, state.get(existing.toString()));
+    /**
+     * Insert an expression into the sheet as by {@link #update(CellLocation, Expression)},
+     * returning the cells that changed, as also received by every {@link SheetListener}.
+     *
+     * @param location A cell location to insert the expression into the sheet.
+     * @param cell An expression to insert at the given location.
+     * @requires location is within the bounds (row/columns) of the spreadsheet.
+     * @return The cells whose formula or value changed.
+     * @throws TypeError If the evaluation of the inserted cell or any of its usages
+     *                  results in a TypeError being thrown.
+     */
+    public ChangeSet updateWithChanges(CellLocation location, Expression cell) throws TypeError {
+        return updateAll(Map.of(location, cell));
+    }
+
+    /**
+     * Insert many expressions into the sheet as a single transaction.
+     * <p>
+     * After calling this function, the spreadsheet should be in the same state as if
+     * {@link #update(CellLocation, Expression)} had been called for every entry.
+     * However, all the inserted formulas are validated together and every affected cell
+     * is recalculated exactly once, in a single pass.
+     * The inserted formulas may refer to each other.
+     * <p>
+     * If a {@link TypeError} is thrown at any point during the update of any of these cells
+     * or any dependant cells, none of the entries are inserted and
+     * the sheet should return to the same state as before this method was called.
+     *
+     * @param updates A mapping of cell locations to the expressions to insert at those locations.
+     * @requires every location is within the bounds (row/columns) of the spreadsheet.
+     * @return The cells whose formula or value changed.
+     * @throws TypeError If the evaluation of any inserted cell or any of their usages
+     *                  results in a TypeError being thrown.
+     */
+    public ChangeSet updateAll(Map<CellLocation, Expression> updates) throws TypeError {
+        return updateAll(updates, true);
+    }
+
+    /**
+     * Insert many expressions into the sheet as a single transaction,
+     * see {@link #updateAll(Map)}.
+     *
+     * @param updates A mapping of cell locations to the expressions to insert at those locations.
+     * @param recorded Whether the update is remembered as an edit that may be undone.
+     * @return The cells whose formula or value changed.
+     * @throws TypeError If the evaluation of any inserted cell or any of their usages
+     *                  results in a TypeError being thrown.
+     */
+    ChangeSet updateAll(Map<CellLocation, Expression> updates, boolean recorded) throws TypeError {
+        if (updates.isEmpty()) {
+            return ChangeSet.empty();
+        }
+
+        ChangeSet changes;
+        writer.lock();
+        try {
+            Recalculation recalculation = prepare(updates, false);
+            try {
+                recalculation.run();
+            } catch (TypeError | RuntimeException e) {
+                // e.g. division by zero, the new usages are unlinked whatever the failure
+                discard(recalculation);
+                throw e;
+            }
+            changes = apply(recalculation, recorded);
+        } finally {
+            commit();
+        }
+        notifyListeners(changes);
+        return changes;
+    }
+
+    /**
+     * Undo the most recent edit made through {@link #updateAll(Map)},
+     * or any of the methods that use it, that has not been undone.
+     * <p>
+     * The formulas of the edited cells are restored and every cell which uses them
+     * is recalculated, which costs no more than the edit itself.
+     * Only the most recent edits since the sheet was last cleared or resized can be undone.
+     *
+     * @return True if an edit was undone, false if there was no edit to undo.
+     * @throws TypeError If the evaluation of a restored cell or any of its usages
+     *                  results in a TypeError being thrown, in which case the edit is not undone.
+     */
+    public boolean undo() throws TypeError {
+        EditHistory.Edit edit = history.takeUndo();
+        if (edit == null) {
+            return false;
+        }
+        try {
+            updateAll(edit.before(), false);
+        } catch (TypeError e) {
+            history.pushUndo(edit);
+            throw e;
+        }
+        history.pushRedo(edit);
+        return true;
+    }
+
+    /**
+     * Redo the most recently undone edit, see {@link #undo()}.
+     * An undone edit can no longer be redone once another edit is made.
+     *
+     * @return True if an edit was redone, false if there was no edit to redo.
+     * @throws TypeError If the evaluation of a redone cell or any of its usages
+     *                  results in a TypeError being thrown, in which case the edit is not redone.
+     */
+    public boolean redo() throws TypeError {
+        EditHistory.Edit edit = history.takeRedo();
+        if (edit == null) {
+            return false;
+        }
+        try {
+            updateAll(edit.after(), false);
+        } catch (TypeError e) {
+            history.pushRedo(edit);
+            throw e;
+        }
+        history.pushUndo(edit);
+        return true;
+    }
+
+    /**
+     * Link the usages of the inserted formulas and plan the recalculation of every cell
+     * they affect, without modifying the formulas or values of the sheet.
+     * Must be called while holding the writer lock.
+     *
+     * @param updates The formulas to insert.
+     * @param isolated Whether the recalculation must read from a snapshot of the values,
+     *                 so that it may run after the writer lock is released.
+     * @return The planned recalculation, to be either applied or discarded.
+     */
+    Recalculation prepare(Map<CellLocation, Expression> updates, boolean isolated) {
+        // link the new formulas first so that the recalculation order
+        // accounts for inserted cells that refer to each other
+        Map<CellLocation, Expression> previous = new HashMap<>();
+        for (Map.Entry<CellLocation, Expression> update : updates.entrySet()) {
+            CellLocation location = update.getKey();
+            Expression formula = formulaOf(location.getRow(), location.getColumn());
+            previous.put(location, formula);
+            if (options.cachedUsedBy) {
+                linked.put(location.pack(), update.getValue());
             }
+            relink(location.pack(), formula, update.getValue());
         }
+
+        List<CellLocation> affected = recalculationOrder(updates.keySet());
+        if (calculationMode == CalculationMode.AUTOMATIC) {
+            return new Recalculation(updates, previous, affected, List.of(), isolated);
+        }
+        // only the updated cells are calculated, every cell which uses them is out of date
+        List<CellLocation> updated = new ArrayList<>(updates.size());
+        List<CellLocation> deferred = new ArrayList<>();
+        for (CellLocation cell : affected) {
+            (updates.containsKey(cell) ? updated : deferred).add(cell);
+        }
+        if (calculationMode == CalculationMode.LAZY) {
+            updated = staleOrder(updated, updates);
+        }
+        return new Recalculation(updates, previous, updated, deferred, isolated);
     }
 
-    private void applyUpdate(Map<String, Expression> state, CellLocation location)
-            throws TypeError {
-        for (CellLocation usage : usages.get(location)) {
-            Expression value = formulas.get(usage).value(state);
-            state.put(usage.toString(), value);
-            applyUpdate(state, usage);
+    /**
+     * Insert the formulas and values of a recalculation that completed,
+     * remembering the edit if it is recorded.
+     * Must be called while holding the writer lock.
+     *
+     * @return The cells whose formula or value changed.
+     */
+    ChangeSet apply(Recalculation recalculation, boolean recorded) {
+        Set<CellLocation> changedFormulas = new HashSet<>();
+        Set<CellLocation> changedValues = new HashSet<>();
+        if (recorded) {
+            history.record(recalculation.previous, recalculation.updates);
+        }
+        for (CellLocation cell : recalculation.deferred) {
+            stale.put(cell.pack(), cell);
         }
+        for (int i = 0; i < recalculation.cells.length; i++) {
+            CellLocation cell = recalculation.cells[i];
+            if (recalculation.updates.containsKey(cell)) {
+                setFormula(cell, recalculation.formulas[i], recalculation.compiledFormulas[i]);
+                if (options.cachedUsedBy) {
+                    linked.remove(cell.pack());
+                }
+                if (!recalculation.formulas[i].equals(recalculation.previous.get(cell))) {
+                    changedFormulas.add(cell);
+                }
+            }
+            Expression result = recalculation.results[i];
+            if (!result.equals(values.get(cell.getRow(), cell.getColumn()))) {
+                changedValues.add(cell);
+            }
+            values.put(cell.getRow(), cell.getColumn(), result);
+            ranges.put(cell.getRow(), cell.getColumn(), result);
+            if (stale.size() > 0) {
+                stale.remove(cell.pack());
+            }
+        }
+        return ChangeSet.of(changedFormulas, changedValues);
     }
 
-    private void updateUsage(CellLocation location, Expression newExpression) {
-        // remove all usages of old formula
-        Expression oldExpression = formulas.get(location);
-        for (String oldDep : oldExpression.dependencies()) {
-            Optional<CellLocation> ref = CellLocation.maybeReference(oldDep);
-            if (ref.isPresent()) {
-                usages.get(ref.get()).remove(location);
+    /**
+     * Restore the usages of the formulas a recalculation would have replaced.
+     * Must be called while holding the writer lock.
+     */
+    void discard(Recalculation recalculation) {
+        for (Map.Entry<CellLocation, Expression> update : recalculation.updates.entrySet()) {
+            relink(update.getKey().pack(), update.getValue(),
+                    recalculation.previous.get(update.getKey()));
+            if (options.cachedUsedBy) {
+                linked.remove(update.getKey().pack());
             }
         }
+    }
 
-        // insert all new usages
-        for (String dep : newExpression.dependencies()) {
-            Optional<CellLocation> ref = CellLocation.maybeReference(dep);
-            if (ref.isPresent()) {
-                usages.get(ref.get()).add(location);
+    /**
+     * Every cell that inserting the given formulas may read or modify, that is,
+     * the updated cells, every cell which transitively uses them
+     * and every cell the new formulas refer to.
+     * Must be called while holding the writer lock.
+     *
+     * @param updates The formulas to insert.
+     * @return The cells the insertion depends on.
+     */
+    Set<CellLocation> footprint(Map<CellLocation, Expression> updates) {
+        Set<CellLocation> footprint = new HashSet<>();
+        for (Map.Entry<CellLocation, Expression> update : updates.entrySet()) {
+            footprint.add(update.getKey());
+            footprint.addAll(closure(update.getKey()));
+            footprint.addAll(Arrays.asList(update.getValue().cellDependencies()));
+        }
+        return footprint;
+    }
+
+    /**
+     * The calculation of the cells affected by inserting some formulas,
+     * or of cells that are out of date.
+     * <p>
+     * The cells, their formulas and compiled forms are captured when the recalculation
+     * is prepared. Cells are evaluated against the values the sheet had at that point,
+     * along with the values calculated so far, so running the recalculation
+     * never modifies the sheet and a failed recalculation leaves no values to roll back.
+     */
+    final class Recalculation {
+        private final Map<CellLocation, Expression> updates;
+        private final Map<CellLocation, Expression> previous;
+        // cells that use an updated cell but are not calculated
+        private final List<CellLocation> deferred;
+        private final CellLocation[] cells;
+        private final Expression[] formulas;
+        private final CompiledFormula[] compiledFormulas;
+        // the end of each level of cells, a single level if recalculation is serial
+        private final int[] levelEnds;
+        private final Expression[] results;
+        private final LongMap<Expression> assigned = new LongMap<>();
+        private final ValueStore source;
+        private final PersistentLongMap<Expression> formulaSource;
+        private final int rows;
+        private final int columns;
+        private final Map<String, Expression> state = new State();
+        private final Numbers numbers = new Numbers();
+        // the rows of the cells being calculated in each indexed column, in ascending order
+        private final LongMap<int[]> pending;
+
+        private Recalculation(Map<CellLocation, Expression> updates,
+                              Map<CellLocation, Expression> previous, List<CellLocation> order,
+                              List<CellLocation> deferred, boolean isolated) {
+            this.updates = updates;
+            this.previous = previous;
+            this.deferred = deferred;
+            this.source = isolated ? values.snapshot() : values;
+            this.formulaSource = isolated ? Sheet.this.formulas.snapshot() : Sheet.this.formulas;
+            this.rows = Sheet.this.rows;
+            this.columns = Sheet.this.columns;
+
+            if (options.parallelThreshold > 0) {
+                List<List<CellLocation>> levels = levels(order);
+                order = new ArrayList<>(order.size());
+                levelEnds = new int[levels.size()];
+                for (int level = 0; level < levels.size(); level++) {
+                    order.addAll(levels.get(level));
+                    levelEnds[level] = order.size();
+                }
+            } else {
+                levelEnds = new int[] {order.size()};
+            }
+            cells = order.toArray(new CellLocation[0]);
+            formulas = new Expression[cells.length];
+            compiledFormulas = new CompiledFormula[cells.length];
+            results = new Expression[cells.length];
+            for (int i = 0; i < cells.length; i++) {
+                Expression formula = updates.get(cells[i]);
+                if (formula == null) {
+                    formulas[i] = formulaOf(cells[i].getRow(), cells[i].getColumn());
+                    compiledFormulas[i] = compiled.get(cells[i].pack());
+                } else {
+                    formulas[i] = formula;
+                    compiledFormulas[i] = compiler.compile(formula);
+                    if (compiledFormulas[i] != null) {
+                        ranges.track(formula);
+                    }
+                }
             }
+            pending = ranges.isEmpty() ? null : pendingRows();
+        }
+
+        private LongMap<int[]> pendingRows() {
+            long[] keys = new long[cells.length];
+            for (int i = 0; i < cells.length; i++) {
+                keys[i] = ((long) cells[i].getColumn() << Integer.SIZE) | cells[i].getRow();
+            }
+            Arrays.sort(keys);
+            LongMap<int[]> rowsByColumn = new LongMap<>();
+            int start = 0;
+            for (int i = 1; i <= keys.length; i++) {
+                if (i < keys.length && keys[i] >>> Integer.SIZE == keys[start] >>> Integer.SIZE) {
+                    continue;
+                }
+                int[] columnRows = new int[i - start];
+                for (int j = start; j < i; j++) {
+                    columnRows[j - start] = (int) keys[j];
+                }
+                rowsByColumn.put(keys[start] >>> Integer.SIZE, columnRows);
+                start = i;
+            }
+            return rowsByColumn;
+        }
+
+        /**
+         * Calculate every affected cell exactly once, in dependency order.
+         *
+         * @throws TypeError If the evaluation of any cell results in a TypeError being thrown.
+         */
+        void run() throws TypeError {
+            int from = 0;
+            for (int end : levelEnds) {
+                evaluateLevel(from, end);
+                from = end;
+            }
+        }
+
+        /**
+         * Evaluate every cell of a level, in parallel if the level is large enough.
+         * The state is only read while a level is evaluated in parallel.
+         */
+        private void evaluateLevel(int from, int to) throws TypeError {
+            if (options.parallelThreshold == 0 || to - from < options.parallelThreshold) {
+                for (int i = from; i < to; i++) {
+                    results[i] = evaluate(i);
+                    assigned.put(cells[i].pack(), results[i]);
+                }
+                return;
+            }
+            AtomicReference<Exception> failure = new AtomicReference<>();
+            ForkJoinPool.commonPool().invoke(new LevelTask(failure, from, to));
+            if (failure.get() instanceof TypeError e) {
+                throw e;
+            } else if (failure.get() != null) {
+                throw (RuntimeException) failure.get();
+            }
+            for (int i = from; i < to; i++) {
+                assigned.put(cells[i].pack(), results[i]);
+            }
+        }
+
+        /**
+         * Evaluate the formula of a cell, using its compiled form if it has one.
+         * Arithmetic that cannot be compiled is still evaluated against the values directly.
+         */
+        private Expression evaluate(int cell) throws TypeError {
+            if (compiledFormulas[cell] != null) {
+                return Constant.of(compiledFormulas[cell].evaluate(numbers));
+            }
+            if (Group.ungrouped(Folded.simplified(formulas[cell])) instanceof Arithmetic) {
+                return Constant.of(formulas[cell].evaluate(numbers));
+            }
+            return formulas[cell].value(state);
+        }
+
+        private Expression value(int row, int column) {
+            Expression value = assigned.get(CellLocation.pack(row, column));
+            return value == null ? source.get(row, column) : value;
+        }
+
+        private long number(int row, int column) throws TypeError {
+            Expression value = assigned.get(CellLocation.pack(row, column));
+            return value == null ? source.number(row, column) : value.value();
+        }
+
+        /**
+         * Whether a cell location holds a value that can be referred to,
+         * either because it is within the sheet or because it was remembered
+         * when the sheet shrunk.
+         */
+        private boolean exists(int row, int column) {
+            if (row >= 0 && column >= 0 && row < rows && column < columns) {
+                return true;
+            }
+            return formulaSource.containsKey(CellLocation.pack(row, column));
+        }
+
+        /**
+         * The numeric values of cells, as read by compiled formulas and by
+         * {@link Expression#evaluate(ValueSource)}.
+         * <p>
+         * Ranges of indexed columns are summarised by the index of the column,
+         * which holds the values the sheet had when the recalculation was prepared,
+         * except for the cells being calculated, which are read individually.
+         */
+        private class Numbers implements NumberSource, ValueSource {
+            @Override
+            public long number(int row, int column) throws TypeError {
+                if (options.sparse && !exists(row, column)) {
+                    throw new TypeError();
+                }
+                return Recalculation.this.number(row, column);
+            }
+
+            @Override
+            public long cell(int row, int column) throws TypeError {
+                // as when looked up by name, cells that do not exist have no value
+                if (!exists(row, column)) {
+                    throw new TypeError();
+                }
+                return Recalculation.this.number(row, column);
+            }
+
+            @Override
+            public Expression lookup(String identifier) {
+                return state.get(identifier);
+            }
+
+            @Override
+            public Map<String, Expression> state() {
+                return state;
+            }
+
+            @Override
+            public void summarize(int fromRow, int fromColumn, int toRow, int toColumn,
+                                  RangeSummary summary) {
+                int lastRow = Math.min(toRow, rows - 1);
+                for (int column = fromColumn; column <= Math.min(toColumn, columns - 1); column++) {
+                    ColumnIndex index = ranges.column(column);
+                    if (index == null || lastRow >= index.size()) {
+                        NumberSource.super.summarize(fromRow, column, lastRow, column, summary);
+                        continue;
+                    }
+                    int from = fromRow;
+                    int[] calculated = pending == null ? null : pending.get(column);
+                    if (calculated != null) {
+                        int i = Arrays.binarySearch(calculated, fromRow);
+                        for (i = i < 0 ? -i - 1 : i; i < calculated.length && calculated[i] <= lastRow; i++) {
+                            index.summarize(from, calculated[i] - 1, summary);
+                            try {
+                                summary.add(number(calculated[i], column));
+                            } catch (TypeError ignored) {
+                                // cells without a numeric value are skipped
+                            }
+                            from = calculated[i] + 1;
+                        }
+                    }
+                    index.summarize(from, lastRow, summary);
+                }
+            }
+        }
+
+        /**
+         * Evaluates a range of cells within a level,
+         * splitting the range in half until it is within the parallel threshold.
+         * Tasks are only ever run within the pool and never serialized.
+         */
+        @SuppressWarnings("serial")
+        private class LevelTask extends RecursiveAction {
+            // the first type error or runtime exception, such as division by zero
+            private final AtomicReference<Exception> failure;
+            private final int from;
+            private final int to;
+
+            private LevelTask(AtomicReference<Exception> failure, int from, int to) {
+                this.failure = failure;
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from > options.parallelThreshold) {
+                    int middle = (from + to) >>> 1;
+                    invokeAll(new LevelTask(failure, from, middle),
+                            new LevelTask(failure, middle, to));
+                    return;
+                }
+                for (int i = from; i < to && failure.get() == null; i++) {
+                    try {
+                        results[i] = evaluate(i);
+                    } catch (TypeError | RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            }
+        }
+
+        /**
+         * A read only view of the values of every cell and built-in,
+         * keyed by their identifier, that is passed to {@link Expression#value(Map)}.
+         * <p>
+         * Lookups are resolved when they are made, so the view never needs to be rebuilt
+         * and always reflects the values calculated part way through the recalculation.
+         */
+        private class State extends AbstractMap<String, Expression> {
+            private long cell(Object key) {
+                if (key instanceof String identifier) {
+                    long cell = CellLocation.packReference(identifier);
+                    if (cell != CellLocation.NOT_A_REFERENCE
+                            && exists(CellLocation.rowOf(cell), CellLocation.columnOf(cell))) {
+                        return cell;
+                    }
+                }
+                return CellLocation.NOT_A_REFERENCE;
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return cell(key) != CellLocation.NOT_A_REFERENCE || builtins.containsKey(key);
+            }
+
+            @Override
+            public Expression get(Object key) {
+                long cell = cell(key);
+                if (cell != CellLocation.NOT_A_REFERENCE) {
+                    return value(CellLocation.rowOf(cell), CellLocation.columnOf(cell));
+                }
+                return builtins.get(key);
+            }
+
+            @Override
+            public Set<Entry<String, Expression>> entrySet() {
+                Map<String, Expression> entries = new HashMap<>(builtins);
+                for (int row = 0; row < rows; row++) {
+                    for (int column = 0; column < columns; column++) {
+                        entries.put(CellLocation.of(row, column).toString(), value(row, column));
+                    }
+                }
+                formulaSource.forEach((key, formula) -> {
+                    int row = CellLocation.rowOf(key);
+                    int column = CellLocation.columnOf(key);
+                    entries.put(CellLocation.of(row, column).toString(), value(row, column));
+                });
+                return Collections.unmodifiableMap(entries).entrySet();
+            }
+        }
+    }
+
+    /**
+     * Split cells in dependency order into levels,
+     * where every cell only uses cells in earlier levels.
+     * A cell's level is the length of the longest chain of usages leading to it.
+     */
+    private List<List<CellLocation>> levels(List<CellLocation> order) {
+        // every cell that uses another cell is a node, so cells without one are at depth zero
+        int[] depths = new int[usages.nodes()];
+        List<List<CellLocation>> levels = new ArrayList<>();
+        for (CellLocation cell : order) {
+            int node = usages.node(cell.pack());
+            int depth = node < 0 ? 0 : depths[node];
+            while (levels.size() <= depth) {
+                levels.add(new ArrayList<>());
+            }
+            levels.get(depth).add(cell);
+            if (node < 0) {
+                continue;
+            }
+            for (int cursor = usages.first(node); cursor != DependencyGraph.END;
+                    cursor = usages.next(node, cursor)) {
+                int usage = usages.target(cursor);
+                depths[usage] = Math.max(depths[usage], depth + 1);
+            }
+        }
+        return levels;
+    }
+
+    /**
+     * Replace the formula at a location along with its compiled form,
+     * the usages of the formula must already be linked.
+     */
+    private void setFormula(CellLocation location, Expression formula,
+                            CompiledFormula compiledFormula) {
+        long key = location.pack();
+        // equal rather than identical, so a parsed copy of the default is not stored either
+        if (options.sparse && formula.equals(defaultExpression)) {
+            formulas.remove(key);
+        } else {
+            formulas.put(key, formula);
+        }
+        if (compiledFormula == null) {
+            compiled.remove(key);
+        } else {
+            compiled.put(key, compiledFormula);
+        }
+    }
+
+    /**
+     * The given locations and every cell which transitively uses them, ordered such that
+     * each cell appears after all the cells it uses.
+     * <p>
+     * The order is the reverse post-order of a depth first search through usages,
+     * so a cell reachable along several paths is only included once.
+     */
+    private List<CellLocation> recalculationOrder(Set<CellLocation> locations) {
+        List<CellLocation> order = new ArrayList<>();
+        BitSet visited = new BitSet(usages.nodes());
+        int[] path = new int[16];
+        int[] cursors = new int[16];
+        for (CellLocation location : locations) {
+            int root = usages.node(location.pack());
+            if (root < 0) {
+                // not used by any cell
+                order.add(location);
+                continue;
+            }
+            if (visited.get(root)) {
+                continue;
+            }
+            visited.set(root);
+            int depth = 0;
+            path[0] = root;
+            cursors[0] = usages.first(root);
+            while (depth >= 0) {
+                int node = path[depth];
+                int cursor = cursors[depth];
+                if (cursor == DependencyGraph.END) {
+                    order.add(locationOf(node));
+                    depth--;
+                    continue;
+                }
+                cursors[depth] = usages.next(node, cursor);
+                int usage = usages.target(cursor);
+                if (!visited.get(usage)) {
+                    visited.set(usage);
+                    depth++;
+                    if (depth == path.length) {
+                        path = Arrays.copyOf(path, depth * 2);
+                        cursors = Arrays.copyOf(cursors, depth * 2);
+                    }
+                    path[depth] = usage;
+                    cursors[depth] = usages.first(usage);
+                }
+            }
+        }
+        Collections.reverse(order);
+        return order;
+    }
+
+    /**
+     * Replace the usages of one formula of a cell with the usages of another.
+     */
+    private void relink(long key, Expression from, Expression to) {
+        for (CellLocation dependency : from.cellDependencies()) {
+            long ref = dependency.pack();
+            usages.removeEdge(ref, key);
+            invalidateClosures(ref);
+        }
+        for (CellLocation dependency : to.cellDependencies()) {
+            long ref = dependency.pack();
+            usages.addEdge(ref, key);
+            invalidateClosures(ref);
         }
     }
 
@@ -385,7 +1467,7 @@ public class Sheet implements SheetView, SheetUpdate {
         for (int row = 0; row < rows; row++) {
             StringJoiner rowEncoding = new StringJoiner("|");
             for (int column = 0; column < columns; column++) {
-                rowEncoding.add(formulas.get(new CellLocation(row, column)).render());
+                rowEncoding.add(formulaOf(row, column).render());
             }
             builder.add(rowEncoding.toString());
         }
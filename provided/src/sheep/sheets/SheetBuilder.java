@@ -1,9 +1,12 @@
 package sheep.sheets;
 
 import sheep.expression.Expression;
+import sheep.parsing.BulkParser;
+import sheep.parsing.CachingParser;
 import sheep.parsing.Parser;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -32,6 +35,7 @@ public class SheetBuilder {
     private final Map<String, Expression> builtins = new HashMap<>();
     private final Parser parser;
     private final Expression defaultExpression;
+    private final SheetOptions options = new SheetOptions();
 
     /**
      * Construct an instance of SheetBuilder than will create
@@ -65,6 +69,134 @@ public class SheetBuilder {
         return this;
     }
 
+    /**
+     * Store the evaluated values of any sheet constructed by this builder
+     * in per-column primitive arrays rather than as one expression per cell.
+     * <p>
+     * Numeric values are kept as a {@code long} and a small type tag,
+     * which considerably reduces the memory used by large sheets
+     * and makes scanning the values of a sheet cache-friendly.
+     * The behaviour of the constructed sheet is otherwise unchanged.
+     *
+     * @return The current instance of the SheetBuilder.
+     */
+    public SheetBuilder columnarValues() {
+        this.options.columnarValues = true;
+        return this;
+    }
+
+    /**
+     * Only store the cells of any sheet constructed by this builder
+     * that hold something other than the default expression.
+     * <p>
+     * Empty cells then cost no memory, so constructing and clearing a sheet
+     * no longer depends on its dimensions, only on the cells that were assigned.
+     * The behaviour of the constructed sheet is otherwise unchanged.
+     *
+     * @return The current instance of the SheetBuilder.
+     */
+    public SheetBuilder sparse() {
+        this.options.sparse = true;
+        return this;
+    }
+
+    /**
+     * Cache the cells found by {@link Sheet#usedBy(CellLocation)} in any sheet
+     * constructed by this builder.
+     * <p>
+     * A cached result is only discarded when the usages of a cell it contains
+     * (or of the cell it was found for) change, so repeated queries for the same
+     * cell are answered without traversing the sheet.
+     * The sets returned by {@link Sheet#usedBy(CellLocation)} are then unmodifiable.
+     *
+     * @return The current instance of the SheetBuilder.
+     */
+    public SheetBuilder cachedUsedBy() {
+        this.options.cachedUsedBy = true;
+        return this;
+    }
+
+    /**
+     * Recalculate independent cells of any sheet constructed by this builder in parallel.
+     * <p>
+     * When a cell is updated, the cells that use it are split into levels such that
+     * every cell only uses cells in earlier levels. Cells within a level are independent,
+     * so each level with at least {@code threshold} cells is evaluated on the common
+     * {@link java.util.concurrent.ForkJoinPool}. Smaller levels are evaluated serially.
+     * <p>
+     * Expressions inserted into the constructed sheet must be safe to evaluate
+     * from multiple threads at once.
+     *
+     * @param threshold The smallest amount of cells within a level to evaluate in parallel.
+     * @requires threshold &gt; 0
+     * @return The current instance of the SheetBuilder.
+     */
+    public SheetBuilder parallelRecalculation(int threshold) {
+        this.options.parallelThreshold = threshold;
+        return this;
+    }
+
+    /**
+     * Select the way in which any sheet constructed by this builder initially
+     * recalculates the cells that use an updated cell.
+     * The mode may be changed later with {@link Sheet#setCalculationMode(CalculationMode)}.
+     *
+     * @param mode The initial calculation mode.
+     * @return The current instance of the SheetBuilder.
+     */
+    public SheetBuilder calculationMode(CalculationMode mode) {
+        this.options.calculationMode = mode;
+        return this;
+    }
+
+    /**
+     * Construct a {@link ConcurrentSheet} rather than a {@link Sheet},
+     * which may be updated from multiple threads at once.
+     * <p>
+     * Updates of independent parts of the constructed sheet are recalculated in parallel,
+     * whereas updates that affect the same cells are serialized.
+     * Reads never wait for an update in progress.
+     *
+     * @return The current instance of the SheetBuilder.
+     */
+    public SheetBuilder concurrent() {
+        this.options.concurrent = true;
+        return this;
+    }
+
+    /**
+     * Remember the expressions most recently parsed by any sheet constructed by this builder,
+     * see {@link CachingParser}.
+     * <p>
+     * Inserting an input that was inserted recently then reuses the expression
+     * parsed for it, rather than parsing it again.
+     * Each constructed sheet remembers its own inputs.
+     *
+     * @param capacity The most expressions each sheet remembers at once.
+     * @requires capacity &gt; 0
+     * @return The current instance of the SheetBuilder.
+     */
+    public SheetBuilder cachedParsing(int capacity) {
+        this.options.parseCacheCapacity = capacity;
+        return this;
+    }
+
+    /**
+     * Parse the inputs of any sheet constructed by this builder in parallel
+     * when many are parsed at once, see {@link Sheet#parseAll(List)} and {@link BulkParser}.
+     * <p>
+     * The parser of this builder, and the factory it constructs expressions with,
+     * must then be safe to use from multiple threads at once.
+     *
+     * @param threshold The most inputs parsed by a single task.
+     * @requires threshold &gt; 0
+     * @return The current instance of the SheetBuilder.
+     */
+    public SheetBuilder parallelParsing(int threshold) {
+        this.options.parseThreshold = threshold;
+        return this;
+    }
+
     /**
      * Construct a new empty sheet with the given number of rows and columns.
      * <p>
@@ -85,7 +217,15 @@ public class SheetBuilder {
      * @return A new sheet with the appropriate built-ins and of the specified dimensions.
      */
     public Sheet empty(int rows, int columns) {
-        return new Sheet(parser, new HashMap<>(builtins), defaultExpression, rows, columns);
+        Parser sheetParser = options.parseCacheCapacity > 0
+                ? new CachingParser(parser, options.parseCacheCapacity)
+                : parser;
+        if (options.concurrent) {
+            return new ConcurrentSheet(sheetParser, new HashMap<>(builtins), defaultExpression,
+                    rows, columns, options.copy());
+        }
+        return new Sheet(sheetParser, new HashMap<>(builtins), defaultExpression,
+                rows, columns, options.copy());
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package sheep.sheets;
+
+/**
+ * A callback invoked with the cells that changed whenever a {@link Sheet} is modified.
+ */
+@FunctionalInterface
+public interface SheetListener {
+    /**
+     * Called once a modification of the sheet has completed.
+     * <p>
+     * Listeners are called on the thread that modified the sheet,
+     * after the sheet has been unlocked, so they may read or update the sheet.
+     *
+     * @param changes The cells that were changed by the modification, never empty.
+     */
+    void changed(ChangeSet changes);
+}
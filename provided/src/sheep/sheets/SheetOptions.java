@@ -0,0 +1,70 @@
+package sheep.sheets;
+
+/**
+ * Optional behaviour of a {@link Sheet} selected through a {@link SheetBuilder}.
+ * <p>
+ * The default options construct a sheet that behaves exactly as
+ * described in the {@link Sheet} documentation.
+ */
+class SheetOptions {
+    /**
+     * Whether evaluated values are kept in per-column primitive arrays.
+     */
+    boolean columnarValues = false;
+
+    /**
+     * The smallest amount of independent cells that are recalculated in parallel,
+     * or zero if recalculation is always serial.
+     */
+    int parallelThreshold = 0;
+
+    /**
+     * Whether cells holding the default expression are left out of storage.
+     */
+    boolean sparse = false;
+
+    /**
+     * Whether the results of {@link Sheet#usedBy(CellLocation)} are cached.
+     */
+    boolean cachedUsedBy = false;
+
+    /**
+     * Whether the sheet may be updated from multiple threads at once.
+     */
+    boolean concurrent = false;
+
+    /**
+     * The initial way in which the sheet recalculates cells.
+     */
+    CalculationMode calculationMode = CalculationMode.AUTOMATIC;
+
+    /**
+     * The amount of recently parsed inputs remembered by the sheet's parser,
+     * or zero if parsed inputs are not remembered.
+     */
+    int parseCacheCapacity = 0;
+
+    /**
+     * The most inputs parsed by a single task when many inputs are parsed at once,
+     * or zero if inputs are always parsed serially.
+     */
+    int parseThreshold = 0;
+
+    /**
+     * A copy of these options, such that later changes do not affect the copy.
+     *
+     * @return A new instance with the same options selected.
+     */
+    SheetOptions copy() {
+        SheetOptions copy = new SheetOptions();
+        copy.columnarValues = columnarValues;
+        copy.parallelThreshold = parallelThreshold;
+        copy.sparse = sparse;
+        copy.cachedUsedBy = cachedUsedBy;
+        copy.concurrent = concurrent;
+        copy.calculationMode = calculationMode;
+        copy.parseCacheCapacity = parseCacheCapacity;
+        copy.parseThreshold = parseThreshold;
+        return copy;
+    }
+}
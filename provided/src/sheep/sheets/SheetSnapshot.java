@@ -0,0 +1,245 @@
+package sheep.sheets;
+
+import sheep.core.SheetView;
+import sheep.core.ViewElement;
+import sheep.expression.Expression;
+import sheep.expression.TypeError;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable view of the formulas and values of a {@link Sheet} at one point in time.
+ * <p>
+ * Snapshots are taken with {@link Sheet#snapshot()} in constant time,
+ * they share their storage with the sheet, which copies any part of its storage
+ * before modifying it. A snapshot never changes after it is taken and may be read
+ * from any thread while the sheet continues to be updated.
+ * <p>
+ * In the {@link CalculationMode#LAZY} calculation mode, reading a cell that was
+ * out of date when the snapshot was taken calculates it from the formulas and values
+ * of the snapshot, never those of the sheet. Calculated values are remembered by the snapshot.
+ */
+public final class SheetSnapshot implements SheetView {
+    private final Sheet sheet;
+    private final PersistentLongMap<Expression> formulas;
+    private final ValueStore values;
+    private final PersistentLongMap<CellLocation> stale;
+    private final boolean lazy;
+    private final Expression defaultExpression;
+    private final Map<String, Expression> builtins;
+    private final int rows;
+    private final int columns;
+    // values of out of date cells calculated when read in the lazy calculation mode
+    private final Map<CellLocation, Expression> calculated = new ConcurrentHashMap<>();
+    private final Map<String, Expression> state = new State();
+
+    /**
+     * Construct a new snapshot.
+     *
+     * @param sheet The sheet the snapshot is taken of, used to style values.
+     * @param formulas An immutable copy of the formulas of the sheet.
+     * @param values An immutable copy of the values of the sheet.
+     * @param stale An immutable copy of the cells whose value is out of date.
+     * @param lazy Whether out of date cells are calculated when read.
+     * @param defaultExpression The formula of cells without a formula,
+     *                          or null if every cell has a formula.
+     * @param builtins The built-in identifiers of the sheet, which are never modified.
+     * @param rows The number of rows of the sheet.
+     * @param columns The number of columns of the sheet.
+     */
+    SheetSnapshot(Sheet sheet, PersistentLongMap<Expression> formulas, ValueStore values,
+                  PersistentLongMap<CellLocation> stale, boolean lazy,
+                  Expression defaultExpression, Map<String, Expression> builtins,
+                  int rows, int columns) {
+        this.sheet = sheet;
+        this.formulas = formulas;
+        this.values = values;
+        this.stale = stale;
+        this.lazy = lazy;
+        this.defaultExpression = defaultExpression;
+        this.builtins = builtins;
+        this.rows = rows;
+        this.columns = columns;
+    }
+
+    /**
+     * The number of rows the sheet had when the snapshot was taken.
+     * @return The number of rows for this snapshot.
+     */
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * The number of columns the sheet had when the snapshot was taken.
+     * @return The number of columns for this snapshot.
+     */
+    @Override
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * The value to render at this location, styled as the sheet would style it.
+     *
+     * @param row A row within the snapshot.
+     * @param column A column within the snapshot.
+     * @requires location is within the bounds (row/columns) of the snapshot.
+     * @return The value to render at this location.
+     */
+    @Override
+    public ViewElement valueAt(int row, int column) {
+        if (lazy && isStale(row, column)) {
+            return sheet.renderValue(calculatedValue(CellLocation.of(row, column)).render());
+        }
+        return sheet.renderValue(values.render(row, column));
+    }
+
+    /**
+     * The formula to render at this location.
+     *
+     * @param row A row within the snapshot.
+     * @param column A column within the snapshot.
+     * @requires location is within the bounds (row/columns) of the snapshot.
+     * @return The formula to render at this location.
+     */
+    @Override
+    public ViewElement formulaAt(int row, int column) {
+        return new ViewElement(formulaAt(CellLocation.of(row, column)).render(), "white", "black");
+    }
+
+    /**
+     * The formula expression stored at the location when the snapshot was taken.
+     *
+     * @param location A cell location within the snapshot.
+     * @requires location is within the bounds (row/columns) of the snapshot.
+     * @return The formula expression at the given cell location.
+     */
+    public Expression formulaAt(CellLocation location) {
+        Expression formula = formulas.get(location.pack());
+        if (formula == null) {
+            return defaultExpression;
+        }
+        return formula;
+    }
+
+    /**
+     * The value expression stored at the location when the snapshot was taken.
+     *
+     * @param location A cell location within the snapshot.
+     * @requires location is within the bounds (row/columns) of the snapshot.
+     * @return The value expression at the given cell location.
+     */
+    public Expression valueAt(CellLocation location) {
+        if (lazy && isStale(location.getRow(), location.getColumn())) {
+            return calculatedValue(location);
+        }
+        return storedValueAt(location);
+    }
+
+    /**
+     * The value of an out of date cell, calculated from the formulas and values of the snapshot.
+     * If the calculation results in a TypeError being thrown, the stored value is returned.
+     */
+    private Expression calculatedValue(CellLocation location) {
+        Expression value = calculated.get(location);
+        if (value != null) {
+            return value;
+        }
+        try {
+            value = formulaAt(location).value(state);
+        } catch (TypeError e) {
+            value = storedValueAt(location);
+        }
+        Expression previous = calculated.putIfAbsent(location, value);
+        return previous == null ? value : previous;
+    }
+
+    /**
+     * The value expression stored at the location when the snapshot was taken,
+     * even if it was out of date.
+     *
+     * @param location A cell location within the snapshot.
+     * @return The stored value expression at the given cell location.
+     */
+    Expression storedValueAt(CellLocation location) {
+        return values.get(location.getRow(), location.getColumn());
+    }
+
+    /**
+     * Whether the value of a cell was out of date when the snapshot was taken.
+     *
+     * @param row A row within the snapshot.
+     * @param column A column within the snapshot.
+     * @return True if the value of the cell was out of date.
+     */
+    boolean isStale(int row, int column) {
+        return stale.containsKey(CellLocation.pack(row, column));
+    }
+
+    /**
+     * Snapshots never change, so a snapshot of a snapshot is itself.
+     *
+     * @return This snapshot.
+     */
+    @Override
+    public SheetSnapshot snapshot() {
+        return this;
+    }
+
+    /**
+     * The values of the cells and built-ins of the snapshot, by identifier,
+     * as read by formulas calculated in the lazy calculation mode.
+     */
+    private class State extends AbstractMap<String, Expression> {
+        private CellLocation cell(Object key) {
+            if (key instanceof String identifier) {
+                long cell = CellLocation.packReference(identifier);
+                if (cell != CellLocation.NOT_A_REFERENCE) {
+                    int row = CellLocation.rowOf(cell);
+                    int column = CellLocation.columnOf(cell);
+                    if (row < rows && column < columns || formulas.containsKey(cell)) {
+                        return CellLocation.of(row, column);
+                    }
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return cell(key) != null || builtins.containsKey(key);
+        }
+
+        @Override
+        public Expression get(Object key) {
+            CellLocation cell = cell(key);
+            if (cell != null) {
+                return valueAt(cell);
+            }
+            return builtins.get(key);
+        }
+
+        @Override
+        public Set<Entry<String, Expression>> entrySet() {
+            Map<String, Expression> entries = new HashMap<>(builtins);
+            for (int row = 0; row < rows; row++) {
+                for (int column = 0; column < columns; column++) {
+                    CellLocation cell = CellLocation.of(row, column);
+                    entries.put(cell.toString(), valueAt(cell));
+                }
+            }
+            formulas.forEach((key, formula) -> {
+                CellLocation cell = CellLocation.of(CellLocation.rowOf(key), CellLocation.columnOf(key));
+                entries.put(cell.toString(), valueAt(cell));
+            });
+            return Collections.unmodifiableMap(entries).entrySet();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package sheep.sheets;
+
+import sheep.expression.Expression;
+import sheep.expression.TypeError;
+
+/**
+ * Storage of the evaluated value of every cell within a {@link Sheet}.
+ * <p>
+ * A value store only holds the results of evaluating formulas,
+ * formulas and usages are maintained by the sheet itself.
+ */
+interface ValueStore extends NumberSource {
+    /**
+     * The value stored at the given row and column.
+     *
+     * @param row A row within the spreadsheet.
+     * @param column A column within the spreadsheet.
+     * @return The value expression at the given cell, or the fallback of the store
+     *         (possibly null) if the cell has no value.
+     */
+    Expression get(int row, int column);
+
+    /**
+     * Replace the value stored at the given row and column.
+     *
+     * @param row A row within the spreadsheet.
+     * @param column A column within the spreadsheet.
+     * @param value The new value of the cell.
+     */
+    void put(int row, int column, Expression value);
+
+    /**
+     * The numeric value stored at the given row and column.
+     * Equivalent to {@code get(row, column).value()}.
+     *
+     * @param row A row within the spreadsheet.
+     * @param column A column within the spreadsheet.
+     * @return The numeric value of the given cell.
+     * @throws TypeError If the cell has no value or the value is not numeric.
+     */
+    @Override
+    long number(int row, int column) throws TypeError;
+
+    /**
+     * The rendered value at the given row and column.
+     * Equivalent to {@code get(row, column).render()}.
+     *
+     * @param row A row within the spreadsheet.
+     * @param column A column within the spreadsheet.
+     * @return The string representation of the value at the given cell.
+     */
+    String render(int row, int column);
+
+    /**
+     * Remove the value of every cell.
+     */
+    void clear();
+
+    /**
+     * An immutable copy of the values currently stored, made in constant time.
+     * Later changes to this store do not affect the copy,
+     * and attempting to change the copy throws an {@link UnsupportedOperationException}.
+     *
+     * @return A copy of this value store.
+     */
+    ValueStore snapshot();
+}
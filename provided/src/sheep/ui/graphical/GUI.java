@@ -23,6 +23,9 @@ import java.util.Optional;
  */
 public class GUI extends UI {
 
+    // every cell of a render is read from the same snapshot of the view
+    private final SnapshotView rendered;
+
     /**
      * Construct a new graphical interface.
      *
@@ -33,6 +36,7 @@ public class GUI extends UI {
      */
     public GUI(SheetView view, SheetUpdate updater) {
         super(view, updater);
+        this.rendered = new SnapshotView(view);
     }
 
     /**
@@ -52,7 +56,7 @@ public class GUI extends UI {
         // We use a small hack of storing Location instances
         // in the table model so that both the value is rendered
         // but the formula is retrieved when editing.
-        SheetModel model = new SheetModel(frame, view, updater);
+        SheetModel model = new SheetModel(frame, rendered, updater);
         JTable table = new JTable(model);
         style(table);
 
@@ -69,7 +73,15 @@ public class GUI extends UI {
 
         // When the model is updated, re-render the table and
         // call any change callbacks (notably, saving).
-        model.addTableModelListener((e -> refreshUI(table)));
+        // The table repaints the rows of an event itself,
+        // so only events for every row need the whole table to be refreshed.
+        model.addTableModelListener(e -> {
+            if (e.getLastRow() == Integer.MAX_VALUE) {
+                refreshUI(table);
+            } else {
+                rendered.refresh();
+            }
+        });
         for (OnChange callback : changeCallbacks) {
             model.addTableModelListener(e -> callback.change(prompt));
         }
@@ -94,24 +106,26 @@ public class GUI extends UI {
     }
 
     private TableColumn configureColumn(TableColumn column) {
-        column.setCellRenderer(new CellRenderer(view));
-        column.setCellEditor(new CellEditor(view, new JTextField()));
+        column.setCellRenderer(new CellRenderer(rendered));
+        column.setCellEditor(new CellEditor(rendered, new JTextField()));
         return column;
     }
 
     private void refreshUI(JTable table) {
+        rendered.refresh();
         int size = table.getColumnCount() - 1;
-        if (size > view.getColumns()) {
-            for (int column = 0; column < size - view.getColumns(); column++) {
+        if (size > rendered.getColumns()) {
+            for (int column = 0; column < size - rendered.getColumns(); column++) {
                 int columnIndex = size - column;
                 table.removeColumn(table.getColumn(table.getModel().getColumnName(columnIndex)));
             }
-        } else if (size < view.getColumns()) {
-            for (int column = size; column < view.getColumns(); column++) {
+        } else if (size < rendered.getColumns()) {
+            for (int column = size; column < rendered.getColumns(); column++) {
                 table.addColumn(configureColumn(new TableColumn(column + 1)));
             }
         }
-        table.updateUI();
+        table.revalidate();
+        table.repaint();
     }
 
     private class Shortcuts implements KeyListener {
@@ -221,7 +235,7 @@ public class GUI extends UI {
 
         TableColumnModel columnModel = table.getColumnModel();
         columnModel.getColumn(0).setPreferredWidth(Configuration.HEADER_COLUMN_WIDTH);
-        for (int column = 1; column < view.getColumns(); column++) {
+        for (int column = 1; column < rendered.getColumns(); column++) {
             columnModel.getColumn(column).setPreferredWidth(Configuration.COLUMN_WIDTH);
         }
     }
@@ -242,7 +256,7 @@ public class GUI extends UI {
                 return;
             }
 
-            ViewElement element = view.formulaAt(
+            ViewElement element = rendered.formulaAt(
                     table.getSelectedRow() - 1,
                     table.getSelectedColumn() - 1
             );
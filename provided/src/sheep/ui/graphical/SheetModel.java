@@ -1,8 +1,10 @@
 package sheep.ui.graphical;
 
+import sheep.core.ChangeListener;
 import sheep.core.SheetUpdate;
 import sheep.core.SheetView;
 import sheep.core.UpdateResponse;
+import sheep.sheets.CellLocation;
 
 import javax.swing.*;
 import javax.swing.event.TableModelEvent;
@@ -18,6 +20,9 @@ import java.util.List;
  * When a cell is updated, {@link SheetUpdate} is invoked to
  * update the underlying sheet model.
  * A popup is displayed if the update is invalid.
+ * <p>
+ * If the view reports its changes, an event is fired for the rows
+ * that changed rather than for the whole table.
  */
 class SheetModel implements TableModel {
     private final JFrame parent;
@@ -25,6 +30,7 @@ class SheetModel implements TableModel {
     private final SheetUpdate updater;
 
     private final List<TableModelListener> listeners = new ArrayList<>();
+    private final boolean reportsChanges;
 
     /**
      * Create a new sheet model.
@@ -37,6 +43,7 @@ class SheetModel implements TableModel {
         this.parent = parent;
         this.view = view;
         this.updater = updater;
+        this.reportsChanges = view.addChangeListener(new Changes());
     }
 
     @Override
@@ -81,7 +88,7 @@ class SheetModel implements TableModel {
             return "";
         }
         if (rowIndex == 0) {
-            return Character.toString(columnIndex + 64);
+            return CellLocation.columnName(columnIndex - 1);
         }
         if (columnIndex == 0) {
             return rowIndex - 1;
@@ -106,8 +113,48 @@ class SheetModel implements TableModel {
             }
         }
 
+        if (!reportsChanges) {
+            fire(new TableModelEvent(this));
+        }
+    }
+
+    private void fire(TableModelEvent event) {
         for (TableModelListener listener : listeners) {
-            listener.tableChanged(new TableModelEvent(this));
+            listener.tableChanged(event);
+        }
+    }
+
+    /**
+     * Fires a single event for the rows of each change to the view,
+     * or for the whole table if every cell may have changed.
+     */
+    private class Changes implements ChangeListener {
+        @Override
+        public void cellsChanged(int[] rows, int[] columns) {
+            int first = Integer.MAX_VALUE;
+            int last = -1;
+            boolean sameColumn = true;
+            for (int i = 0; i < rows.length; i++) {
+                first = Math.min(first, rows[i]);
+                last = Math.max(last, rows[i]);
+                sameColumn &= columns[i] == columns[0];
+            }
+            // Offset by one to account for headers.
+            int column = sameColumn ? columns[0] + 1 : TableModelEvent.ALL_COLUMNS;
+            onEventThread(new TableModelEvent(SheetModel.this, first + 1, last + 1, column));
+        }
+
+        @Override
+        public void sheetChanged() {
+            onEventThread(new TableModelEvent(SheetModel.this));
+        }
+
+        private void onEventThread(TableModelEvent event) {
+            if (SwingUtilities.isEventDispatchThread()) {
+                fire(event);
+            } else {
+                SwingUtilities.invokeLater(() -> fire(event));
+            }
         }
     }
 
@@ -120,4 +167,4 @@ class SheetModel implements TableModel {
     public void removeTableModelListener(TableModelListener l) {
         listeners.remove(l);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,64 @@
+package sheep.ui.graphical;
+
+import sheep.core.ChangeListener;
+import sheep.core.SheetView;
+import sheep.core.ViewElement;
+
+/**
+ * A view that reads from a snapshot of another view,
+ * the snapshot is only replaced when the view is refreshed.
+ * <p>
+ * The table reads every cell through this view,
+ * so a render never mixes cells from before and after an update to the sheet.
+ */
+class SnapshotView implements SheetView {
+    private final SheetView view;
+    private SheetView current;
+
+    /**
+     * Construct a new view of the current snapshot of the given view.
+     *
+     * @param view The view to take snapshots of.
+     */
+    public SnapshotView(SheetView view) {
+        this.view = view;
+        this.current = view.snapshot();
+    }
+
+    /**
+     * Replace the snapshot that is read with a new snapshot of the view.
+     */
+    public void refresh() {
+        current = view.snapshot();
+    }
+
+    @Override
+    public int getRows() {
+        return current.getRows();
+    }
+
+    @Override
+    public int getColumns() {
+        return current.getColumns();
+    }
+
+    @Override
+    public ViewElement valueAt(int row, int column) {
+        return current.valueAt(row, column);
+    }
+
+    @Override
+    public ViewElement formulaAt(int row, int column) {
+        return current.formulaAt(row, column);
+    }
+
+    @Override
+    public SheetView snapshot() {
+        return current;
+    }
+
+    @Override
+    public boolean addChangeListener(ChangeListener listener) {
+        return view.addChangeListener(listener);
+    }
+}
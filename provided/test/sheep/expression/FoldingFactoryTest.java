@@ -0,0 +1,119 @@
+package sheep.expression;
+
+import org.junit.Before;
+import org.junit.Test;
+import sheep.expression.arithmetic.Arithmetic;
+import sheep.expression.basic.Constant;
+import sheep.expression.basic.Nothing;
+import sheep.expression.basic.Reference;
+import sheep.parsing.ParseException;
+import sheep.parsing.Parser;
+import sheep.parsing.PrattParser;
+import sheep.parsing.SimpleParser;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class FoldingFactoryTest {
+    private FoldingFactory factory;
+    private Parser parser;
+
+    @Before
+    public void setUp() {
+        factory = new FoldingFactory(new CoreFactory());
+        parser = new SimpleParser(factory);
+    }
+
+    private static Expression ref(String identifier) {
+        return new Reference(identifier);
+    }
+
+    /**
+     * Assert that the given input is rendered as written but simplified to the expected expression.
+     */
+    private void assertFolded(String input, Expression expected) throws ParseException {
+        Expression expression = parser.parse(input);
+        assertTrue("Expression was not simplified", expression instanceof Folded);
+        assertEquals(expected, ((Folded) expression).getSimplified());
+        assertEquals(input, expression.render());
+    }
+
+    @Test
+    public void testConstants() throws ParseException, TypeError {
+        assertFolded("1 + 2 * 3", new Constant(7));
+        assertFolded("10 < 2 * 6", new Constant(1));
+        assertEquals(new Constant(7), parser.parse("1 + 2 * 3").value(new HashMap<>()));
+    }
+
+    @Test
+    public void testCombinesConstants() throws ParseException {
+        assertFolded("2 + A0 + 3", Arithmetic.plus(new Expression[]{ref("A0"), new Constant(5)}));
+        assertFolded("2 * A0 * 3 * B0", Arithmetic.times(new Expression[]{ref("A0"), ref("B0"), new Constant(6)}));
+        assertFolded("A0 - 2 - 3", Arithmetic.minus(new Expression[]{ref("A0"), new Constant(5)}));
+        assertFolded("A0 + 2 * 3", Arithmetic.plus(new Expression[]{ref("A0"), new Constant(6)}));
+    }
+
+    @Test
+    public void testIdentities() throws ParseException {
+        assertFolded("A0 * 1", Arithmetic.times(new Expression[]{ref("A0")}));
+        assertFolded("A0 + 0", Arithmetic.plus(new Expression[]{ref("A0")}));
+        assertFolded("A0 / 1 / B0", Arithmetic.divide(new Expression[]{ref("A0"), ref("B0")}));
+    }
+
+    /**
+     * Assert that an identity is still an arithmetic expression,
+     * so it fails to evaluate if the cell it refers to has no numeric value.
+     */
+    @Test(expected = TypeError.class)
+    public void testIdentityOfEmptyCell() throws ParseException, TypeError {
+        Map<String, Expression> state = new HashMap<>();
+        state.put("A0", new Nothing());
+        parser.parse("A0 + 0").value(state);
+    }
+
+    @Test
+    public void testFlattens() throws InvalidExpression {
+        Expression inner = factory.createOperator("+", new Object[]{ref("A0"), ref("B0")});
+        Expression outer = factory.createOperator("+", new Object[]{inner, ref("C0")});
+        assertEquals(Arithmetic.plus(new Expression[]{ref("A0"), ref("B0"), ref("C0")}),
+                ((Folded) outer).getSimplified());
+
+        Expression difference = factory.createOperator("-", new Object[]{ref("A0"), ref("B0")});
+        Expression left = factory.createOperator("-", new Object[]{difference, ref("C0")});
+        assertEquals(Arithmetic.minus(new Expression[]{ref("A0"), ref("B0"), ref("C0")}),
+                ((Folded) left).getSimplified());
+        Expression right = factory.createOperator("-", new Object[]{ref("C0"), difference});
+        assertFalse(right instanceof Folded);
+    }
+
+    @Test
+    public void testUnchanged() throws ParseException {
+        assertEquals(Arithmetic.plus(new Expression[]{ref("A0"), new Constant(1)}), parser.parse("A0 + 1"));
+        assertFalse(parser.parse("4 / 0") instanceof Folded);
+        assertFalse(parser.parse("A0 * 0") instanceof Folded);
+    }
+
+    @Test
+    public void testGroups() throws ParseException {
+        Parser grouping = new PrattParser(factory);
+        Expression expression = grouping.parse("(1 + 2) * A0");
+        assertEquals("(1 + 2) * A0", expression.render());
+        assertEquals(Arithmetic.times(new Expression[]{ref("A0"), new Constant(3)}),
+                ((Folded) expression).getSimplified());
+        Expression grouped = grouping.parse("(A0 + B0)");
+        assertEquals(Arithmetic.plus(new Expression[]{ref("A0"), ref("B0")}), ((Folded) grouped).getSimplified());
+    }
+
+    @Test
+    public void testSigned() throws ParseException {
+        Parser signing = new PrattParser(factory);
+        Expression negated = signing.parse("-(2 + 3)");
+        assertEquals("-(2 + 3)", negated.render());
+        assertEquals(new Constant(-5), ((Folded) negated).getSimplified());
+        Expression plus = signing.parse("+A0 * 1");
+        assertEquals("+A0 * 1", plus.render());
+        assertEquals(Arithmetic.times(new Expression[]{ref("A0")}), ((Folded) plus).getSimplified());
+    }
+}
@@ -0,0 +1,54 @@
+package sheep.expression;
+
+import org.junit.Before;
+import org.junit.Test;
+import sheep.expression.arithmetic.Arithmetic;
+import sheep.expression.basic.Constant;
+import sheep.expression.basic.Nothing;
+import sheep.parsing.ParseException;
+import sheep.parsing.Parser;
+import sheep.parsing.SimpleParser;
+
+import static org.junit.Assert.*;
+
+public class InterningFactoryTest {
+    private InterningFactory factory;
+    private Parser parser;
+
+    @Before
+    public void setUp() {
+        factory = new InterningFactory(new CoreFactory());
+        parser = new SimpleParser(factory);
+    }
+
+    @Test
+    public void testSharedLeaves() {
+        assertSame(factory.createReference("A0"), factory.createReference("A0"));
+        assertSame(factory.createConstant(7), factory.createConstant(7));
+        assertSame(Constant.of(7), factory.createConstant(7));
+        assertSame(factory.createConstant(1L << 40), factory.createConstant(1L << 40));
+        assertSame(Nothing.EMPTY, factory.createEmpty());
+    }
+
+    /**
+     * Assert that structurally equal formulas are parsed into the same expression,
+     * and that equal subtrees of different formulas are shared.
+     */
+    @Test
+    public void testSharedSubtrees() throws ParseException {
+        Expression first = parser.parse("A0 * 2 + B1");
+        Expression second = parser.parse(" A0*2 + B1 ");
+        assertSame(first, second);
+
+        Expression other = parser.parse("A0 * 2 - 4");
+        Expression[] firstArguments = ((Arithmetic) first).getArguments();
+        Expression[] otherArguments = ((Arithmetic) other).getArguments();
+        assertSame(firstArguments[0], otherArguments[0]);
+    }
+
+    @Test
+    public void testDistinct() throws ParseException {
+        assertNotSame(parser.parse("A0 + 1"), parser.parse("1 + A0"));
+        assertNotSame(parser.parse("A0 + 1"), parser.parse("A0 - 1"));
+    }
+}
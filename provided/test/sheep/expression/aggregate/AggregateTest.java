@@ -0,0 +1,115 @@
+package sheep.expression.aggregate;
+
+import org.junit.Before;
+import org.junit.Test;
+import sheep.expression.Expression;
+import sheep.expression.TypeError;
+import sheep.expression.basic.Constant;
+import sheep.expression.basic.Nothing;
+import sheep.expression.basic.Range;
+import sheep.expression.basic.Reference;
+import sheep.sheets.CellLocation;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class AggregateTest {
+    private Map<String, Expression> state;
+    private Range column;
+
+    @Before
+    public void setUp() {
+        state = new HashMap<>();
+        state.put("A0", new Constant(4));
+        state.put("A1", new Constant(-2));
+        state.put("A2", new Nothing());
+        state.put("A3", new Constant(9));
+        column = new Range(new CellLocation(0, 0), new CellLocation(3, 0));
+    }
+
+    private long evaluate(Aggregate aggregate) throws TypeError {
+        Expression result = aggregate.value(state);
+        assertTrue("Result of evaluating an aggregate is not a constant",
+                result instanceof Constant);
+        return ((Constant) result).getValue();
+    }
+
+    /**
+     * Assert that every numeric cell of a range is aggregated and other cells are skipped.
+     */
+    @Test
+    public void testRange() throws TypeError {
+        Expression[] arguments = new Expression[]{column};
+        assertEquals(11, evaluate(Aggregate.sum(arguments)));
+        assertEquals(-2, evaluate(Aggregate.min(arguments)));
+        assertEquals(9, evaluate(Aggregate.max(arguments)));
+        assertEquals(3, evaluate(Aggregate.count(arguments)));
+        assertEquals(3, evaluate(Aggregate.average(arguments)));
+    }
+
+    @Test
+    public void testScalarArguments() throws TypeError {
+        Expression[] arguments = new Expression[]{column, new Constant(20), new Reference("A0")};
+        assertEquals(35, evaluate(Aggregate.sum(arguments)));
+        assertEquals(20, evaluate(Aggregate.max(arguments)));
+        assertEquals(5, evaluate(Aggregate.count(arguments)));
+    }
+
+    @Test
+    public void testCellDependencies() {
+        // a single range's cells are shared rather than resolved again
+        assertSame(column.cellDependencies(),
+                Aggregate.sum(new Expression[]{column, new Constant(20)}).cellDependencies());
+        Aggregate aggregate = Aggregate.sum(new Expression[]{column, new Reference("A0"),
+                new Reference("B1")});
+        assertEquals(Set.of(new CellLocation(0, 0), new CellLocation(1, 0), new CellLocation(2, 0),
+                new CellLocation(3, 0), new CellLocation(1, 1)),
+                Set.of(aggregate.cellDependencies()));
+        assertEquals(5, aggregate.cellDependencies().length);
+    }
+
+    @Test(expected = TypeError.class)
+    public void testNonNumericScalar() throws TypeError {
+        Aggregate.sum(new Expression[]{column, new Reference("A2")}).value(state);
+    }
+
+    @Test
+    public void testNoValues() throws TypeError {
+        Expression[] arguments = new Expression[]{new Range(new CellLocation(5, 1), new CellLocation(9, 2))};
+        assertEquals(0, evaluate(Aggregate.sum(arguments)));
+        assertEquals(0, evaluate(Aggregate.min(arguments)));
+        assertEquals(0, evaluate(Aggregate.count(arguments)));
+        assertEquals(0, evaluate(Aggregate.average(arguments)));
+    }
+
+    @Test
+    public void testPerform() {
+        long[] values = new long[]{12, 2, 5};
+        assertEquals(19, Aggregate.sum(new Expression[]{column}).perform(values));
+        assertEquals(2, Aggregate.min(new Expression[]{column}).perform(values));
+        assertEquals(12, Aggregate.max(new Expression[]{column}).perform(values));
+        assertEquals(3, Aggregate.count(new Expression[]{column}).perform(values));
+        assertEquals(6, Aggregate.average(new Expression[]{column}).perform(values));
+    }
+
+    @Test
+    public void testDependencies() {
+        Aggregate sum = Aggregate.sum(new Expression[]{column, new Reference("B7")});
+        assertEquals(Set.of("A0", "A1", "A2", "A3", "B7"), sum.dependencies());
+    }
+
+    @Test
+    public void testRender() {
+        Aggregate sum = Aggregate.sum(new Expression[]{column, new Constant(4)});
+        assertEquals("SUM(A0:A3, 4)", sum.render());
+        assertEquals("AVG(A0:A3)", Aggregate.average(new Expression[]{column}).render());
+    }
+
+    @Test(expected = TypeError.class)
+    public void testValue() throws TypeError {
+        Aggregate.sum(new Expression[]{new Constant(1)}).value();
+    }
+}
@@ -6,11 +6,13 @@ import sheep.expression.Expression;
 import sheep.expression.TypeError;
 import sheep.expression.basic.Constant;
 import sheep.expression.basic.Reference;
+import sheep.sheets.CellLocation;
 
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.Assert.*;
 
@@ -57,6 +59,24 @@ public class ArithmeticTest {
         assertEquals(new HashSet<>(List.of("Hello", "Hi")), base.dependencies());
     }
 
+    /**
+     * Assert that the dependencies are only computed once.
+     */
+    @Test
+    public void testCachedDependencies() {
+        base = new Exp(new Expression[]{new Reference("A1"), new Reference("Hi"), new Reference("B2")});
+        assertSame(base.dependencies(), base.dependencies());
+        assertEquals(Set.of(new CellLocation(1, 'A'), new CellLocation(2, 'B')),
+                Set.of(base.cellDependencies()));
+        assertSame(base.cellDependencies(), base.cellDependencies());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testUnmodifiableDependencies() {
+        base = new Exp(new Expression[]{new Reference("A1")});
+        base.dependencies().add("C3");
+    }
+
     /**
      * Assert that the result of `Arithmetic.divide` is an instance of the `Divide` class.
      */
@@ -198,4 +218,20 @@ public class ArithmeticTest {
     public void testValue() throws TypeError {
         base.value();
     }
+
+    /**
+     * Assert that arithmetic expressions are equal if they perform the same operation
+     * over equal sub-expressions, in the same order.
+     */
+    @Test
+    public void testEquals() {
+        Expression sum = Arithmetic.plus(new Expression[]{new Constant(1), new Reference("A0")});
+        Expression same = Arithmetic.plus(new Expression[]{new Constant(1), new Reference("A0")});
+        assertEquals(same, sum);
+        assertEquals(same.hashCode(), sum.hashCode());
+        assertNotEquals(Arithmetic.plus(new Expression[]{new Reference("A0"), new Constant(1)}), sum);
+        assertNotEquals(Arithmetic.times(new Expression[]{new Constant(1), new Reference("A0")}), sum);
+        assertEquals(Arithmetic.minus(new Expression[]{sum, new Constant(2)}),
+                Arithmetic.minus(new Expression[]{same, new Constant(2)}));
+    }
 }
@@ -3,7 +3,9 @@ package sheep.expression.arithmetic;
 import org.junit.Test;
 import sheep.expression.Expression;
 import sheep.expression.TypeError;
+import sheep.expression.ValueSource;
 import sheep.expression.basic.Constant;
+import sheep.expression.basic.Nothing;
 
 import java.util.HashMap;
 
@@ -63,4 +65,25 @@ public class DivideTest {
         long result = arith.perform(new long[]{20, 2, 2, 2});
         assertEquals(2, result);
     }
+
+    @Test
+    public void testEvaluate() throws TypeError {
+        Arithmetic arith = new Divide(new Expression[]{new Constant(64), new Constant(2), new Constant(8)});
+        assertEquals(4, arith.evaluate(ValueSource.of(new HashMap<>())));
+    }
+
+    /**
+     * Assert that a type error of a later argument takes precedence over division by zero.
+     */
+    @Test(expected = TypeError.class)
+    public void testEvaluateTypeErrorBeforeZero() throws TypeError {
+        Arithmetic arith = new Divide(new Expression[]{new Constant(64), new Constant(0), new Nothing()});
+        arith.evaluate(ValueSource.of(new HashMap<>()));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testEvaluateByZero() throws TypeError {
+        Arithmetic arith = new Divide(new Expression[]{new Constant(64), new Constant(0), new Constant(2)});
+        arith.evaluate(ValueSource.of(new HashMap<>()));
+    }
 }
@@ -3,7 +3,9 @@ package sheep.expression.arithmetic;
 import org.junit.Test;
 import sheep.expression.Expression;
 import sheep.expression.TypeError;
+import sheep.expression.ValueSource;
 import sheep.expression.basic.Constant;
+import sheep.expression.basic.Nothing;
 
 import java.util.HashMap;
 
@@ -115,4 +117,20 @@ public class LessTest {
         long result = arith.perform(new long[]{2, 3, 4, 6});
         assertEquals(1, result);
     }
+
+    @Test
+    public void testEvaluate() throws TypeError {
+        ValueSource values = ValueSource.of(new HashMap<>());
+        assertEquals(1, new Less(new Expression[]{new Constant(0), new Constant(1), new Constant(2)}).evaluate(values));
+        assertEquals(0, new Less(new Expression[]{new Constant(2), new Constant(1), new Constant(2)}).evaluate(values));
+    }
+
+    /**
+     * Assert that every argument is evaluated even once the result is known.
+     */
+    @Test(expected = TypeError.class)
+    public void testEvaluateEveryArgument() throws TypeError {
+        new Less(new Expression[]{new Constant(2), new Constant(1), new Nothing()})
+                .evaluate(ValueSource.of(new HashMap<>()));
+    }
 }
@@ -74,4 +74,11 @@ public class ConstantTest {
         assertEquals(same, same.value(new HashMap<>()));
         assertEquals(base, same.value(new HashMap<>()));
     }
+
+    @Test
+    public void testOf() {
+        assertEquals(base, Constant.of(24));
+        assertSame(Constant.of(24), Constant.of(24));
+        assertEquals(new Constant(123456789), Constant.of(123456789));
+    }
 }
@@ -0,0 +1,72 @@
+package sheep.expression.basic;
+
+import org.junit.Before;
+import org.junit.Test;
+import sheep.expression.Expression;
+import sheep.expression.TypeError;
+import sheep.expression.ValueSource;
+import sheep.expression.arithmetic.Arithmetic;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class GroupTest {
+    private Expression sum;
+    private Group group;
+
+    @Before
+    public void setUp() {
+        sum = Arithmetic.plus(new Expression[]{new Reference("A1"), new Constant(2)});
+        group = new Group(sum);
+    }
+
+    @Test
+    public void testRender() {
+        assertEquals("(A1 + 2)", group.render());
+        assertEquals("(A1 + 2) * 3",
+                Arithmetic.times(new Expression[]{group, new Constant(3)}).render());
+        assertEquals("GROUP(A1 + 2)", group.toString());
+    }
+
+    @Test
+    public void testBehavesAsInner() throws TypeError {
+        Map<String, Expression> state = new HashMap<>();
+        state.put("A1", new Constant(4));
+        assertEquals(Set.of("A1"), group.dependencies());
+        assertEquals(new Constant(6), group.value(state));
+        assertEquals(6, group.evaluate(ValueSource.of(state)));
+        assertEquals(5, new Group(new Constant(5)).value());
+    }
+
+    @Test
+    public void testUngrouped() {
+        assertSame(sum, Group.ungrouped(new Group(group)));
+        assertSame(sum, Group.ungrouped(sum));
+    }
+
+    @Test
+    public void testEquals() {
+        assertEquals(new Group(sum), group);
+        assertEquals(new Group(sum).hashCode(), group.hashCode());
+        assertNotEquals(sum, group);
+        assertNotEquals(group, sum);
+    }
+
+    @Test
+    public void testSigned() throws TypeError {
+        Expression negated = Arithmetic.minus(new Expression[]{new Constant(0), group});
+        Group signed = new Group("-", group, negated);
+        assertEquals("-(A1 + 2)", signed.render());
+        assertEquals("SIGNED(-GROUP(A1 + 2))", signed.toString());
+        Map<String, Expression> state = new HashMap<>();
+        state.put("A1", new Constant(4));
+        assertEquals(new Constant(-6), signed.value(state));
+        assertSame(negated, Group.ungrouped(signed));
+        assertEquals(new Group("-", group, negated), signed);
+        assertNotEquals(new Group(negated), signed);
+        assertEquals("+A1", new Group("+", new Reference("A1"), new Reference("A1")).render());
+    }
+}
@@ -56,4 +56,14 @@ public class NothingTest {
     public void testValueState() throws TypeError {
         assertEquals(base, base.value(new HashMap<>()));
     }
+
+    /**
+     * Assert that every empty expression is equal.
+     */
+    @Test
+    public void testEquals() {
+        assertEquals(Nothing.EMPTY, base);
+        assertEquals(Nothing.EMPTY.hashCode(), base.hashCode());
+        assertNotEquals(base, new Constant(0));
+    }
 }
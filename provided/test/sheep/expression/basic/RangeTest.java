@@ -0,0 +1,47 @@
+package sheep.expression.basic;
+
+import org.junit.Test;
+import sheep.expression.TypeError;
+import sheep.sheets.CellLocation;
+
+import java.util.HashMap;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class RangeTest {
+    private final Range range = new Range(new CellLocation(2, 1), new CellLocation(1, 0));
+
+    /**
+     * Assert that a range starts at its top left cell regardless of the order of its corners.
+     */
+    @Test
+    public void testCorners() {
+        assertEquals(new CellLocation(1, 0), range.getStart());
+        assertEquals(new CellLocation(2, 1), range.getEnd());
+        assertEquals(new Range(new CellLocation(1, 0), new CellLocation(2, 1)), range);
+        assertEquals(new Range(new CellLocation(1, 0), new CellLocation(2, 1)).hashCode(), range.hashCode());
+        assertNotEquals(new Range(new CellLocation(1, 0), new CellLocation(2, 2)), range);
+    }
+
+    @Test
+    public void testDependencies() {
+        assertEquals(Set.of("A1", "A2", "B1", "B2"), range.dependencies());
+    }
+
+    @Test
+    public void testRender() {
+        assertEquals("A1:B2", range.render());
+        assertEquals("RANGE(A1:B2)", range.toString());
+    }
+
+    @Test
+    public void testValueIsItself() throws TypeError {
+        assertSame(range, range.value(new HashMap<>()));
+    }
+
+    @Test(expected = TypeError.class)
+    public void testValue() throws TypeError {
+        range.value();
+    }
+}
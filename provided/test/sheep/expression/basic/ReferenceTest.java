@@ -4,6 +4,8 @@ import org.junit.Before;
 import org.junit.Test;
 import sheep.expression.Expression;
 import sheep.expression.TypeError;
+import sheep.expression.ValueSource;
+import sheep.sheets.CellLocation;
 
 import java.util.Collections;
 import java.util.HashMap;
@@ -115,4 +117,26 @@ public class ReferenceTest {
         assertEquals(nothing, same.value(state));
         assertEquals(nothing, same.value(state));
     }
+
+    @Test
+    public void testCellDependencies() {
+        assertArrayEquals(new CellLocation[]{new CellLocation(0, 'A')}, base.cellDependencies());
+        assertSame(base.cellDependencies(), base.cellDependencies());
+        assertEquals(0, new Reference("hello").cellDependencies().length);
+    }
+
+    @Test
+    public void testEvaluate() throws TypeError {
+        Map<String, Expression> state = new HashMap<>();
+        state.put("A0", new Constant(4));
+        state.put("hello", new Reference("A0"));
+        ValueSource values = ValueSource.of(state);
+        assertEquals(4, base.evaluate(values));
+        assertEquals(4, new Reference("hello").evaluate(values));
+    }
+
+    @Test(expected = TypeError.class)
+    public void testEvaluateMissing() throws TypeError {
+        other.evaluate(ValueSource.of(new HashMap<>()));
+    }
 }
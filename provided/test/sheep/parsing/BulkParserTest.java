@@ -0,0 +1,52 @@
+package sheep.parsing;
+
+import org.junit.Test;
+import sheep.expression.CoreFactory;
+import sheep.expression.InterningFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BulkParserTest {
+    @Test
+    public void testEmpty() {
+        BulkParser parser = new BulkParser(new PrattParser(new CoreFactory()));
+        assertTrue(parser.parseAll(List.of()).isEmpty());
+    }
+
+    @Test
+    public void testSerial() throws ParseException {
+        Parser single = new PrattParser(new CoreFactory());
+        BulkParser parser = new BulkParser(single);
+        List<ParseResult> results = parser.parseAll(List.of("1", "A1 + 2", "4 + * 5"));
+        assertEquals(3, results.size());
+        assertEquals(single.parse("1"), results.get(0).getExpression());
+        assertEquals(single.parse("A1 + 2"), results.get(1).getExpression());
+        assertFalse(results.get(2).isSuccess());
+        assertEquals(4, results.get(2).getPosition());
+    }
+
+    @Test
+    public void testParallel() throws ParseException {
+        Parser single = new PrattParser(new InterningFactory(new CoreFactory()));
+        BulkParser parser = new BulkParser(single, 8);
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            // every tenth input is malformed
+            inputs.add(i % 10 == 0 ? i + " +" : "A" + i + " * " + i);
+        }
+        List<ParseResult> results = parser.parseAll(inputs);
+        assertEquals(inputs.size(), results.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            ParseResult result = results.get(i);
+            if (i % 10 == 0) {
+                assertFalse(result.isSuccess());
+                assertEquals(inputs.get(i).length(), result.getPosition());
+            } else {
+                assertEquals(single.parse(inputs.get(i)), result.getExpression());
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package sheep.parsing;
+
+import org.junit.Before;
+import org.junit.Test;
+import sheep.expression.CoreFactory;
+import sheep.expression.Expression;
+
+import static org.junit.Assert.*;
+
+public class CachingParserTest {
+    private CountingParser counting;
+    private CachingParser parser;
+
+    /**
+     * A parser that counts how many inputs it parses.
+     */
+    private static class CountingParser implements Parser {
+        private final Parser parser = new PrattParser(new CoreFactory());
+        private int parsed = 0;
+
+        @Override
+        public Expression parse(String input) throws ParseException {
+            parsed++;
+            return parser.parse(input);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        counting = new CountingParser();
+        parser = new CachingParser(counting, 2);
+    }
+
+    @Test
+    public void testRepeatedInput() throws ParseException {
+        Expression first = parser.parse("A3 + A2");
+        assertSame(first, parser.parse("A3 + A2"));
+        assertSame(first, parser.parse("A3 + A2"));
+        assertEquals(1, counting.parsed);
+        assertEquals(2, parser.hits());
+        assertEquals(1, parser.misses());
+    }
+
+    /**
+     * Assert that the least recently used input is forgotten once the capacity is exceeded.
+     */
+    @Test
+    public void testEvictsLeastRecentlyUsed() throws ParseException {
+        parser.parse("1");
+        parser.parse("2");
+        parser.parse("1");
+        parser.parse("3");
+        assertEquals(2, parser.size());
+        parser.parse("1");
+        assertEquals(3, counting.parsed);
+        parser.parse("2");
+        assertEquals(4, counting.parsed);
+    }
+
+    @Test
+    public void testFailuresNotRemembered() {
+        for (int i = 0; i < 2; i++) {
+            try {
+                parser.parse("4 + * 5");
+                fail("Parsed malformed input");
+            } catch (ParseException expected) {
+                // expected
+            }
+        }
+        assertEquals(2, counting.parsed);
+        assertEquals(0, parser.size());
+        assertEquals(2, parser.misses());
+    }
+
+    @Test
+    public void testClear() throws ParseException {
+        parser.parse("");
+        parser.clear();
+        parser.parse("");
+        assertEquals(2, counting.parsed);
+        assertEquals(2, parser.misses());
+    }
+
+    @Test
+    public void testTryParse() throws ParseException {
+        Expression first = parser.parse("A3 + A2");
+        ParseResult result = parser.tryParse("A3 + A2");
+        assertTrue(result.isSuccess());
+        assertSame(first, result.getExpression());
+        assertEquals(1, counting.parsed);
+        assertEquals(1, parser.hits());
+    }
+
+    @Test
+    public void testTryParseFailure() {
+        assertFalse(parser.tryParse("4 + * 5").isSuccess());
+        assertFalse(parser.tryParse("4 + * 5").isSuccess());
+        assertEquals(2, counting.parsed);
+        assertEquals(0, parser.size());
+    }
+}
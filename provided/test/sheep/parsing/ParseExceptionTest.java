@@ -61,4 +61,12 @@ public class ParseExceptionTest {
                 expected,
                 actual);
     }
+
+    @Test
+    public void throwExceptionWithPosition() {
+        ParseException exception = new ParseException("Unexpected ')'", 4);
+        assertEquals(4, exception.getPosition());
+        assertEquals("Unexpected ')' at position 4", exception.getMessage());
+        assertEquals(-1, new ParseException("Unknown input").getPosition());
+    }
 }
@@ -0,0 +1,68 @@
+package sheep.parsing;
+
+import org.junit.Test;
+import sheep.expression.Expression;
+import sheep.expression.basic.Constant;
+
+import static org.junit.Assert.*;
+
+public class ParseResultTest {
+    @Test
+    public void testSuccess() throws ParseException {
+        Expression expression = new Constant(42);
+        ParseResult result = ParseResult.success(expression);
+        assertTrue(result.isSuccess());
+        assertSame(expression, result.getExpression());
+        assertNull(result.getMessage());
+        assertEquals(-1, result.getPosition());
+        assertSame(expression, result.orElseThrow());
+    }
+
+    @Test
+    public void testFailure() {
+        ParseResult result = ParseResult.failure("Unexpected ')'", 5);
+        assertFalse(result.isSuccess());
+        assertNull(result.getExpression());
+        assertEquals("Unexpected ')'", result.getMessage());
+        assertEquals(5, result.getPosition());
+    }
+
+    @Test
+    public void testTryParsePositionalException() {
+        Parser parser = input -> {
+            throw new ParseException("Unexpected ')'", 5);
+        };
+        ParseResult result = parser.tryParse("1 + )");
+        assertEquals("Unexpected ')'", result.getMessage());
+        assertEquals(5, result.getPosition());
+        assertEquals("ParseResult(Unexpected ')' at position 5)", result.toString());
+        try {
+            result.orElseThrow();
+            fail("Failed result did not throw");
+        } catch (ParseException e) {
+            assertEquals("Unexpected ')' at position 5", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testFailureThrows() {
+        try {
+            ParseResult.failure("Unexpected ')'", 5).orElseThrow();
+            fail("Failed result did not throw");
+        } catch (ParseException e) {
+            assertEquals("Unexpected ')' at position 5", e.getMessage());
+            assertEquals(5, e.getPosition());
+        }
+    }
+
+    @Test
+    public void testFailureWithoutPosition() {
+        try {
+            ParseResult.failure("Invalid range", -1).orElseThrow();
+            fail("Failed result did not throw");
+        } catch (ParseException e) {
+            assertEquals("Invalid range", e.getMessage());
+            assertEquals(-1, e.getPosition());
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package sheep.parsing;
+
+import org.junit.Before;
+import org.junit.Test;
+import sheep.expression.CoreFactory;
+import sheep.expression.Expression;
+import sheep.expression.TypeError;
+import sheep.expression.basic.Constant;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class PrattParserTest {
+    private Parser parser;
+
+    @Before
+    public void setUp() {
+        parser = new PrattParser(new EchoFactory());
+    }
+
+    private void assertParses(String expected, String input) throws ParseException {
+        assertEquals(expected, parser.parse(input).toString());
+    }
+
+    /**
+     * Assert that the input fails to parse at the given position.
+     */
+    private void assertFailsAt(int position, String input) {
+        try {
+            parser.parse(input);
+            fail("Parsed malformed input: " + input);
+        } catch (ParseException e) {
+            assertEquals(position, e.getPosition());
+        }
+        ParseResult result = parser.tryParse(input);
+        assertFalse(result.isSuccess());
+        assertEquals(position, result.getPosition());
+    }
+
+    @Test
+    public void testEmpty() throws ParseException {
+        assertParses("(Empty)", "");
+        assertParses("(Empty)", " \t ");
+    }
+
+    @Test
+    public void testConstant() throws ParseException {
+        assertParses("(Constant: 42)", "  42\t");
+        assertParses("(Constant: -42)", "-42");
+        assertParses("(Constant: 42)", "+42");
+        assertParses("(Constant: " + Long.MIN_VALUE + ")", String.valueOf(Long.MIN_VALUE));
+        assertParses("(Constant: " + Long.MAX_VALUE + ")", String.valueOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testReference() throws ParseException {
+        assertParses("(Reference: HEY)", "HEY ");
+        assertParses("(Reference: 1A)", "1A");
+    }
+
+    /**
+     * Assert that operands are collected as SimpleParser collects them.
+     */
+    @Test
+    public void testOperators() throws ParseException {
+        assertParses("(Operator: + [(Constant: 3), (Constant: 20), (Constant: 12), (Constant: 100)])",
+                "3 + 20 + 12 + 100");
+        assertParses("(Operator: + [(Operator: - [(Operator: * [(Constant: 3), (Constant: 2), (Constant: 20)]), "
+                        + "(Operator: / [(Constant: 2), (Constant: 15)])]), "
+                        + "(Operator: * [(Constant: 12), (Constant: 100)])])",
+                "3 * 2 * 20 - 2 / 15 + 12 * 100");
+        assertParses("(Operator: = [(Reference: A1), (Operator: < [(Reference: B1), (Constant: 3)])])",
+                "A1 = B1 < 3");
+        for (String input : new String[]{"1 + 2 * 3 - 4 / 5", "A1 = B2", "4 < 5 = 1", "2 * 3 / 4"}) {
+            assertEquals(new SimpleParser(new EchoFactory()).parse(input).toString(),
+                    parser.parse(input).toString());
+        }
+    }
+
+    @Test
+    public void testNegativeOperands() throws ParseException {
+        assertParses("(Operator: - [(Constant: 1), (Constant: -2)])", "1 - -2");
+        assertParses("(Operator: - [(Constant: 1), (Constant: 2)])", "1 -2");
+        assertParses("SIGNED(-(Reference: A1))", "-A1");
+        assertParses("SIGNED(+(Reference: A1))", "+A1");
+        assertParses("(Operator: * [(Constant: 2), SIGNED(-(Constant: 3))])", "2 * - 3");
+    }
+
+    @Test
+    public void testSignedRendering() throws ParseException {
+        Parser core = new PrattParser(new CoreFactory());
+        for (String input : new String[]{"-A1", "+A1", "-(A1 + B1)", "2 * -A1", "--A1", "-SUM(A1:A3)"}) {
+            assertEquals(input, core.parse(input).render());
+        }
+    }
+
+    @Test
+    public void testSignedValue() throws ParseException, TypeError {
+        Parser core = new PrattParser(new CoreFactory());
+        Map<String, Expression> state = new HashMap<>();
+        state.put("A1", new Constant(4));
+        state.put("B1", new Constant(3));
+        assertEquals(new Constant(-7), core.parse("-(A1 + B1)").value(state));
+        assertEquals(new Constant(4), core.parse("+A1").value(state));
+        assertEquals(new Constant(-8), core.parse("2 * -A1").value(state));
+    }
+
+    @Test
+    public void testGroups() throws ParseException {
+        assertParses("(Operator: * [GROUP((Operator: + [(Constant: 1), (Constant: 2)])), (Constant: 3)])",
+                "(1 + 2) * 3");
+        assertParses("GROUP(GROUP((Reference: A1)))", "((A1))");
+    }
+
+    @Test
+    public void testRangesAndFunctions() throws ParseException {
+        assertParses("(Range: A1:B2)", "A1 : B2");
+        assertParses("(Operator: + [(Operator: SUM [(Range: A1:A10), (Constant: 4)]), (Constant: 1)])",
+                "sum(A1:A10, 4) + 1");
+        assertParses("(Operator: COUNT [])", "COUNT ( )");
+        assertParses("(Operator: MAX [(Operator: * [GROUP((Operator: + [(Reference: A1), (Constant: 2)])), "
+                + "(Constant: 3)])])", "MAX((A1 + 2) * 3)");
+    }
+
+    @Test
+    public void testErrorPositions() {
+        assertFailsAt(4, "4 + * 5");
+        assertFailsAt(4, "4 + ");
+        assertFailsAt(2, "A 2");
+        assertFailsAt(6, "(1 + 2");
+        assertFailsAt(5, "1 + 2)");
+        assertFailsAt(3, "A1:");
+        assertFailsAt(0, "A1B(2)");
+        assertFailsAt(8, "SUM(A1, )");
+        assertFailsAt(0, "99999999999999999999");
+        assertFailsAt(2, "42.0");
+    }
+
+    /**
+     * Assert that the parsed expression renders as written, so parentheses are kept.
+     */
+    @Test
+    public void testRender() throws ParseException, TypeError {
+        Parser core = new PrattParser(new CoreFactory());
+        Expression expression = core.parse("(1 + 2) * 3");
+        assertEquals("(1 + 2) * 3", expression.render());
+        assertEquals(expression, core.parse(expression.render()));
+        Map<String, Expression> state = new HashMap<>();
+        assertEquals(9, expression.value(state).value());
+        assertEquals(-5, core.parse("-(2 + 3)").value(state).value());
+    }
+
+    @Test
+    public void testTryParse() {
+        ParseResult result = parser.tryParse("(A1 + 2) * -3");
+        assertTrue(result.isSuccess());
+        assertEquals("(Operator: * [GROUP((Operator: + [(Reference: A1), (Constant: 2)])), "
+                + "(Constant: -3)])", result.getExpression().toString());
+        assertNull(result.getMessage());
+    }
+
+    @Test
+    public void testTryParseFailure() {
+        ParseResult result = parser.tryParse("4 + * 5");
+        assertFalse(result.isSuccess());
+        assertNull(result.getExpression());
+        assertEquals("Expected an expression", result.getMessage());
+        assertEquals(4, result.getPosition());
+    }
+
+    @Test
+    public void testTryParseMatchesParse() {
+        try {
+            parser.parse("sum(A1:) + 1");
+            fail("Parsed malformed input");
+        } catch (ParseException e) {
+            ParseResult result = parser.tryParse("sum(A1:) + 1");
+            assertEquals(e.getMessage(),
+                    result.getMessage() + " at position " + result.getPosition());
+        }
+    }
+}
@@ -72,6 +72,11 @@ class EchoFactory implements ExpressionFactory {
     public Expression createOperator(String name, Object[] args) throws InvalidExpression {
         return new InfoExpr("Operator: " + name + " " + Arrays.toString(args));
     }
+
+    @Override
+    public Expression createRange(String start, String end) {
+        return new InfoExpr("Range: " + start + ":" + end);
+    }
 }
 
 public class SimpleParserTest {
@@ -274,4 +279,37 @@ public class SimpleParserTest {
     public void testInvalidChars1() throws ParseException {
         Expression expression = parser.parse("_ =_");
     }
+
+    @Test
+    public void testRange() throws ParseException {
+        Expression expression = parser.parse(" A1 : B20 ");
+        assertEquals("(Range: A1:B20)", expression.toString());
+    }
+
+    @Test
+    public void testFunction() throws ParseException {
+        Expression expression = parser.parse("sum(A1:A10, 4)");
+        assertEquals("(Operator: SUM [(Range: A1:A10), (Constant: 4)])", expression.toString());
+    }
+
+    /**
+     * Assert that operators within the arguments of a function are parsed
+     * as part of the argument, and operators around it are parsed first.
+     */
+    @Test
+    public void testFunctionInArithmetic() throws ParseException {
+        Expression expression = parser.parse("MAX(A1 + 2, MIN(B1:B3)) * 3");
+        assertEquals("(Operator: * [(Operator: MAX [(Operator: + [(Reference: A1), (Constant: 2)]), "
+                + "(Operator: MIN [(Range: B1:B3)])]), (Constant: 3)])", expression.toString());
+    }
+
+    @Test(expected = ParseException.class)
+    public void testUnbalancedFunction() throws ParseException {
+        parser.parse("SUM(A1:A3))(");
+    }
+
+    @Test(expected = ParseException.class)
+    public void testInvalidRange() throws ParseException {
+        parser.parse("A1:A2:A3");
+    }
 }
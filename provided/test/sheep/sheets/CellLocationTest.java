@@ -2,6 +2,7 @@ package sheep.sheets;
 
 import org.junit.Test;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.Assert.*;
@@ -289,4 +290,83 @@ public class CellLocationTest {
         assertEquals("F10", cell.toString());
     }
 
+    /**
+     * Assert that cell locations from the flyweight factory are equal to constructed ones,
+     * both within and beyond the cached region.
+     */
+    @Test
+    public void testOf() {
+        assertEquals(new CellLocation(3, 4), CellLocation.of(3, 4));
+        assertSame(CellLocation.of(3, 4), CellLocation.of(3, 4));
+        assertEquals(new CellLocation(100000, 2), CellLocation.of(100000, 2));
+        assertEquals(new CellLocation(-1, 2), CellLocation.of(-1, 2));
+    }
+
+    /**
+     * Assert that packing a cell location can be reversed.
+     */
+    @Test
+    public void testPack() {
+        long key = CellLocation.pack(123456, 25);
+        assertEquals(123456, CellLocation.rowOf(key));
+        assertEquals(25, CellLocation.columnOf(key));
+        assertEquals(key, new CellLocation(123456, 25).pack());
+        assertNotEquals(CellLocation.pack(1, 2), CellLocation.pack(2, 1));
+    }
+
+    /**
+     * Assert that equal cell locations have equal hash codes.
+     */
+    @Test
+    public void testHashCode() {
+        assertEquals(new CellLocation(7, 'C').hashCode(), new CellLocation(7, 2).hashCode());
+    }
+
+    /**
+     * Attempt to construct CellLocations with multi-letter columns using maybeReference.
+     * Assert appropriate getRow() and getColumn() values.
+     */
+    @Test
+    public void testMaybeReferenceMultiLetter() {
+        assertEquals(Optional.of(new CellLocation(1, 26)), CellLocation.maybeReference("AA1"));
+        assertEquals(Optional.of(new CellLocation(10, 27)), CellLocation.maybeReference("AB10"));
+        assertEquals(Optional.of(new CellLocation(3, 701)), CellLocation.maybeReference("ZZ3"));
+        assertEquals(Optional.of(new CellLocation(2000000, 16383)),
+                CellLocation.maybeReference("XFD2000000"));
+    }
+
+    /**
+     * Assert that strings beyond the addressable columns and rows are not references.
+     */
+    @Test
+    public void testMaybeReferenceOutOfRange() {
+        assertTrue(CellLocation.maybeReference("XFE1").isEmpty());
+        assertTrue(CellLocation.maybeReference("AAAA1").isEmpty());
+        assertTrue(CellLocation.maybeReference("A99999999999").isEmpty());
+        assertTrue(CellLocation.maybeReference("AA").isEmpty());
+        assertTrue(CellLocation.maybeReference("A1A").isEmpty());
+        assertTrue(CellLocation.maybeReference("aA1").isEmpty());
+    }
+
+    /**
+     * Assert that multi-letter columns are named in toString and parse back.
+     */
+    @Test
+    public void testToStringMultiLetter() {
+        assertEquals("AA4", new CellLocation(4, 26).toString());
+        assertEquals("AZ0", new CellLocation(0, 51).toString());
+        assertEquals("BA0", new CellLocation(0, 52).toString());
+        assertEquals("XFD7", new CellLocation(7, 16383).toString());
+        for (int column = 0; column < CellLocation.MAX_COLUMNS; column++) {
+            CellLocation location = new CellLocation(column, column);
+            assertEquals(Optional.of(location), CellLocation.maybeReference(location.toString()));
+        }
+    }
+
+    @Test
+    public void testResolve() {
+        assertArrayEquals(new CellLocation[0], CellLocation.resolve(List.of()));
+        assertArrayEquals(new CellLocation[]{new CellLocation(2, 'A'), new CellLocation(10, 27)},
+                CellLocation.resolve(List.of("A2", "hello", "AB10", "2A")));
+    }
 }
@@ -0,0 +1,80 @@
+package sheep.sheets;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ColumnIndexTest {
+    private static void assertSummary(long count, long sum, long min, long max, RangeSummary summary) {
+        assertEquals(count, summary.count());
+        assertEquals(sum, summary.sum());
+        assertEquals(min, summary.min());
+        assertEquals(max, summary.max());
+    }
+
+    @Test
+    public void testSummarize() {
+        ColumnIndex index = new ColumnIndex(new long[]{5, 0, -3, 8, 1},
+                new boolean[]{true, false, true, true, true});
+        RangeSummary summary = new RangeSummary();
+        index.summarize(0, 4, summary);
+        assertSummary(4, 11, -3, 8, summary);
+
+        summary = new RangeSummary();
+        index.summarize(1, 1, summary);
+        assertSummary(0, 0, 0, 0, summary);
+
+        summary = new RangeSummary();
+        index.summarize(3, 2, summary);
+        assertSummary(0, 0, 0, 0, summary);
+    }
+
+    @Test
+    public void testSet() {
+        ColumnIndex index = new ColumnIndex(new long[3], new boolean[3]);
+        index.set(1, 7, true);
+        index.set(2, -7, true);
+        RangeSummary summary = new RangeSummary();
+        index.summarize(0, 2, summary);
+        assertSummary(2, 0, -7, 7, summary);
+
+        index.set(2, 0, false);
+        summary = new RangeSummary();
+        index.summarize(0, 2, summary);
+        assertSummary(1, 7, 7, 7, summary);
+        assertEquals(7, summary.average());
+    }
+
+    /**
+     * Asserts that every range is summarised the same as summing the values directly,
+     * after many random changes.
+     */
+    @Test
+    public void testMatchesScan() {
+        Random random = new Random(2002);
+        int size = 37;
+        long[] values = new long[size];
+        boolean[] numeric = new boolean[size];
+        ColumnIndex index = new ColumnIndex(values.clone(), numeric.clone());
+        for (int change = 0; change < 500; change++) {
+            int row = random.nextInt(size);
+            values[row] = random.nextInt(2000) - 1000;
+            numeric[row] = random.nextInt(4) != 0;
+            index.set(row, values[row], numeric[row]);
+
+            int from = random.nextInt(size);
+            int to = from + random.nextInt(size - from);
+            RangeSummary expected = new RangeSummary();
+            for (int i = from; i <= to; i++) {
+                if (numeric[i]) {
+                    expected.add(values[i]);
+                }
+            }
+            RangeSummary actual = new RangeSummary();
+            index.summarize(from, to, actual);
+            assertSummary(expected.count(), expected.sum(), expected.min(), expected.max(), actual);
+        }
+    }
+}
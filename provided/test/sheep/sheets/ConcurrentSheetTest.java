@@ -0,0 +1,179 @@
+package sheep.sheets;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import sheep.expression.Expression;
+import sheep.expression.TypeError;
+import sheep.expression.aggregate.Aggregate;
+import sheep.expression.arithmetic.Arithmetic;
+import sheep.expression.basic.Constant;
+import sheep.expression.basic.Range;
+import sheep.expression.basic.Reference;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentSheetTest {
+    public static final double testWeight = 2;
+
+    @Rule
+    public Timeout timeout = new Timeout(60000);
+
+    private Sheet sheet;
+
+    @Before
+    public void setUp() {
+        sheet = new SheetBuilder(new EchoParser(), new Constant(0))
+                .concurrent()
+                .empty(100, 8);
+    }
+
+    private interface Work {
+        void run(int thread) throws TypeError;
+    }
+
+    /**
+     * Run the given work on the given amount of threads at once, failing if any throws.
+     */
+    private static void onThreads(int threads, Work work) throws InterruptedException {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> started = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            int thread = i;
+            Thread worker = new Thread(() -> {
+                try {
+                    work.run(thread);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            worker.start();
+            started.add(worker);
+        }
+        for (Thread worker : started) {
+            worker.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+    }
+
+    private static Expression plus(Expression... arguments) {
+        return Arithmetic.plus(arguments);
+    }
+
+    @Test
+    public void testBuilder() {
+        assertTrue(sheet instanceof ConcurrentSheet);
+        assertFalse(new SheetBuilder(new EchoParser(), new Constant(0)).empty(1, 1)
+                instanceof ConcurrentSheet);
+    }
+
+    @Test
+    public void testIndependentUpdates() throws InterruptedException {
+        onThreads(8, column -> {
+            String top = CellLocation.columnName(column) + "0";
+            for (int row = 1; row < 100; row++) {
+                sheet.update(new CellLocation(row, column),
+                        plus(new Reference(top), new Constant(row)));
+            }
+            for (int value = 1; value <= 50; value++) {
+                sheet.update(new CellLocation(0, column), new Constant(value * column));
+            }
+        });
+        for (int column = 0; column < 8; column++) {
+            for (int row = 1; row < 100; row++) {
+                assertEquals(new Constant(50 * column + row),
+                        sheet.valueAt(new CellLocation(row, column)));
+            }
+        }
+    }
+
+    @Test
+    public void testSharedDependent() throws TypeError, InterruptedException {
+        sheet.update(new CellLocation(0, 7), plus(new Reference("A0"), new Reference("B0"),
+                new Reference("C0"), new Reference("D0")));
+        onThreads(4, column -> {
+            for (int value = 1; value <= 200; value++) {
+                sheet.update(new CellLocation(0, column), new Constant(value));
+            }
+        });
+        assertEquals(new Constant(800), sheet.valueAt(new CellLocation(0, 7)));
+    }
+
+    @Test
+    public void testChainedUpdates() throws TypeError, InterruptedException {
+        // each thread extends the chain of the previous column, so every update overlaps
+        for (int column = 1; column < 8; column++) {
+            sheet.update(new CellLocation(0, column),
+                    plus(new Reference(CellLocation.columnName(column - 1) + "0"), new Constant(1)));
+        }
+        onThreads(4, thread -> {
+            for (int value = 0; value < 100; value++) {
+                sheet.update(new CellLocation(thread + 1, 0), new Constant(value));
+                sheet.update(new CellLocation(0, 0), new Constant(thread));
+            }
+        });
+        long first = sheet.valueAt(new CellLocation(0, 0)).value();
+        for (int column = 1; column < 8; column++) {
+            assertEquals(new Constant(first + column), sheet.valueAt(new CellLocation(0, column)));
+        }
+    }
+
+    @Test
+    public void testTypeErrorRollback() throws TypeError, InterruptedException {
+        sheet.update(new CellLocation(0, 0), new Constant(1));
+        sheet.update(new CellLocation(1, 0), plus(new Reference("A0"), new Constant(1)));
+        onThreads(4, thread -> {
+            for (int i = 0; i < 50; i++) {
+                try {
+                    sheet.update(new CellLocation(0, 0),
+                            plus(new Reference("missing"), new Constant(thread)));
+                    fail("Expected a type error");
+                } catch (TypeError e) {
+                    // expected
+                }
+                sheet.update(new CellLocation(2, thread + 1), new Constant(i));
+            }
+        });
+        assertEquals(new Constant(1), sheet.formulaAt(new CellLocation(0, 0)));
+        assertEquals(new Constant(2), sheet.valueAt(new CellLocation(1, 0)));
+        sheet.update(new CellLocation(0, 0), new Constant(5));
+        assertEquals(new Constant(6), sheet.valueAt(new CellLocation(1, 0)));
+    }
+
+    @Test
+    public void testBatchAcrossStripes() throws TypeError {
+        HashMap<CellLocation, Expression> updates = new HashMap<>();
+        for (int row = 0; row < 100; row++) {
+            updates.put(new CellLocation(row, 0), new Constant(row));
+            updates.put(new CellLocation(row, 1), plus(new Reference("A" + row), new Constant(1)));
+        }
+        sheet.updateAll(updates);
+        for (int row = 0; row < 100; row++) {
+            assertEquals(new Constant(row + 1), sheet.valueAt(new CellLocation(row, 1)));
+        }
+        assertEquals(Set.of(new CellLocation(5, 1)), sheet.usedBy(new CellLocation(5, 0)));
+    }
+
+    @Test
+    public void testAggregateOfColumn() throws TypeError, InterruptedException {
+        Expression[] column = new Expression[]{new Range(new CellLocation(0, 0), new CellLocation(99, 0))};
+        sheet.update(new CellLocation(0, 1), Aggregate.sum(column));
+        sheet.update(new CellLocation(1, 1), Aggregate.max(column));
+        onThreads(4, thread -> {
+            for (int row = thread; row < 100; row += 4) {
+                sheet.update(new CellLocation(row, 0), new Constant(row));
+            }
+        });
+        assertEquals(new Constant(4950), sheet.valueAt(new CellLocation(0, 1)));
+        assertEquals(new Constant(99), sheet.valueAt(new CellLocation(1, 1)));
+    }
+}
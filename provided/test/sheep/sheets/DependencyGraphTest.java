@@ -0,0 +1,109 @@
+package sheep.sheets;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class DependencyGraphTest {
+    private DependencyGraph graph;
+
+    @Before
+    public void setUp() {
+        graph = new DependencyGraph();
+    }
+
+    private Set<Long> usages(long key) {
+        Set<Long> result = new HashSet<>();
+        int node = graph.node(key);
+        if (node < 0) {
+            return result;
+        }
+        for (int cursor = graph.first(node); cursor != DependencyGraph.END;
+                cursor = graph.next(node, cursor)) {
+            result.add(graph.key(graph.target(cursor)));
+        }
+        return result;
+    }
+
+    @Test
+    public void testEmpty() {
+        assertEquals(0, graph.nodes());
+        assertEquals(-1, graph.node(CellLocation.pack(0, 0)));
+        graph.removeEdge(CellLocation.pack(0, 0), CellLocation.pack(1, 0));
+        assertEquals(0, graph.nodes());
+    }
+
+    @Test
+    public void testAddEdges() {
+        graph.addEdge(1, 2);
+        graph.addEdge(1, 3);
+        graph.addEdge(2, 3);
+        assertEquals(3, graph.nodes());
+        assertEquals(Set.of(2L, 3L), usages(1));
+        assertEquals(Set.of(3L), usages(2));
+        assertEquals(Set.of(), usages(3));
+    }
+
+    @Test
+    public void testRemoveEdges() {
+        graph.addEdge(1, 2);
+        graph.addEdge(1, 3);
+        graph.removeEdge(1, 2);
+        graph.removeEdge(1, 4);
+        assertEquals(Set.of(3L), usages(1));
+        graph.removeEdge(1, 3);
+        assertEquals(Set.of(), usages(1));
+    }
+
+    @Test
+    public void testCountedEdges() {
+        graph.addEdge(1, 2);
+        graph.addEdge(1, 2);
+        graph.removeEdge(1, 2);
+        assertEquals(Set.of(2L), usages(1));
+        graph.removeEdge(1, 2);
+        assertEquals(Set.of(), usages(1));
+    }
+
+    /**
+     * Add and remove enough edges that the compressed rows are rebuilt,
+     * then keep editing both the rebuilt rows and the overflow.
+     */
+    @Test
+    public void testCompaction() {
+        for (long to = 1; to <= 500; to++) {
+            graph.addEdge(0, to);
+            graph.addEdge(to, to + 1000);
+        }
+        for (long to = 1; to <= 500; to += 2) {
+            graph.removeEdge(0, to);
+        }
+        Set<Long> expected = new HashSet<>();
+        for (long to = 2; to <= 500; to += 2) {
+            expected.add(to);
+        }
+        assertEquals(expected, usages(0));
+
+        graph.addEdge(0, 1);
+        graph.removeEdge(0, 2);
+        expected.add(1L);
+        expected.remove(2L);
+        assertEquals(expected, usages(0));
+        assertEquals(Set.of(1250L), usages(250));
+    }
+
+    @Test
+    public void testClear() {
+        graph.addEdge(1, 2);
+        graph.clear();
+        assertEquals(0, graph.nodes());
+        assertEquals(-1, graph.node(1));
+        graph.addEdge(2, 1);
+        assertEquals(Set.of(1L), usages(2));
+        assertEquals(Set.of(), usages(1));
+    }
+}
@@ -0,0 +1,140 @@
+package sheep.sheets;
+
+import org.junit.Before;
+import org.junit.Test;
+import sheep.expression.Expression;
+import sheep.expression.Folded;
+import sheep.expression.TypeError;
+import sheep.expression.aggregate.Aggregate;
+import sheep.expression.arithmetic.Arithmetic;
+import sheep.expression.basic.Constant;
+import sheep.expression.basic.Nothing;
+import sheep.expression.basic.Range;
+import sheep.expression.basic.Reference;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class FormulaCompilerTest {
+    private FormulaCompiler compiler;
+    private ValueStore cells;
+    private Map<String, Expression> state;
+
+    @Before
+    public void setUp() {
+        Map<String, Expression> builtins = new HashMap<>();
+        builtins.put("ten", new Constant(10));
+        builtins.put("text", new FormulaExpr("text"));
+        compiler = new FormulaCompiler(builtins);
+
+        cells = new MapValueStore(null);
+        state = new HashMap<>(builtins);
+        for (int row = 0; row < 3; row++) {
+            for (int column = 0; column < 2; column++) {
+                put(row, column, new Constant(row * 10 + column + 1));
+            }
+        }
+        put(2, 1, new Nothing());
+    }
+
+    private void put(int row, int column, Expression value) {
+        cells.put(row, column, value);
+        state.put(new CellLocation(row, column).toString(), value);
+    }
+
+    private void assertSameAsInterpreted(Expression formula) throws TypeError {
+        CompiledFormula compiled = compiler.compile(formula);
+        assertNotNull(compiled);
+        assertEquals(formula.value(state), new Constant(compiled.evaluate(cells)));
+    }
+
+    private static Expression ref(String identifier) {
+        return new Reference(identifier);
+    }
+
+    @Test
+    public void testOperators() throws TypeError {
+        Expression[] arguments = new Expression[]{ref("A0"), ref("B1"), new Constant(3), ref("ten")};
+        assertSameAsInterpreted(Arithmetic.plus(arguments));
+        assertSameAsInterpreted(Arithmetic.minus(arguments));
+        assertSameAsInterpreted(Arithmetic.times(arguments));
+        assertSameAsInterpreted(Arithmetic.divide(new Expression[]{ref("B1"), ref("A1")}));
+        assertSameAsInterpreted(Arithmetic.less(arguments));
+        assertSameAsInterpreted(Arithmetic.less(new Expression[]{ref("A0"), ref("A1"), ref("A2")}));
+        assertSameAsInterpreted(Arithmetic.equal(new Expression[]{ref("A0"), new Constant(1)}));
+        assertSameAsInterpreted(Arithmetic.equal(new Expression[]{ref("A0"), ref("A1")}));
+    }
+
+    @Test
+    public void testNested() throws TypeError {
+        assertSameAsInterpreted(Arithmetic.plus(new Expression[]{
+                ref("A0"),
+                Arithmetic.times(new Expression[]{ref("A1"), new Constant(4)}),
+                Arithmetic.minus(new Expression[]{ref("ten"), ref("B0")})}));
+    }
+
+    @Test
+    public void testReadsUpdatedCells() throws TypeError {
+        CompiledFormula compiled = compiler.compile(Arithmetic.plus(new Expression[]{ref("A0"), ref("A1")}));
+        assertEquals(12, compiled.evaluate(cells));
+        cells.put(0, 0, new Constant(100));
+        assertEquals(111, compiled.evaluate(cells));
+    }
+
+    @Test(expected = TypeError.class)
+    public void testEmptyCell() throws TypeError {
+        compiler.compile(Arithmetic.plus(new Expression[]{ref("A0"), ref("B2")})).evaluate(cells);
+    }
+
+    @Test(expected = TypeError.class)
+    public void testMissingCell() throws TypeError {
+        compiler.compile(Arithmetic.plus(new Expression[]{ref("A0"), ref("A9")})).evaluate(cells);
+    }
+
+    @Test(expected = TypeError.class)
+    public void testUnknownIdentifier() throws TypeError {
+        compiler.compile(Arithmetic.plus(new Expression[]{ref("A0"), ref("unknown")})).evaluate(cells);
+    }
+
+    @Test(expected = TypeError.class)
+    public void testTypeErrorBeforeDivisionByZero() throws TypeError {
+        compiler.compile(Arithmetic.divide(new Expression[]{ref("A0"), new Constant(0), ref("B2")}))
+                .evaluate(cells);
+    }
+
+    @Test
+    public void testNotCompiled() {
+        assertNull(compiler.compile(new Constant(1)));
+        assertNull(compiler.compile(ref("A0")));
+        assertNull(compiler.compile(Arithmetic.plus(new Expression[]{ref("A0"), new FormulaExpr("x")})));
+        assertNull(compiler.compile(Arithmetic.plus(new Expression[]{ref("A0"), ref("text")})));
+    }
+
+    @Test
+    public void testAggregates() throws TypeError {
+        Expression[] arguments = new Expression[]{
+                new Range(new CellLocation(0, 0), new CellLocation(5, 1)), ref("ten")};
+        assertSameAsInterpreted(Aggregate.sum(arguments));
+        assertSameAsInterpreted(Aggregate.min(arguments));
+        assertSameAsInterpreted(Aggregate.max(arguments));
+        assertSameAsInterpreted(Aggregate.count(arguments));
+        assertSameAsInterpreted(Aggregate.average(arguments));
+        assertSameAsInterpreted(Arithmetic.plus(new Expression[]{Aggregate.sum(arguments), ref("A0")}));
+    }
+
+    @Test(expected = TypeError.class)
+    public void testRangeOutsideAggregate() throws TypeError {
+        compiler.compile(Arithmetic.plus(new Expression[]{
+                new Range(new CellLocation(0, 0), new CellLocation(1, 0)), new Constant(1)})).evaluate(cells);
+    }
+
+    @Test
+    public void testFolded() throws TypeError {
+        Expression written = Arithmetic.plus(new Expression[]{ref("A0"), new Constant(0)});
+        Expression folded = new Folded(written, Arithmetic.plus(new Expression[]{ref("A0")}));
+        assertSameAsInterpreted(folded);
+        assertNull(compiler.compile(new Folded(written, new Constant(3))));
+    }
+}
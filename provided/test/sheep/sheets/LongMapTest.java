@@ -0,0 +1,86 @@
+package sheep.sheets;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class LongMapTest {
+    private LongMap<String> map;
+
+    @Before
+    public void setUp() {
+        map = new LongMap<>();
+    }
+
+    @Test
+    public void testEmpty() {
+        assertEquals(0, map.size());
+        assertNull(map.get(0));
+        assertFalse(map.containsKey(0));
+        assertNull(map.remove(0));
+    }
+
+    @Test
+    public void testPutGet() {
+        assertNull(map.put(CellLocation.pack(1, 2), "B1"));
+        assertEquals("B1", map.get(CellLocation.pack(1, 2)));
+        assertNull(map.get(CellLocation.pack(2, 1)));
+        assertEquals("B1", map.put(CellLocation.pack(1, 2), "other"));
+        assertEquals("other", map.get(CellLocation.pack(1, 2)));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testRemove() {
+        map.put(5, "five");
+        map.put(6, "six");
+        assertEquals("five", map.remove(5));
+        assertFalse(map.containsKey(5));
+        assertEquals("six", map.get(6));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testClear() {
+        map.put(5, "five");
+        map.clear();
+        assertEquals(0, map.size());
+        assertNull(map.get(5));
+    }
+
+    /**
+     * Compare many insertions and removals against a {@link HashMap},
+     * forcing the table to grow and entries to be shifted on removal.
+     */
+    @Test
+    public void testAgainstHashMap() {
+        Map<Long, String> expected = new HashMap<>();
+        for (int row = 0; row < 200; row++) {
+            for (int column = 0; column < 26; column++) {
+                long key = CellLocation.pack(row, column);
+                map.put(key, row + ":" + column);
+                expected.put(key, row + ":" + column);
+            }
+        }
+        for (int row = 0; row < 200; row += 3) {
+            for (int column = 0; column < 26; column += 2) {
+                long key = CellLocation.pack(row, column);
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int row = 0; row < 200; row++) {
+            for (int column = 0; column < 26; column++) {
+                long key = CellLocation.pack(row, column);
+                assertEquals(expected.get(key), map.get(key));
+            }
+        }
+        Map<Long, String> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(expected, visited);
+    }
+}
@@ -0,0 +1,91 @@
+package sheep.sheets;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class PersistentLongMapTest {
+    private PersistentLongMap<String> map;
+
+    @Before
+    public void setUp() {
+        map = new PersistentLongMap<>();
+    }
+
+    private static Map<Long, String> entries(PersistentLongMap<String> map) {
+        Map<Long, String> entries = new HashMap<>();
+        map.forEach(entries::put);
+        return entries;
+    }
+
+    @Test
+    public void testPutGetRemove() {
+        assertNull(map.put(CellLocation.pack(1, 2), "B1"));
+        assertEquals("B1", map.get(CellLocation.pack(1, 2)));
+        assertEquals("B1", map.put(CellLocation.pack(1, 2), "other"));
+        assertEquals(1, map.size());
+        assertEquals("other", map.remove(CellLocation.pack(1, 2)));
+        assertNull(map.remove(CellLocation.pack(1, 2)));
+        assertFalse(map.containsKey(CellLocation.pack(1, 2)));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void testSnapshotUnchanged() {
+        map.put(1, "one");
+        map.put(2, "two");
+        PersistentLongMap<String> snapshot = map.snapshot();
+        map.put(1, "uno");
+        map.remove(2);
+        map.put(3, "three");
+
+        assertEquals(Map.of(1L, "one", 2L, "two"), entries(snapshot));
+        assertEquals(2, snapshot.size());
+        assertEquals(Map.of(1L, "uno", 3L, "three"), entries(map));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSnapshotImmutable() {
+        map.snapshot().put(1, "one");
+    }
+
+    /**
+     * Compare many insertions and removals against a {@link HashMap}, with snapshots
+     * taken along the way that must keep the entries they were taken with.
+     */
+    @Test
+    public void testAgainstHashMap() {
+        Map<Long, String> expected = new HashMap<>();
+        Map<Map<Long, String>, PersistentLongMap<String>> snapshots = new HashMap<>();
+        for (int row = 0; row < 300; row++) {
+            for (int column = 0; column < 26; column++) {
+                long key = CellLocation.pack(row, column);
+                assertEquals(expected.put(key, row + ":" + column), map.put(key, row + ":" + column));
+            }
+            if (row % 50 == 0) {
+                snapshots.put(new HashMap<>(expected), map.snapshot());
+            }
+        }
+        for (int row = 0; row < 300; row += 3) {
+            for (int column = 0; column < 26; column += 2) {
+                long key = CellLocation.pack(row, column);
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+            if (row % 60 == 0) {
+                snapshots.put(new HashMap<>(expected), map.snapshot());
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected, entries(map));
+        for (Map.Entry<Map<Long, String>, PersistentLongMap<String>> snapshot : snapshots.entrySet()) {
+            assertEquals(snapshot.getKey(), entries(snapshot.getValue()));
+            for (Map.Entry<Long, String> entry : snapshot.getKey().entrySet()) {
+                assertEquals(entry.getValue(), snapshot.getValue().get(entry.getKey()));
+            }
+        }
+    }
+}
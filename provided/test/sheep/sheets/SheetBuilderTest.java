@@ -4,12 +4,28 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.Timeout;
+import sheep.expression.Expression;
 import sheep.expression.TypeError;
+import sheep.expression.arithmetic.Arithmetic;
+import sheep.expression.basic.Constant;
+import sheep.expression.basic.Nothing;
+import sheep.expression.basic.Reference;
+import sheep.parsing.ParseResult;
 import sheep.parsing.Parser;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class SheetBuilderTest {
     public static final double testWeight = 2;
@@ -44,4 +60,403 @@ public class SheetBuilderTest {
         assertEquals("Ref(dood)", sheet.formulaAt(1, 1).getContent());
         assertEquals("Value(3490524077)", sheet.valueAt(1, 1).getContent());
     }
+
+    @Test
+    public void testColumnarEmpty() {
+        Sheet sheet = base.columnarValues().empty(5, 3);
+        for (int row = 0; row < 5; row++) {
+            for (int column = 0; column < 3; column++) {
+                assertEquals(new FormulaExpr("Default"), sheet.valueAt(new CellLocation(row, column)));
+                assertEquals("Formula(Default)", sheet.valueAt(row, column).getContent());
+            }
+        }
+    }
+
+    @Test
+    public void testColumnarValues() throws TypeError {
+        Sheet sheet = base.columnarValues().empty(5, 3);
+        sheet.update(new CellLocation(0, 0), new Constant(-42));
+        sheet.update(new CellLocation(1, 0), new Nothing());
+        sheet.update(new CellLocation(2, 1), new FormulaExpr("Other"));
+        sheet.update(new CellLocation(3, 2), Arithmetic.plus(
+                new Expression[]{new Reference("A0"), new Constant(2)}));
+
+        assertEquals(new Constant(-42), sheet.valueAt(new CellLocation(0, 0)));
+        assertEquals("-42", sheet.valueAt(0, 0).getContent());
+        assertEquals("", sheet.valueAt(1, 0).getContent());
+        assertEquals(new ValueExpr("Other"), sheet.valueAt(new CellLocation(2, 1)));
+        assertEquals("Value(Other)", sheet.valueAt(2, 1).getContent());
+        assertEquals(new Constant(-40), sheet.valueAt(new CellLocation(3, 2)));
+
+        sheet.update(new CellLocation(0, 0), new Constant(8));
+        assertEquals("10", sheet.valueAt(3, 2).getContent());
+        sheet.update(new CellLocation(2, 1), new Constant(1));
+        assertEquals(new Constant(1), sheet.valueAt(new CellLocation(2, 1)));
+    }
+
+    @Test
+    public void testColumnarGrow() throws TypeError {
+        Sheet sheet = base.columnarValues().empty(2, 2);
+        sheet.updateDimensions(6, 4);
+        sheet.update(new CellLocation(5, 3), new Constant(7));
+        assertEquals("7", sheet.valueAt(5, 3).getContent());
+        assertEquals("Formula(Default)", sheet.valueAt(4, 2).getContent());
+    }
+
+    @Test
+    public void testSparseEmpty() {
+        Sheet sheet = base.sparse().empty(100000, 1000);
+        assertEquals(new FormulaExpr("Default"), sheet.formulaAt(new CellLocation(99999, 999)));
+        assertEquals(new FormulaExpr("Default"), sheet.valueAt(new CellLocation(5000, 3)));
+        assertEquals("Formula(Default)", sheet.valueAt(0, 0).getContent());
+    }
+
+    @Test
+    public void testSparseValues() throws TypeError {
+        Sheet sheet = base.sparse().columnarValues().empty(100000, 26);
+        sheet.update(new CellLocation(99999, 25), new Constant(5));
+        sheet.update(new CellLocation(0, 0), Arithmetic.plus(
+                new Expression[]{new Reference("Z99999"), new Constant(2)}));
+        assertEquals(new Constant(7), sheet.valueAt(new CellLocation(0, 0)));
+
+        sheet.update(new CellLocation(99999, 25), new Constant(1));
+        assertEquals(new Constant(3), sheet.valueAt(new CellLocation(0, 0)));
+    }
+
+    @Test
+    public void testSparseClear() throws TypeError {
+        Sheet sheet = base.sparse().empty(10, 10);
+        sheet.update(new CellLocation(1, 1), new FormulaExpr("Other"));
+        sheet.update(new CellLocation(2, 2), new RefExpr("B1"));
+        assertEquals(new ValueExpr("Other"), sheet.valueAt(new CellLocation(2, 2)));
+        sheet.clear();
+        assertEquals(new FormulaExpr("Default"), sheet.formulaAt(new CellLocation(1, 1)));
+        assertEquals(new FormulaExpr("Default"), sheet.valueAt(new CellLocation(2, 2)));
+        assertEquals(0, sheet.usedBy(new CellLocation(1, 1)).size());
+    }
+
+    @Test
+    public void testSparseEmptyIsNotDefault() {
+        Sheet sheet = new SheetBuilder(new EchoParser(), new Constant(0))
+                .sparse().columnarValues().empty(10, 10);
+        try {
+            sheet.update(new CellLocation(1, 0), Arithmetic.plus(
+                    new Expression[]{new Reference("A0"), new Constant(1)}));
+            assertEquals(new Constant(1), sheet.valueAt(new CellLocation(1, 0)));
+            sheet.update(new CellLocation(0, 0), new Nothing());
+            fail("Empty cell evaluated as the default");
+        } catch (TypeError expected) {
+            // expected
+        }
+        assertEquals(new Constant(0), sheet.valueAt(new CellLocation(0, 0)));
+    }
+
+    @Test
+    public void testSparseEqualDefaultIsNotStored() {
+        FormulaExpr defaultExpression = new FormulaExpr("Default");
+        Sheet sheet = new SheetBuilder(new EchoParser(), defaultExpression).sparse().empty(10, 10);
+        sheet.update(3, 3, "Other");
+        sheet.update(3, 3, "Default");
+        assertSame(defaultExpression, sheet.formulaAt(new CellLocation(3, 3)));
+    }
+
+    @Test
+    public void testColumnarEmptyNumber() {
+        ColumnarValueStore store = new ColumnarValueStore(new Constant(0), new Constant(0), 2);
+        store.put(0, 0, new Nothing());
+        try {
+            store.number(0, 0);
+            fail("Empty cell has a number");
+        } catch (TypeError expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testEqualFallbackIsNotStored() {
+        Constant fallback = new Constant(0);
+        ColumnarValueStore columnar = new ColumnarValueStore(fallback, fallback, 2);
+        columnar.put(1, 1, new Constant(0));
+        assertSame(fallback, columnar.get(1, 1));
+        MapValueStore map = new MapValueStore(fallback);
+        map.put(1, 1, new Constant(0));
+        assertSame(fallback, map.get(1, 1));
+    }
+
+    @Test
+    public void testGrowKeepsRemembered() throws TypeError {
+        Sheet sheet = base.empty(4, 4);
+        sheet.update(new CellLocation(3, 3), new Constant(9));
+        sheet.updateDimensions(2, 2);
+        sheet.updateDimensions(3, 5);
+        assertEquals(new FormulaExpr("Default"), sheet.formulaAt(new CellLocation(2, 4)));
+        sheet.updateDimensions(4, 4);
+        assertEquals(new Constant(9), sheet.formulaAt(new CellLocation(3, 3)));
+    }
+
+    @Test
+    public void testCachedUsedBy() throws TypeError {
+        Sheet sheet = base.cachedUsedBy().empty(5, 3);
+        sheet.update(new CellLocation(1, 0), new RefExpr("A0"));
+        sheet.update(new CellLocation(2, 0), new RefExpr("A1"));
+        sheet.update(new CellLocation(0, 1), new RefExpr("B1"));
+        assertEquals(Set.of(new CellLocation(1, 0), new CellLocation(2, 0)),
+                sheet.usedBy(new CellLocation(0, 0)));
+        assertEquals(Set.of(new CellLocation(0, 1)), sheet.usedBy(new CellLocation(1, 1)));
+
+        // extends the chain below A0
+        sheet.update(new CellLocation(3, 0), new RefExpr("A2"));
+        assertEquals(Set.of(new CellLocation(1, 0), new CellLocation(2, 0), new CellLocation(3, 0)),
+                sheet.usedBy(new CellLocation(0, 0)));
+
+        // cuts the chain below A0
+        sheet.update(new CellLocation(2, 0), new Constant(1));
+        assertEquals(Set.of(new CellLocation(1, 0)), sheet.usedBy(new CellLocation(0, 0)));
+        assertEquals(Set.of(new CellLocation(3, 0)), sheet.usedBy(new CellLocation(2, 0)));
+        assertEquals(Set.of(new CellLocation(0, 1)), sheet.usedBy(new CellLocation(1, 1)));
+
+        sheet.clear();
+        assertEquals(Set.of(), sheet.usedBy(new CellLocation(0, 0)));
+    }
+
+    @Test
+    public void testCachedUsedByBatch() throws TypeError {
+        Sheet sheet = base.cachedUsedBy().empty(5, 3);
+        sheet.update(new CellLocation(0, 1), new RefExpr("A0"));
+        assertEquals(Set.of(new CellLocation(0, 1)), sheet.usedBy(new CellLocation(0, 0)));
+        assertEquals(Set.of(), sheet.usedBy(new CellLocation(1, 0)));
+
+        // the usages of A2 are linked while A1 is still waiting to be inserted
+        Map<CellLocation, Expression> updates = new LinkedHashMap<>();
+        updates.put(new CellLocation(2, 0), new RefExpr("A1"));
+        updates.put(new CellLocation(1, 0), new RefExpr("A0"));
+        sheet.updateAll(updates);
+        assertEquals(Set.of(new CellLocation(0, 1), new CellLocation(1, 0), new CellLocation(2, 0)),
+                sheet.usedBy(new CellLocation(0, 0)));
+        assertEquals(Set.of(new CellLocation(2, 0)), sheet.usedBy(new CellLocation(1, 0)));
+    }
+
+    @Test
+    public void testColumnarSnapshot() throws TypeError {
+        Sheet sheet = base.columnarValues().empty(1000, 3);
+        sheet.update(new CellLocation(0, 0), new Constant(1));
+        sheet.update(new CellLocation(999, 2), new FormulaExpr("Other"));
+        SheetSnapshot snapshot = sheet.snapshot();
+
+        sheet.update(new CellLocation(0, 0), new Constant(2));
+        sheet.update(new CellLocation(500, 1), new Constant(3));
+        sheet.update(new CellLocation(999, 2), new Constant(4));
+
+        assertEquals("1", snapshot.valueAt(0, 0).getContent());
+        assertEquals("Formula(Default)", snapshot.valueAt(500, 1).getContent());
+        assertEquals("Value(Other)", snapshot.valueAt(999, 2).getContent());
+        SheetSnapshot latest = sheet.snapshot();
+        assertEquals("2", latest.valueAt(0, 0).getContent());
+        assertEquals("3", latest.valueAt(500, 1).getContent());
+        assertEquals("4", latest.valueAt(999, 2).getContent());
+    }
+
+    @Test
+    public void testParallelFanOut() throws TypeError {
+        Sheet sheet = base.parallelRecalculation(8).columnarValues().empty(500, 4);
+        for (int row = 1; row < 500; row++) {
+            for (int column = 0; column < 4; column++) {
+                sheet.update(new CellLocation(row, column), Arithmetic.times(
+                        new Expression[]{new Reference("A0"), new Constant(row * 4 + column)}));
+            }
+        }
+        sheet.update(new CellLocation(0, 1), Arithmetic.plus(
+                new Expression[]{new Reference("D499"), new Reference("C498")}));
+
+        sheet.update(new CellLocation(0, 0), new Constant(3));
+        for (int row = 1; row < 500; row++) {
+            for (int column = 0; column < 4; column++) {
+                assertEquals(new Constant(3L * (row * 4 + column)), sheet.valueAt(new CellLocation(row, column)));
+            }
+        }
+        assertEquals(new Constant(3L * (499 * 4 + 3) + 3L * (498 * 4 + 2)), sheet.valueAt(new CellLocation(0, 1)));
+    }
+
+    @Test
+    public void testParallelRollsBack() throws TypeError {
+        Sheet sheet = base.parallelRecalculation(2).empty(50, 2);
+        sheet.update(new CellLocation(0, 0), new Constant(1));
+        for (int row = 1; row < 50; row++) {
+            sheet.update(new CellLocation(row, 0), Arithmetic.plus(
+                    new Expression[]{new Reference("A0"), new Constant(row)}));
+        }
+        try {
+            sheet.update(new CellLocation(0, 0), new Nothing());
+            fail("Expected a type error");
+        } catch (TypeError ignored) {
+            // expected
+        }
+        assertEquals(new Constant(1), sheet.valueAt(new CellLocation(0, 0)));
+        for (int row = 1; row < 50; row++) {
+            assertEquals(new Constant(row + 1), sheet.valueAt(new CellLocation(row, 0)));
+        }
+    }
+
+    private static Expression plusOne(String reference) {
+        return Arithmetic.plus(new Expression[]{new Reference(reference), new Constant(1)});
+    }
+
+    @Test
+    public void testLazyCalculation() throws TypeError {
+        Sheet sheet = base.calculationMode(CalculationMode.LAZY).empty(5, 3);
+        int[] evaluations = new int[1];
+        sheet.update(new CellLocation(0, 0), new Constant(1));
+        sheet.update(new CellLocation(1, 0), plusOne("A0"));
+        sheet.update(new CellLocation(2, 0), new CountingExpr(plusOne("A1"), evaluations));
+        assertEquals(1, evaluations[0]);
+
+        sheet.update(new CellLocation(0, 0), new Constant(5));
+        assertEquals(1, evaluations[0]);
+        assertTrue(sheet.isStale(new CellLocation(1, 0)));
+        assertTrue(sheet.isStale(new CellLocation(2, 0)));
+
+        assertEquals(new Constant(7), sheet.valueAt(new CellLocation(2, 0)));
+        assertEquals(2, evaluations[0]);
+        assertFalse(sheet.isStale(new CellLocation(1, 0)));
+        assertEquals(new Constant(6), sheet.valueAt(new CellLocation(1, 0)));
+        assertEquals(2, evaluations[0]);
+    }
+
+    @Test
+    public void testLazyUpdateUsesStaleCells() throws TypeError {
+        Sheet sheet = base.calculationMode(CalculationMode.LAZY).empty(5, 3);
+        sheet.update(new CellLocation(0, 0), new Constant(1));
+        sheet.update(new CellLocation(1, 0), plusOne("A0"));
+        sheet.update(new CellLocation(0, 0), new Constant(10));
+        // B0 needs the out of date value of A1, which is calculated first
+        sheet.update(new CellLocation(0, 1), plusOne("A1"));
+        assertFalse(sheet.isStale(new CellLocation(1, 0)));
+        assertEquals(new Constant(12), sheet.valueAt(new CellLocation(0, 1)));
+    }
+
+    @Test
+    public void testLazySnapshot() throws TypeError {
+        Sheet sheet = base.calculationMode(CalculationMode.LAZY).empty(5, 3);
+        sheet.update(new CellLocation(0, 0), new Constant(1));
+        sheet.update(new CellLocation(1, 0), plusOne("A0"));
+        sheet.update(new CellLocation(0, 0), new Constant(2));
+        assertEquals("3", sheet.snapshot().valueAt(1, 0).getContent());
+        // the snapshot calculates the cell for itself, leaving the sheet unchanged
+        assertTrue(sheet.isStale(new CellLocation(1, 0)));
+    }
+
+    @Test
+    public void testLazySnapshotIgnoresLaterUpdates() throws TypeError {
+        Sheet sheet = base.calculationMode(CalculationMode.LAZY).empty(5, 3);
+        sheet.update(new CellLocation(0, 0), new Constant(1));
+        sheet.update(new CellLocation(1, 0), plusOne("A0"));
+        sheet.update(new CellLocation(0, 0), new Constant(2));
+        SheetSnapshot snapshot = sheet.snapshot();
+        assertTrue(snapshot.isStale(1, 0));
+
+        sheet.update(new CellLocation(0, 0), new Constant(100));
+        sheet.update(new CellLocation(1, 0), Arithmetic.times(
+                new Expression[]{new Reference("A0"), new Constant(3)}));
+        assertEquals(new Constant(3), snapshot.valueAt(new CellLocation(1, 0)));
+        assertEquals("3", snapshot.valueAt(1, 0).getContent());
+        assertEquals(new Constant(300), sheet.valueAt(new CellLocation(1, 0)));
+    }
+
+    @Test
+    public void testLazyReadsDoNotWaitForWriter() throws Exception {
+        Sheet sheet = base.calculationMode(CalculationMode.LAZY).empty(5, 3);
+        sheet.update(new CellLocation(0, 0), new Constant(1));
+        sheet.update(new CellLocation(1, 0), plusOne("A0"));
+        sheet.valueAt(new CellLocation(1, 0));
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread writer = new Thread(() -> {
+            sheet.writer.lock();
+            try {
+                locked.countDown();
+                release.await();
+            } catch (InterruptedException ignored) {
+                // released
+            } finally {
+                sheet.writer.unlock();
+            }
+        });
+        writer.start();
+        locked.await();
+        try {
+            // up to date cells are read from the snapshot while another thread modifies the sheet
+            assertFalse(sheet.isStale(new CellLocation(1, 0)));
+            assertEquals(new Constant(2), sheet.valueAt(new CellLocation(1, 0)));
+        } finally {
+            release.countDown();
+            writer.join();
+        }
+    }
+
+    @Test
+    public void testManualCalculation() throws TypeError {
+        Sheet sheet = base.calculationMode(CalculationMode.MANUAL).empty(5, 3);
+        sheet.update(new CellLocation(0, 0), new Constant(1));
+        sheet.update(new CellLocation(1, 0), plusOne("A0"));
+        sheet.update(new CellLocation(2, 0), plusOne("A1"));
+        sheet.update(new CellLocation(0, 0), new Constant(5));
+        assertEquals(new Constant(5), sheet.valueAt(new CellLocation(0, 0)));
+        assertEquals(new Constant(2), sheet.valueAt(new CellLocation(1, 0)));
+        assertEquals(new Constant(3), sheet.valueAt(new CellLocation(2, 0)));
+        assertTrue(sheet.isStale(new CellLocation(2, 0)));
+
+        sheet.recalculate();
+        assertEquals(new Constant(6), sheet.valueAt(new CellLocation(1, 0)));
+        assertEquals(new Constant(7), sheet.valueAt(new CellLocation(2, 0)));
+        assertFalse(sheet.isStale(new CellLocation(2, 0)));
+    }
+
+    @Test
+    public void testSwitchToAutomatic() throws TypeError {
+        Sheet sheet = base.calculationMode(CalculationMode.MANUAL).empty(5, 3);
+        sheet.update(new CellLocation(0, 0), new Constant(1));
+        sheet.update(new CellLocation(1, 0), plusOne("A0"));
+        sheet.update(new CellLocation(0, 0), new Constant(5));
+        sheet.setCalculationMode(CalculationMode.AUTOMATIC);
+        assertEquals(CalculationMode.AUTOMATIC, sheet.getCalculationMode());
+        assertEquals(new Constant(6), sheet.valueAt(new CellLocation(1, 0)));
+        sheet.update(new CellLocation(0, 0), new Constant(7));
+        assertEquals(new Constant(8), sheet.valueAt(new CellLocation(1, 0)));
+    }
+
+    @Test
+    public void testCachedParsing() {
+        int[] parsed = new int[1];
+        Parser counting = input -> {
+            parsed[0]++;
+            return new EchoParser().parse(input);
+        };
+        Sheet sheet = new SheetBuilder(counting, new FormulaExpr("Default")).cachedParsing(8).empty(5, 3);
+        sheet.update(0, 0, "Hello");
+        sheet.update(1, 0, "Hello");
+        sheet.update(2, 0, "World");
+        assertEquals(2, parsed[0]);
+        assertSame(sheet.formulaAt(new CellLocation(0, 0)), sheet.formulaAt(new CellLocation(1, 0)));
+    }
+
+    @Test
+    public void testParallelParsing() {
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            inputs.add(i % 10 == 0 ? SpecialStrings.ThrowParseException.label : "Cell " + i);
+        }
+        Sheet serial = new SheetBuilder(new EchoParser(), new FormulaExpr("Default")).empty(5, 3);
+        Sheet parallel = new SheetBuilder(new EchoParser(), new FormulaExpr("Default"))
+                .parallelParsing(4).empty(5, 3);
+        List<ParseResult> expected = serial.parseAll(inputs);
+        List<ParseResult> results = parallel.parseAll(inputs);
+        assertEquals(inputs.size(), results.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            assertEquals(expected.get(i).isSuccess(), results.get(i).isSuccess());
+            assertEquals(i % 10 != 0, results.get(i).isSuccess());
+            if (results.get(i).isSuccess()) {
+                assertEquals(expected.get(i).getExpression(), results.get(i).getExpression());
+            }
+        }
+    }
 }
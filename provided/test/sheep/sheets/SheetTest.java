@@ -8,6 +8,11 @@ import sheep.core.UpdateResponse;
 import sheep.core.ViewElement;
 import sheep.expression.Expression;
 import sheep.expression.TypeError;
+import sheep.expression.aggregate.Aggregate;
+import sheep.expression.arithmetic.Arithmetic;
+import sheep.expression.basic.Constant;
+import sheep.expression.basic.Nothing;
+import sheep.expression.basic.Range;
 import sheep.expression.basic.Reference;
 import sheep.parsing.ParseException;
 import sheep.parsing.Parser;
@@ -160,6 +165,38 @@ class RefExpr extends Expression {
     }
 }
 
+class CountingExpr extends Expression {
+
+    private final Expression inner;
+    private final int[] evaluations;
+
+    public CountingExpr(Expression inner, int[] evaluations) {
+        this.inner = inner;
+        this.evaluations = evaluations;
+    }
+
+    @Override
+    public Set<String> dependencies() {
+        return inner.dependencies();
+    }
+
+    @Override
+    public long value() throws TypeError {
+        return inner.value();
+    }
+
+    @Override
+    public Expression value(Map<String, Expression> state) throws TypeError {
+        evaluations[0]++;
+        return inner.value(state);
+    }
+
+    @Override
+    public String render() {
+        return inner.render();
+    }
+}
+
 enum SpecialStrings {
     ThrowTypeError("Throw Type Error"),
     ThrowParseException("Throw Parse Exception");
@@ -447,6 +484,28 @@ public class SheetTest {
                 base.usedBy(new CellLocation(1, 0)));
     }
 
+    /**
+     * Test that an update that fails with a division by zero
+     * leaves the usages and formulas as they were before the update.
+     */
+    @Test
+    public void testFailedDivisionRollsBackUsages() throws TypeError {
+        CellLocation a0 = new CellLocation(0, 0);
+        CellLocation a1 = new CellLocation(1, 0);
+        CellLocation a2 = new CellLocation(2, 0);
+        base.update(a0, new Constant(1));
+        base.update(a1, new Reference("A0"));
+        Expression before = base.formulaAt(a2);
+        try {
+            base.update(a2, Arithmetic.divide(new Expression[]{new Reference("A0"), new Constant(0)}));
+            fail("Dividing by zero should throw");
+        } catch (ArithmeticException expected) {
+            // the update is rolled back
+        }
+        assertEquals(Set.of(a1), base.usedBy(a0));
+        assertEquals(before, base.formulaAt(a2));
+    }
+
     /**
      * Test that after inserting a reference to A2 at cells A0 and A1,
      * calling usedBy for A2 will return a set containing A0 and A1.
@@ -506,4 +565,369 @@ public class SheetTest {
                 )),
                 base.usedBy(new CellLocation(4, 0)));
     }
+
+    /**
+     * Builds a ladder of diamonds where every cell in a row uses both cells of the row above.
+     * Asserts that updating the top of the ladder evaluates each dependant exactly once.
+     */
+    @Test(timeout = 6000)
+    public void testUpdateDiamondEvaluatesOnce() throws TypeError {
+        int rows = 30;
+        int[] evaluations = new int[1];
+        Sheet sheet = new Sheet(new EchoParser(), new HashMap<>(), new FormulaExpr("Default"), rows, 2);
+        sheet.update(new CellLocation(0, 0), new Constant(1));
+        sheet.update(new CellLocation(0, 1), new Constant(1));
+        for (int row = 1; row < rows; row++) {
+            for (int column = 0; column < 2; column++) {
+                Expression sum = Arithmetic.plus(new Expression[]{
+                        new Reference("A" + (row - 1)), new Reference("B" + (row - 1))});
+                sheet.update(new CellLocation(row, column), new CountingExpr(sum, evaluations));
+            }
+        }
+
+        evaluations[0] = 0;
+        sheet.update(new CellLocation(0, 0), new Constant(2));
+        assertEquals(2 * (rows - 1), evaluations[0]);
+        assertEquals(new Constant(3L << (rows - 2)), sheet.valueAt(new CellLocation(rows - 1, 1)));
+    }
+
+    /**
+     * Asserts that a type error part way through a ladder of dependants
+     * leaves every cell with its previous formula and value.
+     */
+    @Test(timeout = 6000)
+    public void testUpdateTypeErrorRollsBackDependants() throws TypeError {
+        base.update(new CellLocation(0, 0), new Constant(1));
+        base.update(new CellLocation(1, 0), Arithmetic.plus(new Expression[]{new Reference("A0"), new Constant(1)}));
+        base.update(new CellLocation(2, 0), Arithmetic.plus(new Expression[]{new Reference("A1"), new Constant(1)}));
+        try {
+            base.update(new CellLocation(0, 0), new Reference("missing"));
+            fail("Expected a type error");
+        } catch (TypeError ignored) {
+            // expected
+        }
+        assertEquals(new Constant(1), base.formulaAt(new CellLocation(0, 0)));
+        assertEquals(new Constant(1), base.valueAt(new CellLocation(0, 0)));
+        assertEquals(new Constant(2), base.valueAt(new CellLocation(1, 0)));
+        assertEquals(new Constant(3), base.valueAt(new CellLocation(2, 0)));
+    }
+
+    /**
+     * Asserts that editing the first cell of a long Fibonacci style chain
+     * recalculates the whole chain.
+     */
+    @Test(timeout = 6000)
+    public void testUpdateLongChain() throws TypeError {
+        int rows = 2000;
+        Sheet sheet = new Sheet(new EchoParser(), new HashMap<>(), new FormulaExpr("Default"), rows, 1);
+        sheet.update(new CellLocation(0, 0), new Constant(0));
+        sheet.update(new CellLocation(1, 0), new Constant(1));
+        for (int row = 2; row < rows; row++) {
+            sheet.update(new CellLocation(row, 0), Arithmetic.plus(new Expression[]{
+                    new Reference("A" + (row - 1)), new Reference("A" + (row - 2))}));
+        }
+        sheet.update(new CellLocation(0, 0), new Constant(1));
+        assertEquals(new Constant(2), sheet.valueAt(new CellLocation(2, 0)));
+        assertEquals(new Constant(3), sheet.valueAt(new CellLocation(3, 0)));
+    }
+
+    /**
+     * Asserts that usedBy finds every cell of a dense web of usages,
+     * where most cells are reachable along many paths.
+     */
+    @Test(timeout = 6000)
+    public void testUsedByWeb() throws TypeError {
+        Sheet sheet = new Sheet(new EchoParser(), new HashMap<>(), new FormulaExpr("Default"), 20, 3);
+        Set<CellLocation> expected = new HashSet<>();
+        for (int row = 1; row < 20; row++) {
+            List<Expression> references = new ArrayList<>();
+            for (int used = 0; used < row; used++) {
+                references.add(new Reference("A" + used));
+            }
+            sheet.update(new CellLocation(row, 0), Arithmetic.plus(references.toArray(new Expression[0])));
+            expected.add(new CellLocation(row, 0));
+        }
+        assertEquals(expected, sheet.usedBy(new CellLocation(0, 0)));
+    }
+
+    /**
+     * Asserts that cells beyond column Z can be referred to and encoded.
+     */
+    @Test(timeout = 6000)
+    public void testWideSheet() throws TypeError {
+        Sheet sheet = new Sheet(new EchoParser(), new HashMap<>(), new FormulaExpr("Default"), 2, 30);
+        sheet.update(new CellLocation(1, 27), new Constant(4));
+        sheet.update(new CellLocation(0, 29), Arithmetic.plus(new Expression[]{
+                new Reference("AB1"), new Constant(1)}));
+        assertEquals(new Constant(5), sheet.valueAt(new CellLocation(0, 29)));
+        assertEquals(Set.of(new CellLocation(0, 29)), sheet.usedBy(new CellLocation(1, 27)));
+    }
+
+    /**
+     * Asserts that a snapshot keeps the formulas, values and dimensions
+     * of the sheet at the time it was taken.
+     */
+    @Test(timeout = 6000)
+    public void testSnapshot() throws TypeError {
+        base.update(new CellLocation(0, 0), new Constant(1));
+        base.update(new CellLocation(1, 0), Arithmetic.plus(new Expression[]{
+                new Reference("A0"), new Constant(1)}));
+        SheetSnapshot snapshot = base.snapshot();
+
+        base.update(new CellLocation(0, 0), new Constant(5));
+        base.updateDimensions(7, 3);
+        base.clear();
+
+        assertEquals(5, snapshot.getRows());
+        assertEquals(new Constant(1), snapshot.formulaAt(new CellLocation(0, 0)));
+        assertEquals("2", snapshot.valueAt(1, 0).getContent());
+        assertEquals("A0 + 1", snapshot.formulaAt(1, 0).getContent());
+        assertEquals("Formula(Default)", snapshot.formulaAt(4, 2).getContent());
+        assertEquals(7, base.snapshot().getRows());
+        assertEquals(new FormulaExpr("Default"), base.snapshot().formulaAt(new CellLocation(0, 0)));
+    }
+
+    /**
+     * Asserts that a snapshot taken while another thread updates the sheet
+     * does not contain part of the update.
+     */
+    @Test(timeout = 6000)
+    public void testSnapshotDuringUpdate() throws Exception {
+        java.util.concurrent.CountDownLatch evaluating = new java.util.concurrent.CountDownLatch(1);
+        java.util.concurrent.CountDownLatch snapshotTaken = new java.util.concurrent.CountDownLatch(1);
+        base.update(new CellLocation(0, 0), new Constant(1));
+        base.update(new CellLocation(1, 0), new RefExpr("A0"));
+        // the first snapshot waits for modifications in progress, so take it beforehand
+        base.snapshot();
+        Expression blocking = new Constant(2) {
+            @Override
+            public Expression value(Map<String, Expression> state) {
+                evaluating.countDown();
+                try {
+                    snapshotTaken.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                return new Constant(2);
+            }
+        };
+        Thread writer = new Thread(() -> {
+            try {
+                base.updateAll(Map.of(new CellLocation(0, 1), new Constant(3),
+                        new CellLocation(0, 0), blocking));
+            } catch (TypeError e) {
+                throw new RuntimeException(e);
+            }
+        });
+        writer.start();
+        evaluating.await();
+        SheetSnapshot during = base.snapshot();
+        snapshotTaken.countDown();
+        writer.join();
+
+        assertEquals("1", during.valueAt(0, 0).getContent());
+        assertEquals("Formula(Default)", during.valueAt(0, 1).getContent());
+        assertEquals("2", base.snapshot().valueAt(0, 0).getContent());
+        assertEquals("3", base.snapshot().valueAt(0, 1).getContent());
+    }
+
+    /**
+     * Asserts that a batch of formulas which refer to each other is
+     * inserted and evaluated together.
+     */
+    @Test(timeout = 6000)
+    public void testUpdateAll() throws TypeError {
+        base.update(new CellLocation(0, 1), Arithmetic.plus(new Expression[]{new Reference("A0"), new Constant(1)}));
+        Map<CellLocation, Expression> updates = new LinkedHashMap<>();
+        updates.put(new CellLocation(0, 0), Arithmetic.times(new Expression[]{new Reference("A1"), new Constant(2)}));
+        updates.put(new CellLocation(1, 0), new Constant(5));
+        base.updateAll(updates);
+
+        assertEquals(new Constant(5), base.valueAt(new CellLocation(1, 0)));
+        assertEquals(new Constant(10), base.valueAt(new CellLocation(0, 0)));
+        assertEquals(new Constant(11), base.valueAt(new CellLocation(0, 1)));
+        assertEquals(new HashSet<>(List.of(new CellLocation(0, 0), new CellLocation(0, 1))),
+                base.usedBy(new CellLocation(1, 0)));
+    }
+
+    /**
+     * Asserts that a dependant of several cells in a batch is evaluated once.
+     */
+    @Test(timeout = 6000)
+    public void testUpdateAllEvaluatesOnce() throws TypeError {
+        int[] evaluations = new int[1];
+        base.update(new CellLocation(4, 2), new CountingExpr(Arithmetic.plus(new Expression[]{
+                new Reference("A0"), new Reference("A1"), new Reference("A2")}), evaluations));
+        evaluations[0] = 0;
+        Map<CellLocation, Expression> updates = new LinkedHashMap<>();
+        for (int row = 0; row < 3; row++) {
+            updates.put(new CellLocation(row, 0), new Constant(row));
+        }
+        base.updateAll(updates);
+        assertEquals(1, evaluations[0]);
+        assertEquals(new Constant(3), base.valueAt(new CellLocation(4, 2)));
+    }
+
+    /**
+     * Asserts that a type error in one entry of a batch
+     * leaves the sheet as it was before the batch.
+     */
+    @Test(timeout = 6000)
+    public void testUpdateAllRollsBack() throws TypeError {
+        base.update(new CellLocation(0, 0), new Constant(1));
+        base.update(new CellLocation(0, 1), Arithmetic.plus(new Expression[]{new Reference("A0"), new Constant(1)}));
+        Map<CellLocation, Expression> updates = new LinkedHashMap<>();
+        updates.put(new CellLocation(1, 1), new FormulaExpr("Inserted"));
+        updates.put(new CellLocation(0, 0), new Reference("missing"));
+        try {
+            base.updateAll(updates);
+            fail("Expected a type error");
+        } catch (TypeError ignored) {
+            // expected
+        }
+        assertEquals(new FormulaExpr("Default"), base.formulaAt(new CellLocation(1, 1)));
+        assertEquals(new Constant(1), base.formulaAt(new CellLocation(0, 0)));
+        assertEquals(new Constant(2), base.valueAt(new CellLocation(0, 1)));
+        assertEquals(new HashSet<>(List.of(new CellLocation(0, 1))), base.usedBy(new CellLocation(0, 0)));
+    }
+
+    /**
+     * Asserts that undoing an edit restores the formulas and values from before it,
+     * and that redoing it restores them again.
+     */
+    @Test(timeout = 6000)
+    public void testUndoRedo() throws TypeError {
+        base.update(new CellLocation(0, 0), new Constant(1));
+        base.update(new CellLocation(0, 1), Arithmetic.plus(new Expression[]{new Reference("A0"), new Constant(1)}));
+        base.update(new CellLocation(0, 0), new Constant(5));
+        assertEquals(new Constant(6), base.valueAt(new CellLocation(0, 1)));
+
+        assertTrue(base.undo());
+        assertEquals(new Constant(1), base.formulaAt(new CellLocation(0, 0)));
+        assertEquals(new Constant(2), base.valueAt(new CellLocation(0, 1)));
+        assertTrue(base.undo());
+        assertEquals(new FormulaExpr("Default"), base.formulaAt(new CellLocation(0, 1)));
+        assertEquals(new ValueExpr("Default"), base.valueAt(new CellLocation(0, 1)));
+        assertEquals(Set.of(), base.usedBy(new CellLocation(0, 0)));
+
+        assertTrue(base.redo());
+        assertTrue(base.redo());
+        assertEquals(new Constant(6), base.valueAt(new CellLocation(0, 1)));
+        assertFalse(base.redo());
+    }
+
+    /**
+     * Asserts that a batch is undone as a single edit
+     * and that a new edit forgets the edits that could have been redone.
+     */
+    @Test(timeout = 6000)
+    public void testUndoBatch() throws TypeError {
+        Map<CellLocation, Expression> updates = new LinkedHashMap<>();
+        updates.put(new CellLocation(0, 0), new Constant(1));
+        updates.put(new CellLocation(1, 0), new Constant(2));
+        base.updateAll(updates);
+        assertTrue(base.undo());
+        assertEquals(new FormulaExpr("Default"), base.formulaAt(new CellLocation(0, 0)));
+        assertEquals(new FormulaExpr("Default"), base.formulaAt(new CellLocation(1, 0)));
+
+        base.update(new CellLocation(2, 0), new Constant(3));
+        assertFalse(base.redo());
+        assertTrue(base.undo());
+        assertFalse(base.undo());
+    }
+
+    /**
+     * Asserts that an update which is rolled back is not remembered as an edit,
+     * and that clearing the sheet forgets every edit.
+     */
+    @Test(timeout = 6000)
+    public void testUndoSkipsRollback() throws TypeError {
+        base.update(new CellLocation(0, 0), new Constant(1));
+        try {
+            base.update(new CellLocation(0, 0),
+                    Arithmetic.plus(new Expression[]{new Reference("missing"), new Constant(1)}));
+            fail("Expected a type error");
+        } catch (TypeError ignored) {
+            // expected
+        }
+        assertTrue(base.undo());
+        assertEquals(new FormulaExpr("Default"), base.formulaAt(new CellLocation(0, 0)));
+
+        base.update(new CellLocation(0, 0), new Constant(1));
+        base.clear();
+        assertFalse(base.undo());
+    }
+
+    /**
+     * Asserts that an update reports the cells whose formula or value changed,
+     * but not the cells that were recalculated to the same value.
+     */
+    @Test(timeout = 6000)
+    public void testChangeSet() throws TypeError {
+        base.update(new CellLocation(0, 0), new Constant(1));
+        base.update(new CellLocation(0, 1), Arithmetic.plus(new Expression[]{new Reference("A0"), new Constant(1)}));
+        base.update(new CellLocation(0, 2), Arithmetic.less(new Expression[]{new Reference("A0"), new Constant(10)}));
+
+        ChangeSet changes = base.updateWithChanges(new CellLocation(0, 0), new Constant(2));
+        assertEquals(Set.of(new CellLocation(0, 0)), changes.getFormulas());
+        assertEquals(Set.of(new CellLocation(0, 0), new CellLocation(0, 1)), changes.getValues());
+        assertEquals(Set.of(new CellLocation(0, 0), new CellLocation(0, 1)), changes.getChanged());
+        assertFalse(changes.isStructural());
+
+        assertTrue(base.updateWithChanges(new CellLocation(0, 0), new Constant(2)).isEmpty());
+    }
+
+    /**
+     * Asserts that listeners receive the changes of every modification until removed.
+     */
+    @Test(timeout = 6000)
+    public void testListener() throws TypeError {
+        List<ChangeSet> received = new ArrayList<>();
+        SheetListener listener = received::add;
+        base.addListener(listener);
+
+        ChangeSet changes = base.updateWithChanges(new CellLocation(1, 1), new Constant(3));
+        assertEquals(List.of(changes), received);
+        base.clear();
+        assertEquals(2, received.size());
+        assertTrue(received.get(1).isStructural());
+
+        base.removeListener(listener);
+        base.update(new CellLocation(1, 1), new Constant(4));
+        assertEquals(2, received.size());
+    }
+
+    /**
+     * Asserts that aggregates of a range are recalculated when a cell of the range changes,
+     * including cells calculated in the same update.
+     */
+    @Test(timeout = 6000)
+    public void testAggregates() throws TypeError {
+        Expression[] column = new Expression[]{new Range(new CellLocation(0, 0), new CellLocation(4, 0))};
+        base.update(new CellLocation(0, 1), Aggregate.sum(column));
+        base.update(new CellLocation(1, 1), Aggregate.min(column));
+        base.update(new CellLocation(2, 1), Aggregate.count(column));
+        assertEquals(new Constant(0), base.valueAt(new CellLocation(0, 1)));
+
+        for (int row = 0; row < 5; row++) {
+            base.update(new CellLocation(row, 0), new Constant(row + 1));
+        }
+        assertEquals(new Constant(15), base.valueAt(new CellLocation(0, 1)));
+        assertEquals(new Constant(1), base.valueAt(new CellLocation(1, 1)));
+        assertEquals(new Constant(5), base.valueAt(new CellLocation(2, 1)));
+
+        // A4 is calculated in the same update as the aggregates that read it
+        Map<CellLocation, Expression> updates = new HashMap<>();
+        updates.put(new CellLocation(0, 0), new Constant(-5));
+        updates.put(new CellLocation(4, 0), Arithmetic.plus(new Expression[]{new Reference("A0"), new Constant(1)}));
+        base.updateAll(updates);
+        assertEquals(new Constant(0), base.valueAt(new CellLocation(0, 1)));
+        assertEquals(new Constant(-5), base.valueAt(new CellLocation(1, 1)));
+        assertEquals(new Constant(5), base.valueAt(new CellLocation(2, 1)));
+
+        // cells without a numeric value are skipped
+        base.update(new CellLocation(1, 0), new Nothing());
+        assertEquals(new Constant(-2), base.valueAt(new CellLocation(0, 1)));
+        assertEquals(new Constant(4), base.valueAt(new CellLocation(2, 1)));
+    }
 }